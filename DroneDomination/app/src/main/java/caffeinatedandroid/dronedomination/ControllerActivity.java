@@ -6,12 +6,29 @@ import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.os.Handler;
+import android.util.Log;
 import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.FrameLayout;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import caffeinatedandroid.joystick.JoystickFilterPipeline;
+import caffeinatedandroid.joystick.JoystickMoveEvent;
+import caffeinatedandroid.joystick.JoystickMoveListener;
+import caffeinatedandroid.joystick.ResponseCurve;
+import caffeinatedandroid.joystick.ResponseCurveFilter;
+import caffeinatedandroid.link.ControlFrame;
+import caffeinatedandroid.link.ControlLinkSender;
+import caffeinatedandroid.link.TelemetryGenerator;
+import caffeinatedandroid.link.TelemetryHistory;
+import caffeinatedandroid.link.TelemetryReceiver;
+import caffeinatedandroid.views.ControllerLayout;
 import caffeinatedandroid.views.JoystickView;
+import caffeinatedandroid.views.PerformanceOverlayView;
 
 /**
  * An example full-screen activity that shows and hides the system UI (i.e.
@@ -19,6 +36,8 @@ import caffeinatedandroid.views.JoystickView;
  * @author Christopher Bull
  */
 public class ControllerActivity extends AppCompatActivity {
+    private static final String TAG = "ControllerActivity";
+
     /**
      * Whether or not the system UI should be auto-hidden after
      * {@link #AUTO_HIDE_DELAY_MILLIS} milliseconds.
@@ -36,6 +55,55 @@ public class ControllerActivity extends AppCompatActivity {
      * and a change of the status and navigation bar.
      */
     private static final int UI_ANIMATION_DELAY = 300;
+
+    /**
+     * Whether or not to stream the joysticks' state to a drone, at
+     * {@link #DRONE_HOST}:{@link #DRONE_PORT}.
+     */
+    private static final boolean DRONE_LINK_ENABLED = false;
+    /** The drone's IP address (a literal address, so no DNS lookup on the UI thread) */
+    private static final String DRONE_HOST = "192.168.4.1";
+    private static final int DRONE_PORT = 14550;
+    private ControlLinkSender droneLink;
+
+    /**
+     * Whether to receive the drone's telemetry on {@link #TELEMETRY_PORT}, and draw its reported
+     * position on the {@link TestCanvasView} (so only without {@link #RENDER_THREAD_PLAYGROUND}).
+     */
+    private static final boolean TELEMETRY_ENABLED = false;
+    private static final int TELEMETRY_PORT = 14551;
+    /** Whether to generate the telemetry locally (a pretend drone flying circles), over loopback */
+    private static final boolean TELEMETRY_LOOPBACK = true;
+    private TelemetryHistory telemetryHistory;
+    private TelemetryReceiver telemetryReceiver;
+    private TelemetryGenerator telemetryGenerator;
+
+    /**
+     * Whether to use the render thread test playground ({@link TestSurfaceView}), which reads the
+     * joysticks' state directly, rather than {@link TestCanvasView} (driven by listener callbacks).
+     * Opt-in: the playground has no move listeners, so move filters ({@link #LEFT_STICK_EXPO}) and
+     * telemetry don't apply to it.
+     */
+    private static final boolean RENDER_THREAD_PLAYGROUND = false;
+
+    /**
+     * Whether to add the performance overlay (frame times, missed frames, and the joysticks' input
+     * rates and latencies). Toggled by the dummy button; costs nothing whilst hidden.
+     */
+    private static final boolean PERFORMANCE_OVERLAY = false;
+
+    /**
+     * How far each joystick's touch region extends beyond its bounds, in pixels, so a thumb landing
+     * just outside still takes the stick.
+     */
+    private static final float JOYSTICK_TOUCH_EXPAND = 60f;
+
+    /**
+     * Expo applied to the left stick's movement (0 for a linear response, up to 1), for finer
+     * control around the centre.
+     */
+    private static final float LEFT_STICK_EXPO = 0f;
+    private PerformanceOverlayView performanceOverlay;
     private final Handler mHideHandler = new Handler();
     private View mContentView;
     private final Runnable mHidePart2Runnable = new Runnable() {
@@ -122,62 +190,161 @@ public class ControllerActivity extends AppCompatActivity {
         int screenHeight = size.y;
 
         // Init custom Joystick controls
-        final TestCanvasView canvasView = new TestCanvasView(this);
-        ((FrameLayout)findViewById(R.id.controller_layout)).addView(canvasView, screenWidth, 1850);// view, width, height
+        final TestCanvasView canvasView;
+        TestSurfaceView surfaceView = null;
+        if(RENDER_THREAD_PLAYGROUND) {
+            canvasView = null;
+            surfaceView = new TestSurfaceView(this);
+            ((FrameLayout)findViewById(R.id.controller_layout)).addView(surfaceView, screenWidth, 1850);// view, width, height
+        } else {
+            canvasView = new TestCanvasView(this);
+            ((FrameLayout)findViewById(R.id.controller_layout)).addView(canvasView, screenWidth, 1850);// view, width, height
+        }
         // Bottom left joystick
         JoystickView jv = new JoystickView(this);
         ((FrameLayout)findViewById(R.id.controller_layout)).addView(jv, 500, 500);// view, width, height
         jv.setX(100f);
         jv.setY(screenHeight - 100f - 500);
-        jv.setJoystickMoveListener(new JoystickView.JoystickMoveListener() {
-            @Override
-            public void OnJoystickMove(JoystickView.JoystickMoveEvent event) {
-                /*switch (event.getDirection()) {
-                    case Forward:
-                        canvasView.moveUp(event.getDistance());
-                        break;
-                    case ForwardLeft:
-                        canvasView.moveUp(event.getDistance());
-                        canvasView.moveLeft(event.getDistance());
-                        break;
-                    case ForwardRight:
-                        canvasView.moveUp(event.getDistance());
-                        canvasView.moveRight(event.getDistance());
-                        break;
-                    case Back:
-                        canvasView.moveDown(event.getDistance());
-                        break;
-                    case BackLeft:
-                        canvasView.moveDown(event.getDistance());
-                        canvasView.moveLeft(event.getDistance());
-                        break;
-                    case BackRight:
-                        canvasView.moveDown(event.getDistance());
-                        canvasView.moveRight(event.getDistance());
-                        break;
-                    case Left:
-                        canvasView.moveLeft(event.getDistance());
-                        break;
-                    case Right:
-                        canvasView.moveRight(event.getDistance());
-                        break;
-                }*/
-                canvasView.moveSprite(event.getAngle_Radians(), event.getDistance());
-                canvasView.invalidate();
-            }
-        });
+        jv.setRecycleMoveEvents(true); // Listener doesn't keep events
+        jv.setCacheStaticLayer(true); // Playground redraws underneath on every move
+        jv.setPollPolicy(JoystickView.createAdaptivePollPolicy()); // Slow down whilst the thumb rests centred
+        if(LEFT_STICK_EXPO > 0f) {
+            jv.setJoystickMoveFilters(new JoystickFilterPipeline()
+                    .addFilter(new ResponseCurveFilter(ResponseCurve.expo(LEFT_STICK_EXPO))));
+        }
+        if(canvasView != null) {
+            jv.setJoystickMoveListener(new JoystickMoveListener() {
+                @Override
+                public void OnJoystickMove(JoystickMoveEvent event) {
+                    /*switch (event.getDirection()) {
+                        case Forward:
+                            canvasView.moveUp(event.getDistance());
+                            break;
+                        case ForwardLeft:
+                            canvasView.moveUp(event.getDistance());
+                            canvasView.moveLeft(event.getDistance());
+                            break;
+                        case ForwardRight:
+                            canvasView.moveUp(event.getDistance());
+                            canvasView.moveRight(event.getDistance());
+                            break;
+                        case Back:
+                            canvasView.moveDown(event.getDistance());
+                            break;
+                        case BackLeft:
+                            canvasView.moveDown(event.getDistance());
+                            canvasView.moveLeft(event.getDistance());
+                            break;
+                        case BackRight:
+                            canvasView.moveDown(event.getDistance());
+                            canvasView.moveRight(event.getDistance());
+                            break;
+                        case Left:
+                            canvasView.moveLeft(event.getDistance());
+                            break;
+                        case Right:
+                            canvasView.moveRight(event.getDistance());
+                            break;
+                    }*/
+                    canvasView.moveSprite(event.getAngle_Radians(), event.getDistance());
+                    canvasView.invalidate();
+                }
+            });
+        }
         // Bottom right joystick
         JoystickView jv_br = new JoystickView(this);
         ((FrameLayout)findViewById(R.id.controller_layout)).addView(jv_br, 500, 500);// view, width, height
         jv_br.setX(screenWidth - 100f - 500);
         jv_br.setY(screenHeight - 100f - 500);
-        jv_br.setJoystickMoveListener(new JoystickView.JoystickMoveListener() {
-            @Override
-            public void OnJoystickMove(JoystickView.JoystickMoveEvent event) {
-                canvasView.setAngle((float)(event.getAngle_Radians()-Math.toRadians(-90)));
-                canvasView.invalidate();
+        jv_br.setRecycleMoveEvents(true);
+        jv_br.setCacheStaticLayer(true);
+        jv_br.setPollPolicy(JoystickView.createAdaptivePollPolicy());
+        if(canvasView != null) {
+            jv_br.setJoystickMoveListener(new JoystickMoveListener() {
+                @Override
+                public void OnJoystickMove(JoystickMoveEvent event) {
+                    canvasView.setAngle((float)(event.getAngle_Radians()-Math.toRadians(-90)));
+                    canvasView.invalidate();
+                }
+            });
+        }
+        // Enlarge the sticks' touch regions (routed by the layout's control grid)
+        ControllerLayout controllerLayout = (ControllerLayout)findViewById(R.id.controller_layout);
+        controllerLayout.registerControl(jv, JOYSTICK_TOUCH_EXPAND);
+        controllerLayout.registerControl(jv_br, JOYSTICK_TOUCH_EXPAND);
+        if(surfaceView != null) {
+            // Render thread reads the latest state of both sticks itself
+            surfaceView.setJoysticks(jv.getState(), jv_br.getState());
+        }
+
+        // Performance overlay (on top of everything else)
+        if(PERFORMANCE_OVERLAY) {
+            performanceOverlay = new PerformanceOverlayView(this);
+            performanceOverlay.addJoystick("left", jv);
+            performanceOverlay.addJoystick("right", jv_br);
+            ((FrameLayout)findViewById(R.id.controller_layout)).addView(performanceOverlay, screenWidth, 300);// view, width, height
+            findViewById(R.id.dummy_button).setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    performanceOverlay.setVisibility(performanceOverlay.getVisibility() == View.VISIBLE ? View.GONE : View.VISIBLE);
+                }
+            });
+        }
+
+        // Drone link: streams both joysticks' latest state from its own thread
+        if(DRONE_LINK_ENABLED) {
+            droneLink = new ControlLinkSender(new InetSocketAddress(DRONE_HOST, DRONE_PORT));
+            droneLink.setStick(ControlFrame.STICK_LEFT, jv.getState());
+            droneLink.setStick(ControlFrame.STICK_RIGHT, jv_br.getState());
+        }
+
+        // Telemetry: received on its own thread, drawn by the canvas view
+        if(TELEMETRY_ENABLED && canvasView != null) {
+            telemetryHistory = new TelemetryHistory();
+            canvasView.setTelemetry(telemetryHistory);
+            if(TELEMETRY_LOOPBACK) {
+                telemetryGenerator = new TelemetryGenerator(screenWidth / 2f, 900f, 400f);
             }
-        });
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if(droneLink != null) {
+            try {
+                droneLink.start();
+            } catch(IOException e) {
+                Log.e(TAG, "Unable to open drone link", e);
+            }
+        }
+        if(telemetryHistory != null) {
+            try {
+                telemetryReceiver = new TelemetryReceiver(new InetSocketAddress(TELEMETRY_PORT), telemetryHistory);
+                telemetryReceiver.start();
+                if(telemetryGenerator != null) {
+                    telemetryGenerator.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), TELEMETRY_PORT),
+                            TelemetryGenerator.SEND_RATE_DEFAULT);
+                }
+            } catch(IOException e) {
+                Log.e(TAG, "Unable to open telemetry", e);
+            }
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if(droneLink != null) {
+            droneLink.stop();
+        }
+        if(telemetryGenerator != null) {
+            telemetryGenerator.stop();
+        }
+        if(telemetryReceiver != null) {
+            telemetryReceiver.close();
+            telemetryReceiver = null;
+        }
     }
 
     @Override
@@ -7,8 +7,15 @@ import android.graphics.Paint;
 import android.graphics.PointF;
 import android.view.View;
 
+import caffeinatedandroid.joystick.TrigTable;
+import caffeinatedandroid.link.TelemetryHistory;
+
 /**
  * A simple test playground, to test JoystickViews.
+ * <p>
+ * If given a drone's telemetry ({@link #setTelemetry(TelemetryHistory)}), the sprite is drawn at the
+ * drone's reported position and heading (with its recent trail, battery and link quality), rather
+ * than the locally integrated movement, redrawn on every display frame.
  * @author Christopher Bull
  */
 public class TestCanvasView extends View {
@@ -22,6 +29,15 @@ public class TestCanvasView extends View {
     Paint paint;
 
     private int stepAmount = 10;
+    private final TrigTable trig = TrigTable.DEFAULT;
+
+    // Telemetry (drawn without allocating: reused sample and trail buffer)
+    private static final int TRAIL_LENGTH = 64;
+    private static final float BAR_WIDTH = 200f;
+    private static final float BAR_HEIGHT = 12f;
+    private TelemetryHistory telemetry = null;
+    private final TelemetryHistory.Sample sample = new TelemetryHistory.Sample();
+    private final float[] trail = new float[TRAIL_LENGTH * 4];
 
     public TestCanvasView(Context context) {
         super(context);
@@ -50,8 +66,8 @@ public class TestCanvasView extends View {
     // Rotates by angle amount, not to the angle
     PointF rotate_point(float cx, float cy, float angle, PointF p)
     {
-        float s = (float) Math.sin(angle);
-        float c = (float) Math.cos(angle);
+        float s = trig.sin(angle);
+        float c = trig.cos(angle);
 
         // translate point back to origin:
         p.x -= cx;
@@ -67,6 +83,15 @@ public class TestCanvasView extends View {
         return p;
     }
 
+    /**
+     * Draws the sprite from a drone's telemetry, rather than the local movement methods.
+     * @param telemetry The drone's telemetry history (e.g. from a TelemetryReceiver), or null to stop
+     */
+    public void setTelemetry(TelemetryHistory telemetry) {
+        this.telemetry = telemetry;
+        invalidate();
+    }
+
     public void updateXY(float x, float y) {
         this.x = x;
         this.y = y;
@@ -81,8 +106,8 @@ public class TestCanvasView extends View {
         y += yMove;
         y2 += yMove;*/
 
-        float xMove = (float) Math.cos(angle+this.angle)*(distance*10); // arbitrary *10, due to simple canvas (not proper 2D engine
-        float yMove = (float) Math.sin(angle+this.angle)*(distance*10);
+        float xMove = trig.cos(angle+this.angle)*(distance*10); // arbitrary *10, due to simple canvas (not proper 2D engine
+        float yMove = trig.sin(angle+this.angle)*(distance*10);
         x += xMove;
         x2 += xMove;
         y += yMove;
@@ -124,9 +149,50 @@ public class TestCanvasView extends View {
         super.onDraw(canvas);
         //paint.setColor(Color.WHITE);
         //canvas.drawPaint(paint);
+        if(telemetry != null) {
+            drawTelemetry(canvas);
+        }
         paint.setColor(Color.GREEN);
         canvas.drawLine(x, y, x2, y2, paint);
         paint.setColor(Color.RED);
         canvas.drawCircle(x, y, radius, paint);
+        if(telemetry != null) {
+            postInvalidateOnAnimation(); // Follow the drone at the display's frame rate
+        }
+    }
+
+    private void drawTelemetry(Canvas canvas) {
+        if(!telemetry.readLatest(sample)) {
+            return;
+        }
+        // Sprite at the reported position, facing the reported heading (0 is up, clockwise)
+        x = sample.getX();
+        y = sample.getY();
+        x2 = x + trig.sin(sample.getHeading()) * radius * 1.5f;
+        y2 = y - trig.cos(sample.getHeading()) * radius * 1.5f;
+        // Battery and link quality bars
+        paint.setColor(Color.DKGRAY);
+        canvas.drawRect(20f, 20f, 20f + BAR_WIDTH, 20f + BAR_HEIGHT, paint);
+        canvas.drawRect(20f, 40f, 20f + BAR_WIDTH, 40f + BAR_HEIGHT, paint);
+        paint.setColor(sample.getBattery() > 20 ? Color.GREEN : Color.RED);
+        canvas.drawRect(20f, 20f, 20f + BAR_WIDTH * sample.getBattery() / 100f, 20f + BAR_HEIGHT, paint);
+        paint.setColor(Color.CYAN);
+        canvas.drawRect(20f, 40f, 20f + BAR_WIDTH * sample.getLinkQuality() / 100f, 40f + BAR_HEIGHT, paint);
+        // Recent trail, newest first (stopping at any sample already overwritten)
+        long newest = sample.getIndex();
+        float previous_x = x;
+        float previous_y = y;
+        int points = 0;
+        for(long i = newest - 1; i >= 0 && i > newest - TRAIL_LENGTH; i--) {
+            if(!telemetry.read(i, sample)) {
+                break;
+            }
+            trail[points++] = previous_x;
+            trail[points++] = previous_y;
+            trail[points++] = previous_x = sample.getX();
+            trail[points++] = previous_y = sample.getY();
+        }
+        paint.setColor(Color.YELLOW);
+        canvas.drawLines(trail, 0, points, paint);
     }
 }
@@ -0,0 +1,220 @@
+package caffeinatedandroid.dronedomination;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Process;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.concurrent.TimeUnit;
+
+import caffeinatedandroid.joystick.JoystickState;
+import caffeinatedandroid.joystick.TrigTable;
+
+/**
+ * A test playground, like {@link TestCanvasView}, but drawn by its own render thread onto a
+ * SurfaceView. The sprite is simulated with a fixed timestep (so its speed doesn't depend on the
+ * frame or touch event rate), and rendered interpolated between the last two simulation steps.
+ * <p>
+ * Input is read from the joysticks' latest state at each simulation step (see
+ * {@link #setJoysticks(JoystickState, JoystickState)}), rather than from listener callbacks, so there
+ * is no per-event work (or invalidation) on the UI thread.
+ * @author Christopher Bull
+ */
+public class TestSurfaceView extends SurfaceView implements SurfaceHolder.Callback, Runnable {
+
+    /** Simulation timestep: 120Hz */
+    private static final long STEP_NANOS = TimeUnit.SECONDS.toNanos(1) / 120;
+    private static final float STEP_SECONDS = STEP_NANOS / (float) TimeUnit.SECONDS.toNanos(1);
+    // Maximum time simulated per frame, so a stall doesn't cause a burst of catch-up steps
+    private static final long MAX_FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    /** Sprite speed at full joystick deflection, in pixels per second */
+    private static final float SPEED = 600f;
+    private static final float HALF_PI = (float) (Math.PI / 2);
+    private static final float TWO_PI = (float) (Math.PI * 2);
+    /** Same as the controller layout's background */
+    private static final int BACKGROUND_COLOR = 0xFF0099CC;
+
+    // Sprite
+    private final float radius = 100f;
+    private final Paint paint;
+    private final TrigTable trig = TrigTable.DEFAULT;
+
+    // Input (latest joystick states, read by the render thread)
+    private volatile JoystickState moveStick = null;
+    private volatile JoystickState turnStick = null;
+    private final JoystickState.Snapshot moveSnapshot = new JoystickState.Snapshot();
+    private final JoystickState.Snapshot turnSnapshot = new JoystickState.Snapshot();
+
+    // Simulation state (render thread only): current step, and previous step (for interpolation)
+    private float x = 0f;
+    private float y = 0f;
+    private float angle = 0f;
+    private float x_prev = 0f;
+    private float y_prev = 0f;
+    private float angle_prev = 0f;
+
+    // Render thread
+    private Thread renderThread = null;
+    private volatile boolean running = false;
+    private volatile int width = 0;
+    private volatile int height = 0;
+    private volatile boolean recenter = true;
+
+    //////////////////
+    // Constructors //
+    //////////////////
+
+    public TestSurfaceView(Context context) {
+        super(context);
+        paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setStrokeWidth(3f);
+        getHolder().addCallback(this);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Sets the joysticks to read input from. May be called from any thread.
+     * @param moveStick Joystick that moves the sprite (strafe, relative to its heading), or null
+     * @param turnStick Joystick that sets the sprite's heading, or null
+     */
+    public void setJoysticks(JoystickState moveStick, JoystickState turnStick) {
+        this.moveStick = moveStick;
+        this.turnStick = turnStick;
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        running = true;
+        renderThread = new Thread(this, "TestSurfaceView render");
+        renderThread.start();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // The surface must not be used after this returns, so wait for the render thread to finish
+        running = false;
+        if(renderThread != null) {
+            renderThread.interrupt();
+            boolean interrupted = false;
+            while(true) {
+                try {
+                    renderThread.join();
+                    break;
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            renderThread = null;
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The render loop: advances the simulation in fixed steps to catch up with real time, then
+     * draws the state interpolated between the last two steps. Posting the frame blocks until the
+     * display can take it, which paces the loop to the display's refresh rate.
+     */
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+        Surface surface = getHolder().getSurface();
+        long time_last = System.nanoTime();
+        long accumulator = 0;
+        while(running) {
+            long now = System.nanoTime();
+            accumulator += Math.min(now - time_last, MAX_FRAME_NANOS);
+            time_last = now;
+            while(accumulator >= STEP_NANOS) {
+                step();
+                accumulator -= STEP_NANOS;
+            }
+
+            Canvas canvas;
+            try {
+                canvas = surface.lockHardwareCanvas();
+            } catch(IllegalStateException e) {
+                return; // Surface released
+            }
+            try {
+                draw(canvas, accumulator / (float) STEP_NANOS);
+            } finally {
+                surface.unlockCanvasAndPost(canvas);
+            }
+        }
+    }
+
+    /**
+     * Advances the simulation by one timestep, from the joysticks' latest state.
+     */
+    private void step() {
+        if(recenter && width > 0) {
+            recenter = false;
+            x = width / 2f;
+            y = height / 2f;
+        }
+        x_prev = x;
+        y_prev = y;
+        angle_prev = angle;
+
+        // Heading: the turn stick's angle (held when released)
+        JoystickState turn = turnStick;
+        if(turn != null && turn.read(turnSnapshot).isTouching()
+                && (turnSnapshot.getTouchX() != turnSnapshot.getCenterX() || turnSnapshot.getTouchY() != turnSnapshot.getCenterY())) {
+            angle = trig.atan2(turnSnapshot.getTouchY() - turnSnapshot.getCenterY(),
+                    turnSnapshot.getTouchX() - turnSnapshot.getCenterX()) + HALF_PI;
+        }
+
+        // Movement: the move stick's offset, rotated by the heading
+        JoystickState move = moveStick;
+        if(move != null && move.read(moveSnapshot).isTouching() && moveSnapshot.getRadius() > 0) {
+            float dx = (moveSnapshot.getTouchX() - moveSnapshot.getCenterX()) / moveSnapshot.getRadius();
+            float dy = (moveSnapshot.getTouchY() - moveSnapshot.getCenterY()) / moveSnapshot.getRadius();
+            float s = trig.sin(angle);
+            float c = trig.cos(angle);
+            x += (dx * c - dy * s) * SPEED * STEP_SECONDS;
+            y += (dx * s + dy * c) * SPEED * STEP_SECONDS;
+        }
+    }
+
+    /**
+     * Draws the sprite, interpolated between the previous and current simulation steps.
+     * @param canvas The surface's canvas
+     * @param alpha Interpolation fraction (0 = previous step, 1 = current step)
+     */
+    private void draw(Canvas canvas, float alpha) {
+        float drawX = x_prev + (x - x_prev) * alpha;
+        float drawY = y_prev + (y - y_prev) * alpha;
+        // Interpolate the shortest way around
+        float delta = angle - angle_prev;
+        delta -= TWO_PI * (float) Math.floor((delta + Math.PI) / TWO_PI);
+        float drawAngle = angle_prev + delta * alpha;
+
+        float noseDistance = radius * 1.5f;
+        float noseX = drawX + trig.sin(drawAngle) * noseDistance;
+        float noseY = drawY - trig.cos(drawAngle) * noseDistance;
+
+        // The surface is behind the window, so draw the background the layout would have drawn
+        canvas.drawColor(BACKGROUND_COLOR);
+        paint.setColor(Color.GREEN);
+        canvas.drawLine(drawX, drawY, noseX, noseY, paint);
+        paint.setColor(Color.RED);
+        canvas.drawCircle(drawX, drawY, radius, paint);
+    }
+}
@@ -0,0 +1,326 @@
+package caffeinatedandroid.views;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import java.util.IdentityHashMap;
+
+import caffeinatedandroid.joystick.ControlGrid;
+import caffeinatedandroid.joystick.PointerRouting;
+
+/**
+ * Container for on-screen controller controls (joysticks, buttons, sliders), which routes
+ * multi-touch input to them itself: each pointer is bound (by pointer ID) to the control it went
+ * down on, and every MotionEvent is processed in a single pass over its pointers. So simultaneous
+ * two-thumb input updates all joysticks within the same input frame, without per-View dispatch or
+ * split MotionEvents.
+ * <p>
+ * Controls are registered with a touch region that may be larger than the control itself (see
+ * {@link #registerControl(View, float)}), so a touch just outside a joystick's circle or a small
+ * button still reaches it. The regions are held in a uniform-grid spatial index ({@link ControlGrid}),
+ * so finding the control under a new pointer takes constant time however many controls there are,
+ * rather than a walk over every child. JoystickView children are registered automatically (with no
+ * expansion). The index is rebuilt on the next touch after a layout pass, or after
+ * {@link #invalidateControlGrid()} (call it after moving controls with setX/setY, or hiding them).
+ * <p>
+ * Joysticks are sent their pointers directly; other controls are sent a single-pointer MotionEvent
+ * per pointer action, in their own coordinates. Pointers that don't go down on a control (including
+ * those going down on e.g. an unregistered button whilst a joystick is held) are dispatched to
+ * children as normal, in events holding just those pointers (see {@link PointerRouting}).
+ * @author Christopher Bull
+ */
+public class ControllerLayout extends FrameLayout {
+
+    // Control bound to each pointer ID (null if not bound)
+    private final View[] pointerTargets = new View[PointerRouting.MAX_POINTER_ID + 1];
+    // Registered controls, and how far their touch regions extend beyond their bounds
+    private final IdentityHashMap<View, Float> expansions = new IdentityHashMap<>();
+    // Spatial index of the registered controls' touch regions, and the control at each grid index
+    private final ControlGrid grid = new ControlGrid();
+    private View[] gridControls = new View[16];
+    private boolean gridDirty = true;
+    // Which pointers are routed to controls, and which are dispatched to children as normal
+    private final PointerRouting routing = new PointerRouting();
+    // Pointers of the events sent to children whilst some pointers are routed (created when first needed)
+    private MotionEvent.PointerProperties[] splitProperties;
+    private MotionEvent.PointerCoords[] splitCoords;
+
+    //////////////////
+    // Constructors //
+    //////////////////
+
+    public ControllerLayout(Context context) {
+        super(context);
+    }
+
+    public ControllerLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public ControllerLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Registers a child as a control, so pointers going down within its touch region are routed to
+     * it. Re-registering a control updates its touch region.
+     * @param control The control (a child of this layout)
+     * @param expand How far the control's touch region extends beyond each of its edges, in pixels
+     */
+    public void registerControl(View control, float expand) {
+        if(control.getParent() != this) {
+            throw new IllegalArgumentException("control must be a child of this layout");
+        }
+        expansions.put(control, expand);
+        if(control instanceof JoystickView) {
+            ((JoystickView) control).setTouchExpand(expand); // Take touches outside the circle too
+        }
+        gridDirty = true;
+    }
+
+    /**
+     * Stops routing pointers to a control (so touches on it are dispatched as normal).
+     * @param control The control
+     */
+    public void unregisterControl(View control) {
+        if(expansions.remove(control) != null) {
+            if(control instanceof JoystickView) {
+                ((JoystickView) control).setTouchExpand(0f);
+            }
+            gridDirty = true;
+        }
+    }
+
+    /**
+     * Rebuilds the control grid before the next pointer is bound; call after moving (e.g. setX/setY),
+     * resizing, or hiding registered controls outside of a layout pass.
+     */
+    public void invalidateControlGrid() {
+        gridDirty = true;
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        if(child instanceof JoystickView && !expansions.containsKey(child)) {
+            expansions.put(child, 0f);
+        }
+        gridDirty = true;
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        expansions.remove(child);
+        for(int i = 0; i < pointerTargets.length; i++) {
+            if(pointerTargets[i] == child) {
+                pointerTargets[i] = null;
+            }
+        }
+        gridDirty = true;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        gridDirty = true;
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        int actionIndex = event.getActionIndex();
+        int pointerId = event.getPointerId(actionIndex);
+        switch(action) {
+            case MotionEvent.ACTION_DOWN:
+                clearPointerTargets();
+                routing.clear();
+                // Fall through
+            case MotionEvent.ACTION_POINTER_DOWN:
+                routing.pointerDown(pointerId, bindPointer(event, actionIndex));
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if(routing.hasRoutedPointers()) {
+                    // One pass over all pointers
+                    for(int i = 0; i < event.getPointerCount(); i++) {
+                        routePointer(event, i, MotionEvent.ACTION_MOVE);
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+            case MotionEvent.ACTION_UP:
+                routePointer(event, actionIndex, MotionEvent.ACTION_UP);
+                pointerTargets[pointerId] = null;
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                for(int i = 0; i < event.getPointerCount(); i++) {
+                    routePointer(event, i, MotionEvent.ACTION_CANCEL);
+                }
+                clearPointerTargets();
+                break;
+        }
+
+        // Pointers that didn't go down on a control are dispatched to children as normal
+        boolean handled = true;
+        int defaultAction = routing.getDefaultAction(action, pointerId);
+        if(defaultAction != PointerRouting.ACTION_NONE) {
+            handled = dispatchDefault(event, defaultAction, pointerId) || routing.hasRoutedPointers();
+        }
+
+        if(action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            routing.clear();
+        } else if(action == MotionEvent.ACTION_POINTER_UP) {
+            routing.pointerUp(pointerId);
+        }
+        return handled;
+    }
+
+    /**
+     * Dispatches an event's default (not routed) pointers to children as normal. If some of its
+     * pointers are routed, the children are sent a copy of the event with just the default pointers
+     * (and their action, as if they were the only pointers), like the framework's split events.
+     * @param event The touch event
+     * @param defaultAction The action for the default pointers (see {@link PointerRouting#getDefaultAction(int, int)})
+     * @param pointerId ID of the action's pointer
+     * @return true if a child handled the event
+     */
+    private boolean dispatchDefault(MotionEvent event, int defaultAction, int pointerId) {
+        int pointers = routing.getDefaultPointers();
+        if(Integer.bitCount(pointers) == event.getPointerCount()) {
+            return super.dispatchTouchEvent(event); // Every pointer (so the action is the same too)
+        }
+        if(splitProperties == null) {
+            splitProperties = new MotionEvent.PointerProperties[PointerRouting.MAX_POINTER_ID + 1];
+            splitCoords = new MotionEvent.PointerCoords[PointerRouting.MAX_POINTER_ID + 1];
+            for(int i = 0; i < splitProperties.length; i++) {
+                splitProperties[i] = new MotionEvent.PointerProperties();
+                splitCoords[i] = new MotionEvent.PointerCoords();
+            }
+        }
+        int count = 0;
+        int splitIndex = 0;
+        for(int i = 0; i < event.getPointerCount(); i++) {
+            int id = event.getPointerId(i);
+            if((pointers & (1 << id)) != 0) {
+                if(id == pointerId) {
+                    splitIndex = count;
+                }
+                event.getPointerProperties(i, splitProperties[count]);
+                event.getPointerCoords(i, splitCoords[count]);
+                count++;
+            }
+        }
+        if(defaultAction == MotionEvent.ACTION_POINTER_DOWN || defaultAction == MotionEvent.ACTION_POINTER_UP) {
+            defaultAction |= splitIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT;
+        }
+        // (Without the batched historical samples; children see the latest position of each pointer)
+        MotionEvent split = MotionEvent.obtain(event.getDownTime(), event.getEventTime(), defaultAction,
+                count, splitProperties, splitCoords, event.getMetaState(), event.getButtonState(),
+                event.getXPrecision(), event.getYPrecision(), event.getDeviceId(), event.getEdgeFlags(),
+                event.getSource(), event.getFlags());
+        boolean handled = super.dispatchTouchEvent(split);
+        split.recycle();
+        return handled;
+    }
+
+    /**
+     * Binds a pointer to the top-most control under it, and sends it the pointer's down action.
+     * @param event The touch event
+     * @param pointerIndex Index of the pointer going down
+     * @return true if the pointer went down on a control
+     */
+    private boolean bindPointer(MotionEvent event, int pointerIndex) {
+        View target = findControlAt(event.getX(pointerIndex), event.getY(pointerIndex));
+        if(target == null) {
+            return false;
+        }
+        pointerTargets[event.getPointerId(pointerIndex)] = target;
+        routePointer(event, pointerIndex, MotionEvent.ACTION_DOWN);
+        return true;
+    }
+
+    /**
+     * Sends a pointer's action to its bound control (if any), in the control's coordinates.
+     */
+    private void routePointer(MotionEvent event, int pointerIndex, int pointerAction) {
+        View target = pointerTargets[event.getPointerId(pointerIndex)];
+        if(target == null) {
+            return;
+        }
+        if(target instanceof JoystickView) {
+            ((JoystickView) target).onPointerEvent(event, pointerIndex,
+                    pointerAction == MotionEvent.ACTION_CANCEL ? MotionEvent.ACTION_UP : pointerAction,
+                    -target.getX(), -target.getY());
+        } else {
+            // A single-pointer event (from the framework's pool), as the control would see on its own
+            MotionEvent single = MotionEvent.obtain(event.getDownTime(), event.getEventTime(), pointerAction,
+                    event.getX(pointerIndex) - target.getX(), event.getY(pointerIndex) - target.getY(),
+                    event.getMetaState());
+            target.dispatchTouchEvent(single);
+            single.recycle();
+        }
+    }
+
+    /**
+     * Finds the top-most visible control whose touch region contains a point.
+     * @param x X coordinate, in this layout's coordinates
+     * @param y Y coordinate, in this layout's coordinates
+     * @return the control, or null if there is none at the point
+     */
+    private View findControlAt(float x, float y) {
+        if(gridDirty) {
+            rebuildControlGrid();
+        }
+        int index = grid.find(x, y);
+        if(index < 0 || gridControls[index].getVisibility() != VISIBLE) {
+            return null;
+        }
+        return gridControls[index];
+    }
+
+    /**
+     * Rebuilds the control grid from the registered controls' current bounds, in z-order (children
+     * drawn later are on top).
+     */
+    private void rebuildControlGrid() {
+        grid.clear();
+        int count = 0;
+        for(int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            Float expand = expansions.get(child);
+            if(expand == null || child.getVisibility() != VISIBLE) {
+                continue;
+            }
+            grid.add(child.getX() - expand, child.getY() - expand,
+                    child.getX() + child.getWidth() + expand, child.getY() + child.getHeight() + expand);
+            if(count == gridControls.length) {
+                View[] grown = new View[count * 2];
+                System.arraycopy(gridControls, 0, grown, 0, count);
+                gridControls = grown;
+            }
+            gridControls[count++] = child;
+        }
+        for(int i = count; i < gridControls.length && gridControls[i] != null; i++) {
+            gridControls[i] = null; // Don't keep removed controls alive
+        }
+        if(getWidth() > 0 && getHeight() > 0) {
+            grid.build(getWidth(), getHeight());
+        } else {
+            grid.clear();
+        }
+        gridDirty = false;
+    }
+
+    private void clearPointerTargets() {
+        for(int i = 0; i < pointerTargets.length; i++) {
+            pointerTargets[i] = null;
+        }
+    }
+}
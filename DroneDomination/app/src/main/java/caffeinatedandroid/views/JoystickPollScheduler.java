@@ -0,0 +1,117 @@
+package caffeinatedandroid.views;
+
+import android.view.Choreographer;
+import android.view.Display;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared poll scheduler for all JoystickViews. Driven by Choreographer frame callbacks, so every poll
+ * tick is phase-aligned to the display's vsync and runs on the UI thread: there are no poll threads,
+ * no sleeping, and no Runnables posted per tick. Frame callbacks are only requested while at least
+ * one joystick is registered (i.e. being touched), and then only for the frame on which the earliest
+ * poll is due (a delayed frame callback): joysticks polling slowly don't wake the UI thread on every
+ * frame. Re-registering a joystick wakes the scheduler for the next frame.
+ * <p>
+ * Poll intervals are rounded to whole frames; e.g. {@link JoystickView#POLL_INTERVAL_FAST} (17ms)
+ * ticks on every frame of a 60Hz display, and every other frame of a 120Hz display.
+ * <p>
+ * UI thread only.
+ * @author Christopher Bull
+ */
+final class JoystickPollScheduler implements Choreographer.FrameCallback {
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    private static JoystickPollScheduler instance;
+
+    private final Choreographer choreographer;
+    private final ArrayList<JoystickView> views = new ArrayList<>(2);
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private boolean frameCallbackPosted = false;
+    private boolean frameCallbackDelayed = false;
+
+    private JoystickPollScheduler() {
+        choreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * Retrieves the shared scheduler. Must be called from the UI thread.
+     * @return the scheduler instance
+     */
+    static JoystickPollScheduler getInstance() {
+        if(instance == null) {
+            instance = new JoystickPollScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts polling a joystick; it will be polled on the next frame, and then at its poll interval.
+     * Also used to poll an already registered joystick early (e.g. when its poll interval shortens).
+     * @param view The joystick to poll
+     */
+    void register(JoystickView view) {
+        Display display = view.getDisplay();
+        if(display != null && display.getRefreshRate() > 0) {
+            frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / display.getRefreshRate());
+        }
+        if(!views.contains(view)) {
+            views.add(view);
+        }
+        view.resetPollFrame();
+        postFrameCallback(0);
+    }
+
+    /**
+     * Stops polling a joystick.
+     * @param view The joystick to stop polling
+     */
+    void unregister(JoystickView view) {
+        views.remove(view);
+        if(views.isEmpty() && frameCallbackPosted) {
+            frameCallbackPosted = false;
+            choreographer.removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        // Iterate backwards, so views may unregister from within their poll
+        for(int i = views.size() - 1; i >= 0; i--) {
+            views.get(i).onPollFrame(frameTimeNanos, frameIntervalNanos);
+        }
+        if(views.isEmpty()) {
+            return;
+        }
+        // Sleep until the frame the earliest poll is due on
+        long pollDueNanos = Long.MAX_VALUE;
+        for(int i = 0; i < views.size(); i++) {
+            pollDueNanos = Math.min(pollDueNanos, views.get(i).getPollDueNanos(frameIntervalNanos));
+        }
+        postFrameCallback(TimeUnit.NANOSECONDS.toMillis(pollDueNanos - System.nanoTime()));
+    }
+
+    /**
+     * Requests a frame callback, unless one is already requested for the same or an earlier frame.
+     * @param delayMillis Time to wait before the frame, in milliseconds (0 or less for the next frame).
+     *                    Rounded down, so the callback is never later than the frame it's due on.
+     */
+    private void postFrameCallback(long delayMillis) {
+        if(frameCallbackPosted) {
+            if(!frameCallbackDelayed || delayMillis > 0) {
+                return;
+            }
+            choreographer.removeFrameCallback(this); // Wake early
+        }
+        frameCallbackPosted = true;
+        frameCallbackDelayed = delayMillis > 0;
+        if(frameCallbackDelayed) {
+            choreographer.postFrameCallbackDelayed(this, delayMillis);
+        } else {
+            choreographer.postFrameCallback(this);
+        }
+    }
+}
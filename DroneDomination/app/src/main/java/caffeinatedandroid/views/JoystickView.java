@@ -1,27 +1,49 @@
 package caffeinatedandroid.views;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.SystemClock;
 import android.view.MotionEvent;
 import android.view.View;
 
+import caffeinatedandroid.joystick.AdaptivePollPolicy;
+import caffeinatedandroid.joystick.AsyncMoveDispatcher;
+import caffeinatedandroid.joystick.Direction;
+import caffeinatedandroid.joystick.HitRegionTable;
+import caffeinatedandroid.joystick.InputRecorder;
+import caffeinatedandroid.joystick.InputReplayer;
+import caffeinatedandroid.joystick.JoystickFilterPipeline;
+import caffeinatedandroid.joystick.JoystickGeometry;
+import caffeinatedandroid.joystick.JoystickKeyListener;
+import caffeinatedandroid.joystick.JoystickMetrics;
+import caffeinatedandroid.joystick.JoystickMoveEvent;
+import caffeinatedandroid.joystick.JoystickMoveListener;
+import caffeinatedandroid.joystick.JoystickRing;
+import caffeinatedandroid.joystick.JoystickSampleListener;
+import caffeinatedandroid.joystick.JoystickState;
+import caffeinatedandroid.joystick.TouchResampler;
+import caffeinatedandroid.joystick.TrigTable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Virtual Joystick. This bespoke joystick view is customisable, and is capable of reporting various
  * values. Default values for a joystick movement event are angle (in degress), and distance from
  * centre (in percentage).
  * @author Christopher Bull
  */
-public class JoystickView extends View implements Runnable {
+public class JoystickView extends View {
 
     // TODO make bool preferences settable in constructor and/or setters
-    // TODO make touchable canvas area larger than the radius of the joystick (so can touch just outside the circle and still register touch event)
-    // TODO preferences for joystick dead-zone (optionally adjust distance measure to exclude dead-zone)
     // TODO joystick that appears on touch (re-centering on each ACTION_DOWN) - perhaps an app feature, not a View feature.
-    // TODO add customisable tolerance value to stop small repetitive events (e.g. if touch coords don't move by x amount)
     // TODO optionally paint line (canvas.drawLine) between centre and touch point.
-    // TODO add separate listener with simple forward/backward/left/right
     // TODO optional flexible center (define center_x/y on each initial press) - fixed by default.
 
     public enum Type {
@@ -30,30 +52,35 @@ public class JoystickView extends View implements Runnable {
         WASD
     }
 
-    public enum Direction {
-        Forward,
-        ForwardRight,
-        Right,
-        BackRight,
-        Back,
-        BackLeft,
-        Left,
-        ForwardLeft,
-    }
-
     ////////////////
     // Properties //
     ////////////////
 
+    private static final int INVALID_POINTER_ID = -1;
+
     // Type
     private Type joystickType;
     private int joystickStickiness = 0;
 
+    // Digital types (DPad/WASD): hit regions, keys pressed, and key bounds for drawing (by key bit)
+    private final HitRegionTable hitRegions;
+    private int keys = 0;
+    private final RectF[] keyBounds = new RectF[4];
+    private static final String[] WASD_LABELS = {"W", "D", "S", "A"};
+
     // Style
     private Paint paintCircle;
     private Paint paintCircleBorder;
+    private Paint paintKeyPressed;
+    private Paint paintKeyLabel;
     private int paintCircleBorder_StrokeWidth = 10;
 
+    // Rendering (see setCacheStaticLayer)
+    private boolean cacheStaticLayer = false;
+    private Bitmap staticLayer = null;
+    private final Rect dirtyRect_last = new Rect();
+    private final Rect dirtyRect = new Rect();
+
     // Measurements
     private float center_x = 0f;
     private float center_y = 0f;
@@ -64,12 +91,27 @@ public class JoystickView extends View implements Runnable {
     private float radius_PreferentiallyAdjusted = 0f;
     private float joystickInnerX = 0;
     private float joystickInnerY = 0;
+    private final JoystickGeometry geometry = new JoystickGeometry();
 
     // State
     private boolean touching = false;
+    private int touchPointerId = INVALID_POINTER_ID;
 
     // Listener
     private JoystickMoveListener moveListener = null;
+    private JoystickKeyListener keyListener = null;
+    private JoystickSampleListener sampleListener = null;
+    private JoystickFilterPipeline moveFilters = null;
+
+    // Input journal
+    private InputRecorder inputRecorder = null;
+    private InputReplayer inputReplayer = null;
+    private long replayStartNanos = 0;
+    private boolean replaying = false;
+
+    // Instrumentation
+    private JoystickMetrics metrics = null;
+    private long touchNanos_pending = 0; // When the latest undelivered touch was handled
 
     // Preferences
     private boolean alwaysShowJoystickPos = true;
@@ -78,6 +120,8 @@ public class JoystickView extends View implements Runnable {
     //private boolean recenterJoystickWhenTouchExternal = true; // TODO
     private boolean recenterJoystickWhenNoTouch = true;
     private boolean polling = true;
+    private boolean recycleMoveEvents = false;
+    private float touchExpand = 0f;
 
     // Vars for polling
     /** Fast poll interval: 17 milliseconds (16.67ms == 60fps) */
@@ -87,13 +131,12 @@ public class JoystickView extends View implements Runnable {
     /** Slow poll interval: 100 milliseconds (100ms == 10fps) */
     public static long POLL_INTERVAL_SLOW = 100;
     private long PollInterval = POLL_INTERVAL_FAST;
-    private float touch_x_cached = 0f;
-    private float touch_y_cached = 0f;
-    private float center_x_cached = 0f;
-    private float center_y_cached = 0f;
-    private float radius_cached = 0f;
+    private AdaptivePollPolicy pollPolicy = null;
+    private final JoystickState state = new JoystickState();
+    private JoystickRing stateRing = null;
+    private final JoystickState.Snapshot stateSnapshot_Poll = new JoystickState.Snapshot();
     private JoystickMoveEvent moveEvent_cached = null;
-    private Thread tPoll = new Thread(this);
+    private long pollFrameTimeNanos_last = 0;
 
     //////////////////
     // Constructors //
@@ -119,7 +162,23 @@ public class JoystickView extends View implements Runnable {
         paintCircleBorder.setColor(Color.BLACK);
         paintCircleBorder.setStyle(Paint.Style.STROKE);
         paintCircleBorder.setStrokeWidth(paintCircleBorder_StrokeWidth);
-        //if(joystickType == Types.DPad){}
+        if(joystickType != Type.Joystick) {
+            hitRegions = new HitRegionTable();
+            for(int k = 0; k < keyBounds.length; k++) {
+                keyBounds[k] = new RectF();
+            }
+            paintKeyPressed = new Paint();
+            paintKeyPressed.setAntiAlias(true);
+            paintKeyPressed.setColor(Color.BLACK);
+            paintKeyPressed.setAlpha(100);
+            paintKeyPressed.setStyle(Paint.Style.FILL);
+            paintKeyLabel = new Paint();
+            paintKeyLabel.setAntiAlias(true);
+            paintKeyLabel.setColor(Color.BLACK);
+            paintKeyLabel.setTextAlign(Paint.Align.CENTER);
+        } else {
+            hitRegions = null;
+        }
     }
 
     public JoystickView(Context context, Type joystickType, int degreeOfStickiness) {
@@ -139,6 +198,112 @@ public class JoystickView extends View implements Runnable {
     public void setOverlapBorderBounds(boolean overlap) {
         overlapBorderBounds = overlap;
         radius_PreferentiallyAdjusted = overlap ? radius : radius_NoOverlapBorderBounds; // Cached shortcut (i.e. doesn't re-evaluate which radius to use on each TouchEvent)
+        geometry.setClampRadius(radius_PreferentiallyAdjusted);
+        recordMeasurements();
+    }
+
+    /**
+     * Sets how far outside the joystick circle a touch still takes the stick. Only useful where
+     * touches outside this View's bounds reach it (e.g. a {@link ControllerLayout} control, registered
+     * with an expanded touch region, which sets this to match).
+     * @param expand Distance beyond the radius, in pixels
+     */
+    public void setTouchExpand(float expand) {
+        touchExpand = expand;
+    }
+
+    /**
+     * Enables allocation-free event delivery: each poll delivers a single JoystickMoveEvent, reset in
+     * place when the stick has moved (without recycling, a new event is created per movement; either
+     * way, polls re-deliver the same event whilst the stick is held still). Listeners that keep a
+     * reference to an event must {@link JoystickMoveEvent#copy()} it.
+     * @param recycle true to recycle move events
+     */
+    public void setRecycleMoveEvents(boolean recycle) {
+        recycleMoveEvents = recycle;
+    }
+
+    /**
+     * Sets a fixed poll interval (the rate at which the moveListener is notified whilst touching), and
+     * stops any adaptive polling.
+     * @param interval Poll interval in milliseconds, e.g. {@link #POLL_INTERVAL_FAST}
+     */
+    public void setPollInterval(long interval) {
+        pollPolicy = null;
+        PollInterval = interval;
+        if(polling && touching) {
+            JoystickPollScheduler.getInstance().register(this); // Don't sleep out the old interval
+        }
+    }
+
+    /**
+     * Sets an adaptive poll interval, which follows the stick's velocity (see {@link AdaptivePollPolicy}):
+     * fast whilst it moves or is held deflected, slowing to a keep-alive rate whilst it's held still
+     * at the centre.
+     * @param policy The policy (e.g. {@link #createAdaptivePollPolicy()}), or null to return to the
+     *               fixed {@link #POLL_INTERVAL_FAST} interval
+     */
+    public void setPollPolicy(AdaptivePollPolicy policy) {
+        pollPolicy = policy;
+        if(policy != null) {
+            policy.reset();
+            PollInterval = policy.getInterval();
+        } else {
+            PollInterval = POLL_INTERVAL_FAST;
+        }
+        if(polling && touching) {
+            JoystickPollScheduler.getInstance().register(this); // Don't sleep out the old interval
+        }
+    }
+
+    /**
+     * Creates an adaptive poll policy which ramps between {@link #POLL_INTERVAL_FAST},
+     * {@link #POLL_INTERVAL_MEDIUM} and {@link #POLL_INTERVAL_SLOW}, with the default keep-alive.
+     * @return a new policy, for {@link #setPollPolicy(AdaptivePollPolicy)}
+     */
+    public static AdaptivePollPolicy createAdaptivePollPolicy() {
+        return new AdaptivePollPolicy(POLL_INTERVAL_FAST, POLL_INTERVAL_MEDIUM, POLL_INTERVAL_SLOW,
+                Math.max(POLL_INTERVAL_SLOW, AdaptivePollPolicy.INTERVAL_KEEP_ALIVE_DEFAULT));
+    }
+
+    /**
+     * Enables integer (fixed-point) joystick calculations, instead of floating-point. Avoids float/double
+     * round trips on the input path, for low-end devices.
+     * @param fixedPoint true to use fixed-point arithmetic
+     */
+    public void setFixedPointMath(boolean fixedPoint) {
+        geometry.setFixedPoint(fixedPoint);
+    }
+
+    /**
+     * Sets the lookup table used for (floating-point) angle calculations; {@link TrigTable#DEFAULT} by
+     * default.
+     * @param trigTable The table, or null to use the exact (Math.atan2) calculations
+     */
+    public void setTrigTable(TrigTable trigTable) {
+        geometry.setTrigTable(trigTable);
+    }
+
+    /**
+     * Enables the cached rendering mode: the static background and border are drawn once, into a
+     * bitmap (rebuilt only when the size changes), so each redraw blits the bitmap rather than
+     * re-rasterising the anti-aliased circles, e.g. whilst a video feed or map renders underneath the
+     * joystick.
+     * <p>
+     * Each movement also invalidates only the area covered by the old and new inner-stick (and line).
+     * This only limits the redraw in software rendering: with hardware acceleration (on by default,
+     * and this app's case), the framework ignores the dirty area and redraws the whole view.
+     * @param cache true to cache the static layer
+     */
+    public void setCacheStaticLayer(boolean cache) {
+        cacheStaticLayer = cache;
+        if(cache) {
+            buildStaticLayer(getWidth(), getHeight());
+        } else {
+            releaseStaticLayer();
+        }
+        calculateStickBounds(dirtyRect_last); // The stick as drawn by the full redraw
+        invalidate();
     }
 
     @Override
@@ -152,14 +317,156 @@ public class JoystickView extends View implements Runnable {
         radius_PreferentiallyAdjusted = overlapBorderBounds ? radius : radius_NoOverlapBorderBounds;
         joystickInnerX = center_x;
         joystickInnerY = center_y;
+        geometry.setMeasurements(center_x, center_y, radius, radius_PreferentiallyAdjusted);
+        recordMeasurements();
+        if(hitRegions != null && w > 0 && h > 0) {
+            buildHitRegions(w, h);
+        }
+        if(cacheStaticLayer) {
+            buildStaticLayer(w, h);
+        }
+        calculateStickBounds(dirtyRect_last); // The re-centred stick, as drawn by the layout redraw
     }
 
-    @Override
-    public void onDraw(Canvas canvas) {
+    /**
+     * (Re)draws the static background and border into the cached layer bitmap.
+     * @param w View width
+     * @param h View height
+     */
+    private void buildStaticLayer(int w, int h) {
+        releaseStaticLayer();
+        if(w <= 0 || h <= 0) {
+            return; // Not laid out yet; built on the first onSizeChanged
+        }
+        staticLayer = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        drawStaticLayer(new Canvas(staticLayer));
+    }
+
+    private void releaseStaticLayer() {
+        if(staticLayer != null) {
+            staticLayer.recycle();
+            staticLayer = null;
+        }
+    }
+
+    /**
+     * Precomputes the hit region table (and key bounds, for drawing) of a DPad or WASD joystick.
+     * @param w View width
+     * @param h View height
+     */
+    private void buildHitRegions(int w, int h) {
+        if(joystickType == Type.DPad) {
+            hitRegions.buildDPad(w, h, center_x, center_y, radius, HitRegionTable.DEAD_ZONE_DEFAULT, true);
+            // Cross arms, a third of the diameter wide
+            float arm = radius / 3;
+            keyBounds[0].set(center_x - arm, center_y - radius, center_x + arm, center_y - arm); // Up
+            keyBounds[1].set(center_x + arm, center_y - arm, center_x + radius, center_y + arm); // Right
+            keyBounds[2].set(center_x - arm, center_y + arm, center_x + arm, center_y + radius); // Down
+            keyBounds[3].set(center_x - radius, center_y - arm, center_x - arm, center_y + arm); // Left
+        } else {
+            hitRegions.buildWasd(w, h);
+            // Keyboard layout: 3 columns by 2 rows (matching the hit regions), with a small gap
+            float cellW = w / 3f;
+            float cellH = h / 2f;
+            float gap = paintCircleBorder_StrokeWidth;
+            keyBounds[0].set(cellW + gap, gap, cellW * 2 - gap, cellH - gap); // W
+            keyBounds[1].set(cellW * 2 + gap, cellH + gap, w - gap, h - gap); // D
+            keyBounds[2].set(cellW + gap, cellH + gap, cellW * 2 - gap, h - gap); // S
+            keyBounds[3].set(gap, cellH + gap, cellW - gap, h - gap); // A
+            paintKeyLabel.setTextSize(cellH / 2);
+        }
+    }
+
+    private void drawStaticLayer(Canvas canvas) {
+        if(joystickType == Type.WASD) {
+            for(int k = 0; k < keyBounds.length; k++) {
+                RectF key = keyBounds[k];
+                canvas.drawRect(key.left, key.top, key.right, key.bottom, paintCircle);
+                canvas.drawRect(key.left, key.top, key.right, key.bottom, paintCircleBorder);
+                canvas.drawText(WASD_LABELS[k], (key.left + key.right) / 2,
+                        (key.top + key.bottom) / 2 + paintKeyLabel.getTextSize() / 3, paintKeyLabel);
+            }
+            return;
+        }
         // Background
         canvas.drawCircle(center_x, center_y, radius, paintCircle);
         // Border
         canvas.drawCircle(center_x, center_y, radius_WithoutBorderWidth, paintCircleBorder);
+        if(joystickType == Type.DPad) {
+            for(RectF key : keyBounds) {
+                canvas.drawRect(key.left, key.top, key.right, key.bottom, paintCircleBorder);
+            }
+        }
+    }
+
+    /**
+     * Calculates the area covered by the inner-stick and its line (empty if not shown).
+     * @param bounds Rect to store the area in
+     */
+    private void calculateStickBounds(Rect bounds) {
+        if(!alwaysShowJoystickPos && !touching) {
+            bounds.setEmpty();
+            return;
+        }
+        // Inner-stick circle, including its stroke (plus a pixel for anti-aliasing)
+        float extent = radius_InnerJoystick + paintCircleBorder_StrokeWidth / 2f + 1;
+        float left = joystickInnerX - extent;
+        float top = joystickInnerY - extent;
+        float right = joystickInnerX + extent;
+        float bottom = joystickInnerY + extent;
+        if(drawTouchLine) {
+            // The line runs from the centre to the inner-stick, so only the centre can extend the area
+            float lineExtent = paintCircleBorder_StrokeWidth / 2f + 1;
+            left = Math.min(left, center_x - lineExtent);
+            top = Math.min(top, center_y - lineExtent);
+            right = Math.max(right, center_x + lineExtent);
+            bottom = Math.max(bottom, center_y + lineExtent);
+        }
+        bounds.set((int) Math.floor(left), (int) Math.floor(top), (int) Math.ceil(right), (int) Math.ceil(bottom));
+    }
+
+    /**
+     * Redraws after a movement: in the cached rendering mode, only the union of the previous and
+     * current inner-stick areas (software rendering only; see {@link #setCacheStaticLayer(boolean)});
+     * otherwise, the whole view.
+     */
+    private void invalidateStick() {
+        if(!cacheStaticLayer) {
+            invalidate();
+            return;
+        }
+        calculateStickBounds(dirtyRect);
+        if(dirtyRect_last.isEmpty()) {
+            invalidate(dirtyRect);
+        } else if(dirtyRect.isEmpty()) {
+            invalidate(dirtyRect_last);
+        } else {
+            dirtyRect_last.union(dirtyRect);
+            invalidate(dirtyRect_last);
+        }
+        dirtyRect_last.set(dirtyRect);
+    }
+
+    @Override
+    public void onDraw(Canvas canvas) {
+        if(cacheStaticLayer && staticLayer == null) {
+            buildStaticLayer(getWidth(), getHeight()); // Released when detached
+        }
+        if(staticLayer != null) {
+            canvas.drawBitmap(staticLayer, 0f, 0f, null);
+        } else {
+            drawStaticLayer(canvas);
+        }
+        // Digital types: highlight the pressed keys
+        if(hitRegions != null) {
+            for(int k = 0; k < keyBounds.length; k++) {
+                if((keys & (1 << k)) != 0) {
+                    RectF key = keyBounds[k];
+                    canvas.drawRect(key.left, key.top, key.right, key.bottom, paintKeyPressed);
+                }
+            }
+            return;
+        }
         // Joystick
         if(alwaysShowJoystickPos || touching) {
             // Joystick - circle
@@ -173,58 +480,144 @@ public class JoystickView extends View implements Runnable {
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        float touch_x = event.getX();
-        float touch_y = event.getY();
+        // Follow a single pointer: the first to go down on this joystick (others are ignored)
+        int pointerIndex;
+        switch(event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                if(touchPointerId == INVALID_POINTER_ID) {
+                    pointerIndex = event.getActionIndex();
+                    touchPointerId = event.getPointerId(pointerIndex);
+                    onPointerEvent(event, pointerIndex, MotionEvent.ACTION_DOWN, 0f, 0f);
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                pointerIndex = event.findPointerIndex(touchPointerId);
+                if(pointerIndex >= 0) {
+                    onPointerEvent(event, pointerIndex, MotionEvent.ACTION_MOVE, 0f, 0f);
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                if(event.getPointerId(event.getActionIndex()) == touchPointerId) {
+                    onPointerEvent(event, event.getActionIndex(), MotionEvent.ACTION_UP, 0f, 0f);
+                    touchPointerId = INVALID_POINTER_ID;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                pointerIndex = event.findPointerIndex(touchPointerId);
+                if(pointerIndex >= 0) {
+                    onPointerEvent(event, pointerIndex, MotionEvent.ACTION_UP, 0f, 0f);
+                }
+                touchPointerId = INVALID_POINTER_ID;
+                break;
+        }
+        return true;
+    }
 
-        float distFromCenter = (float) calculateDistance(touch_x, touch_y, center_x, center_y);
+    /**
+     * Processes a single pointer of a touch event. Used by {@link #onTouchEvent(MotionEvent)}, and by
+     * containers that route pointers to joysticks directly (see {@link ControllerLayout}).
+     * @param event The touch event
+     * @param pointerIndex Index of the pointer within the event
+     * @param action The pointer's action: MotionEvent.ACTION_DOWN, ACTION_MOVE or ACTION_UP
+     * @param offset_x Offset from the event's X coordinates to this View's coordinates
+     * @param offset_y Offset from the event's Y coordinates to this View's coordinates
+     */
+    void onPointerEvent(MotionEvent event, int pointerIndex, int action, float offset_x, float offset_y) {
+        if(metrics != null) {
+            metrics.increment(JoystickMetrics.COUNT_TOUCH_EVENTS);
+            metrics.recordLatency(JoystickMetrics.STAGE_INPUT,
+                    TimeUnit.MILLISECONDS.toNanos(SystemClock.uptimeMillis() - event.getEventTime()));
+        }
+
+        // High-fidelity input: report the batched (historical) samples preceding this event
+        if((sampleListener != null || inputRecorder != null) && touching && action == MotionEvent.ACTION_MOVE) {
+            for(int h = 0; h < event.getHistorySize(); h++) {
+                onHistoricalSample(event.getHistoricalX(pointerIndex, h) + offset_x,
+                        event.getHistoricalY(pointerIndex, h) + offset_y, event.getHistoricalEventTime(h));
+            }
+        }
+
+        onTouch(action, event.getX(pointerIndex) + offset_x, event.getY(pointerIndex) + offset_y, event.getEventTime());
+    }
 
-        // Set touching state (for drawing) and manage the polling thread
-        if(distFromCenter <= radius && (event.getAction() == MotionEvent.ACTION_DOWN
+    /**
+     * Processes a batched (historical) touch sample, preceding a touch move.
+     * @param touch_x Touch point X coordinate, in this View's coordinates
+     * @param touch_y Touch point Y coordinate, in this View's coordinates
+     * @param eventTime Time of the sample, in milliseconds
+     */
+    private void onHistoricalSample(float touch_x, float touch_y, long eventTime) {
+        if(inputRecorder != null) {
+            inputRecorder.recordSample(touch_x, touch_y, eventTime);
+        }
+        if(sampleListener != null) {
+            geometry.update(touch_x, touch_y);
+            sampleListener.OnJoystickSample(geometry.getStickX(), geometry.getStickY(), eventTime);
+        }
+    }
+
+    /**
+     * Processes a touch of this joystick (from a touch event, or a replayed journal).
+     * @param action MotionEvent.ACTION_DOWN, ACTION_MOVE or ACTION_UP
+     * @param touch_x Touch point X coordinate, in this View's coordinates
+     * @param touch_y Touch point Y coordinate, in this View's coordinates
+     * @param eventTime Time of the touch, in milliseconds
+     */
+    private void onTouch(int action, float touch_x, float touch_y, long eventTime) {
+        if(inputRecorder != null) {
+            inputRecorder.recordTouch(action, touch_x, touch_y, eventTime);
+        }
+
+        // Calculate inner-joystick coordinates, clamped to the border circle (minus any expected overlap)
+        float distFromCenter = geometry.update(touch_x, touch_y);
+        joystickInnerX = geometry.getStickX();
+        joystickInnerY = geometry.getStickY();
+
+        // Set touching state (for drawing) and manage polling
+        if((distFromCenter <= radius + touchExpand || joystickType == Type.WASD) && (action == MotionEvent.ACTION_DOWN
                 // OR, A touch move event has returned to inside the circle
-                || (!touching && event.getAction() == MotionEvent.ACTION_MOVE))) {
+                || (!touching && action == MotionEvent.ACTION_MOVE))) {
             // Touch action occurred within the joystick circle (i.e. not just in the containing rectangle).
+            // WASD keys fill the rectangle, so any touch counts.
             setTouching(true);
-        } else if(event.getAction() == MotionEvent.ACTION_UP) {
+        } else if(action == MotionEvent.ACTION_UP) {
             setTouching(false); // Remove inner-joystick when no longer being touched
         }
 
-        // Calculating if touch point is within the border circle (minus any expected overlap)
-        if(distFromCenter <= radius_NoOverlapBorderBounds) {
-            // Update inner-joystick coordinates
-            joystickInnerX = touch_x;
-            joystickInnerY = touch_y;
-        } else { // Touch point is at circle's border (or beyond)
-            //if(alwaysShowJoystickPos) {
-                // Calculate point on circle border nearest given touch point
-                // http://stackoverflow.com/a/300894
-                double vX = touch_x - center_x;
-                double vY = touch_y - center_y;
-                double magV = Math.sqrt(vX * vX + vY * vY);
-                joystickInnerX = (float) (center_x + vX / magV * radius_PreferentiallyAdjusted);
-                joystickInnerY = (float) (center_y + vY / magV * radius_PreferentiallyAdjusted);
-            //} else {
-            //if(!alwaysShowJoystickPos) {
-            //    setTouching(false);
-            //}
-        }
-
-        // Report now, or wait for reporting poll
-        if(polling) { // Let runnable lazily calculate and report at the poll interval/rate
-            touch_x_cached = joystickInnerX;
-            touch_y_cached = joystickInnerY;
-            center_x_cached = center_x;
-            center_y_cached = center_y;
-            radius_cached = radius;
-        } else if(touching && moveListener != null) { // Report event straight away.
-            moveListener.OnJoystickMove(new JoystickMoveEvent(
-                    // Raw X/Y
-                    joystickInnerX, joystickInnerY, center_x, center_y,
-                    // Distance
-                    calculateDistance_AsDecimalFraction(joystickInnerX, joystickInnerY, center_x, center_y, radius),
-                    // Angle
-                    calculateAngle_InDegrees(joystickInnerX, joystickInnerY, center_x, center_y)));
+        // Digital types: classify the touch
+        if(hitRegions != null) {
+            updateKeys(touching ? hitRegions.classify(touch_x, touch_y) : 0, eventTime);
+        }
+
+        if(metrics != null) {
+            if(touchNanos_pending != 0) {
+                metrics.increment(JoystickMetrics.COUNT_COALESCED); // Previous touch never delivered
+            }
+            touchNanos_pending = touching && moveListener != null ? System.nanoTime() : 0;
+        }
+
+        if(sampleListener != null && touching) {
+            sampleListener.OnJoystickSample(joystickInnerX, joystickInnerY, eventTime);
+        }
+
+        // Publish state (for the poller, and any other readers)
+        state.publish(joystickInnerX, joystickInnerY, center_x, center_y, radius, radius_PreferentiallyAdjusted, touching, eventTime);
+        if(stateRing != null) {
+            stateRing.publish(joystickInnerX, joystickInnerY, center_x, center_y, radius, radius_PreferentiallyAdjusted, touching, eventTime);
+        }
+
+        // Adaptive polling: poll on the next frame if the stick moves whilst polling slowly
+        if(pollPolicy != null && polling && touching && radius > 0
+                && pollPolicy.onTouch((joystickInnerX - center_x) / radius, (joystickInnerY - center_y) / radius,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime()))) {
+            PollInterval = pollPolicy.getInterval();
+            JoystickPollScheduler.getInstance().register(this); // Wakes the scheduler for the next frame
         }
 
+        // Move events are reported by the next due poll (see onPollFrame)
+
         // Re-center joysticks after processing the rest of Touch Event.
         // JoystickMoveEvents will have previous X/Y coords, but will be centered on next draw call.
         if(!touching && recenterJoystickWhenNoTouch) {
@@ -233,159 +626,342 @@ public class JoystickView extends View implements Runnable {
         }
 
         // Redraw
+        if(hitRegions == null) {
+            invalidateStick();
+        }
+    }
+
+    /**
+     * Updates the keys pressed (DPad/WASD), notifying the keyListener and redrawing on a change.
+     * @param keys The keys now pressed
+     * @param eventTime Time of the touch, in milliseconds
+     */
+    private void updateKeys(int keys, long eventTime) {
+        int changed = keys ^ this.keys;
+        if(changed == 0) {
+            return;
+        }
+        this.keys = keys;
+        if(keyListener != null) {
+            keyListener.OnJoystickKeys(keys, changed, eventTime);
+        }
         invalidate();
-        return true;
     }
 
     /**
-     * Caches the touching/not-touching state of the Joystick.
-     * Optionally (with 'recenterJoystickWhenNoTouch'), re-centers the inner-joystick to the center.
+     * Caches the touching/not-touching state of the Joystick, and starts/stops polling.
      * @param touching Whether the joystick is currently being touched.
      */
     private void setTouching(boolean touching) {
         this.touching = touching;
-        if(touching) {
-            // Kill any existing threads
-            if(tPoll != null && tPoll.isAlive()) {
-                tPoll.interrupt();
-            }
-            // Start new thread
-            tPoll = new Thread(this);
-            tPoll.start();
+        if(touching && moveFilters != null) {
+            moveFilters.reset();
+        }
+        if(touching && pollPolicy != null) {
+            pollPolicy.reset();
+            PollInterval = pollPolicy.getInterval();
+        }
+        if(polling && touching) {
+            JoystickPollScheduler.getInstance().register(this); // (Re)starts polling from the next frame
         } else {
-            tPoll.interrupt(); // quit thread
+            JoystickPollScheduler.getInstance().unregister(this);
         }
     }
 
     @Override
-    public void run() {
-        while(!Thread.interrupted()) {
-            if (moveListener != null) {
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        // Don't re-calculate MoveEvent if no moving has occurred.
-                        if(isCachedMoveEventCurrent()) {
-                            moveListener.OnJoystickMove(moveEvent_cached);
-                        } else {
-                            moveListener.OnJoystickMove(moveEvent_cached = new JoystickMoveEvent(
-                                    // Raw X/Y
-                                    touch_x_cached, touch_y_cached, center_x_cached, center_y_cached,
-                                    // Distance
-                                    calculateDistance_AsDecimalFraction(
-                                            touch_x_cached,
-                                            touch_y_cached,
-                                            center_x_cached,
-                                            center_y_cached,
-                                            radius_cached),
-                                    // Angle
-                                    calculateAngle_InDegrees(
-                                            touch_x_cached,
-                                            touch_y_cached,
-                                            center_x_cached,
-                                            center_y_cached)));
-                        }
-                    }
-                });
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        JoystickPollScheduler.getInstance().unregister(this);
+        releaseStaticLayer();
+        stopReplay();
+    }
+
+    /**
+     * Forces the next poll frame to report (see {@link JoystickPollScheduler#register(JoystickView)}).
+     */
+    void resetPollFrame() {
+        pollFrameTimeNanos_last = 0;
+    }
+
+    /**
+     * Retrieves when the next poll is due (to the nearest frame), so the {@link JoystickPollScheduler}
+     * may sleep until then.
+     * @param frameIntervalNanos The display's frame interval
+     * @return the earliest frame time the next poll may report on, in {@link System#nanoTime()} time
+     *         (0 if due on the next frame)
+     */
+    long getPollDueNanos(long frameIntervalNanos) {
+        if(pollFrameTimeNanos_last == 0) {
+            return 0;
+        }
+        return pollFrameTimeNanos_last + TimeUnit.MILLISECONDS.toNanos(PollInterval) - frameIntervalNanos / 2;
+    }
+
+    /**
+     * Called by the {@link JoystickPollScheduler} on the display frames a poll may be due on, whilst
+     * touching. Reports the
+     * joystick's position if the poll interval has elapsed (to the nearest frame).
+     * @param frameTimeNanos The frame's vsync time
+     * @param frameIntervalNanos The display's frame interval
+     */
+    void onPollFrame(long frameTimeNanos, long frameIntervalNanos) {
+        if(frameTimeNanos < getPollDueNanos(frameIntervalNanos)) {
+            return; // Not due until a later frame
+        }
+        pollFrameTimeNanos_last = frameTimeNanos;
+        if(metrics != null) {
+            metrics.increment(JoystickMetrics.COUNT_POLLS);
+        }
+        if(replaying || (moveListener == null && pollPolicy == null)) {
+            return; // Nothing to report or adapt (a replay delivers its recorded events)
+        }
+        // Lazily calculate and report the latest state
+        state.read(stateSnapshot_Poll);
+        if(pollPolicy != null && stateSnapshot_Poll.getRadius() > 0) {
+            PollInterval = pollPolicy.onPoll(
+                    (stateSnapshot_Poll.getTouchX() - stateSnapshot_Poll.getCenterX()) / stateSnapshot_Poll.getRadius(),
+                    (stateSnapshot_Poll.getTouchY() - stateSnapshot_Poll.getCenterY()) / stateSnapshot_Poll.getRadius(),
+                    TimeUnit.NANOSECONDS.toMillis(frameTimeNanos));
+        }
+        if(moveListener != null) {
+            // Don't re-calculate MoveEvent if no moving has occurred.
+            if(!isCachedMoveEventCurrent()) {
+                moveEvent_cached = geometry.fillMoveEvent(
+                        recycleMoveEvents ? obtainMoveEvent() : new JoystickMoveEvent(),
+                        stateSnapshot_Poll);
             }
-            //  Sleep for Poll Interval
-            try {
-                Thread.sleep(PollInterval);
-            } catch(InterruptedException e) {
-                break;
+            // Stamped with the poll's time (frame times share the uptime time base), so time-based
+            // filters see time pass whilst the stick is held still
+            deliverMoveEvent(moveEvent_cached.setDeliveryTime(TimeUnit.NANOSECONDS.toMillis(frameTimeNanos)));
+        }
+    }
+
+    /**
+     * Passes a move event through the filter pipeline (if any), and on to the listener.
+     * @param event The move event
+     */
+    private void deliverMoveEvent(JoystickMoveEvent event) {
+        if(moveFilters != null) {
+            event = moveFilters.process(event);
+            if(event == null) {
+                if(metrics != null) {
+                    metrics.increment(JoystickMetrics.COUNT_DROPPED);
+                    touchNanos_pending = 0;
+                }
+                return; // Dropped
             }
         }
+        if(inputRecorder != null) {
+            inputRecorder.recordMove(event);
+        }
+        if(metrics == null) {
+            moveListener.OnJoystickMove(event);
+            return;
+        }
+        long start = System.nanoTime();
+        if(touchNanos_pending != 0) {
+            metrics.recordLatency(JoystickMetrics.STAGE_DELIVERY, start - touchNanos_pending);
+            touchNanos_pending = 0;
+        }
+        moveListener.OnJoystickMove(event);
+        metrics.recordLatency(JoystickMetrics.STAGE_LISTENER, System.nanoTime() - start);
+        metrics.increment(JoystickMetrics.COUNT_DELIVERED);
+    }
+
+    /**
+     * Retrieves the recycled move event (see {@link #setRecycleMoveEvents(boolean)}).
+     * Only call from the UI thread.
+     * @return the recycled event instance
+     */
+    private JoystickMoveEvent obtainMoveEvent() {
+        if(moveEvent_cached == null) {
+            moveEvent_cached = new JoystickMoveEvent();
+        }
+        return moveEvent_cached;
     }
 
     private boolean isCachedMoveEventCurrent() {
         return moveEvent_cached != null
-                && moveEvent_cached.touchX == touch_x_cached
-                && moveEvent_cached.touchY == touch_y_cached;
+                && moveEvent_cached.getTouchX() == stateSnapshot_Poll.getTouchX()
+                && moveEvent_cached.getTouchY() == stateSnapshot_Poll.getTouchY();
     }
 
-    //////////////////////
-    // Calculate Output //
-    //////////////////////
-
-    // Counter-clockwise angle
-    // Numeric value between -π and π
-    // Measured in radians
-    private double calculateAngle_InRads(float touch_x, float touch_y, float center_x, float center_y) {
-        return Math.atan2(touch_y - center_y, touch_x - center_x);
-    }
+    ///////////////////
+    // Input Journal //
+    ///////////////////
 
     /**
-     * Calculate angle of touch point to center of joystick, in degrees (0 at top of circle)
-     * @param touch_x Touch point X coordinate
-     * @param touch_y Touch point Y coordinate
-     * @param center_x Centre point X coordinate
-     * @param center_y Centre point Y coordinate
-     * @return angle in degrees
+     * Records this joystick's input to a journal: its measurements, every raw touch sample, and every
+     * move event delivered to the moveListener (see {@link InputRecorder}). Recording is cheap enough
+     * to leave on, e.g. to capture field reports. Closing the recorder is left to the caller.
+     * @param recorder The journal recorder, or null to stop recording
      */
-    private float calculateAngle_InDegrees(float touch_x, float touch_y, float center_x, float center_y) {
-        float angle = (float) Math.toDegrees(Math.atan2(-(center_x - touch_x), center_y - touch_y));
-        if(angle < 0) {
-            angle += 360;
+    public void setInputRecorder(InputRecorder recorder) {
+        inputRecorder = recorder;
+        recordMeasurements();
+    }
+
+    private void recordMeasurements() {
+        if(inputRecorder != null) {
+            inputRecorder.recordMeasurements(center_x, center_y, radius, radius_PreferentiallyAdjusted, SystemClock.uptimeMillis());
         }
-        return angle;
     }
 
     /**
-     * Calculates the distance between the touch point and the center of the Joystick.
-     * @param touch_x Touch point X coordinate
-     * @param touch_y Touch point Y coordinate
-     * @param center_x Centre point X coordinate
-     * @param center_y Centre point Y coordinate
-     * @return distance as an absolute value
+     * Replays a journal through this joystick, in place of touch input: recorded measurements and
+     * touches drive the joystick (geometry, state and drawing), and the recorded move events are
+     * delivered to the moveListener exactly as they were recorded (after filtering, so they aren't
+     * filtered again). Polls don't deliver whilst replaying, so a replay reproduces the recorded
+     * session's events, whatever its pace. Only call from the UI thread.
+     * @param replayer The journal to replay (from its current position)
+     * @param realTime true to replay at the pace it was recorded (one batch per animation frame),
+     *                 false to replay it all immediately
      */
-    private double calculateDistance(float touch_x, float touch_y, float center_x, float center_y) {
-        return Math.hypot(center_x - touch_x, center_y - touch_y);
+    public void replay(InputReplayer replayer, boolean realTime) {
+        stopReplay();
+        replaying = true;
+        if(!realTime) {
+            try {
+                replayer.replay(replayTarget, false);
+            } finally {
+                replaying = false;
+            }
+            return;
+        }
+        inputReplayer = replayer;
+        replayStartNanos = System.nanoTime();
+        postOnAnimation(replayFrame);
     }
 
     /**
-     * Calculates the distance between the touch point and the center of the Joystick. Returns value
-     * as a decimal fraction (i.e. between 0 and 1).
-     * @param touch_x Touch point X coordinate
-     * @param touch_y Touch point Y coordinate
-     * @param center_x Centre point X coordinate
-     * @param center_y Centre point Y coordinate
-     * @param radius The radius of the joystick
-     * @return the distance as a fraction
+     * Stops a real-time replay (see {@link #replay(InputReplayer, boolean)}).
      */
-    private float calculateDistance_AsDecimalFraction(float touch_x, float touch_y, float center_x, float center_y, float radius) {
-        double distance = calculateDistance(touch_x, touch_y, center_x, center_y);
-        return Math.min((float)distance / radius, 1f); // Max return value: 1.0
+    public void stopReplay() {
+        inputReplayer = null;
+        replaying = false;
+        removeCallbacks(replayFrame);
     }
 
+    private final Runnable replayFrame = new Runnable() {
+        @Override
+        public void run() {
+            if(inputReplayer == null) {
+                return;
+            }
+            inputReplayer.replayUntil(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayStartNanos), replayTarget);
+            if(inputReplayer.isFinished()) {
+                inputReplayer = null;
+                replaying = false;
+            } else {
+                postOnAnimation(this);
+            }
+        }
+    };
+
+    private final InputReplayer.Target replayTarget = new InputReplayer.Target() {
+        @Override
+        public void OnReplayMeasurements(float cx, float cy, float r, float radius_Clamp, long eventTime) {
+            center_x = cx;
+            center_y = cy;
+            radius = r;
+            radius_PreferentiallyAdjusted = radius_Clamp;
+            geometry.setMeasurements(cx, cy, r, radius_Clamp);
+        }
+
+        @Override
+        public void OnReplayTouch(int action, float touch_x, float touch_y, long eventTime) {
+            onTouch(action, touch_x, touch_y, eventTime);
+        }
+
+        @Override
+        public void OnReplaySample(float touch_x, float touch_y, long eventTime) {
+            onHistoricalSample(touch_x, touch_y, eventTime);
+        }
+
+        @Override
+        public void OnReplayMove(JoystickMoveEvent event) {
+            if(inputRecorder != null) {
+                inputRecorder.recordMove(event);
+            }
+            if(moveListener != null) {
+                moveListener.OnJoystickMove(event);
+            }
+        }
+    };
+
+    //////////////////////
+    // Calculate Output //
+    //////////////////////
+
     /**
      * Calculates a simplified enum value for the Joystick's direction based on an angle input
      * @param angle The 360 degree angle of the joystick (0 at the top/front)
      * @return A simplified enum description of the Joystick's angle.
      */
     public static Direction calculateDirection(float angle) {
-        if(angle >= 337.5 || angle <= 22.5) {
-            return Direction.Forward;
-        } else if(angle <= 67.5) {
-            return Direction.ForwardRight;
-        } else if(angle <= 112.5) {
-            return Direction.Right;
-        } else if(angle <= 157.5) {
-            return Direction.BackRight;
-        } else if(angle <= 202.5) {
-            return Direction.Back;
-        } else if(angle <= 247.5) {
-            return Direction.BackLeft;
-        } else if(angle <= 292.5) {
-            return Direction.Left;
-        } else {
-            return Direction.ForwardLeft;
-        }
+        return TrigTable.calculateDirection(angle);
     }
 
     ////////////////////
     // Listener/Event //
     ////////////////////
 
+    /**
+     * Retrieves the joystick's latest state (inner-stick position, measurements and touching), which
+     * may be read consistently from any thread without locking.
+     * @return the joystick's state
+     */
+    public JoystickState getState() {
+        return state;
+    }
+
+    /**
+     * Publishes every state of this joystick (as well as the latest, see {@link #getState()}) to a
+     * ring, from which any number of consumers read at their own pace, each taking either the newest
+     * state or the full history (see {@link JoystickRing}).
+     * @param ring The ring, or null to stop publishing
+     */
+    public void setStateRing(JoystickRing ring) {
+        stateRing = ring;
+    }
+
+    /**
+     * Attaches a keyListener object to this View, which will be notified whenever the keys pressed
+     * change (DPad and WASD joysticks only). Keys are classified by a table lookup, and delivered as
+     * a bit mask without creating objects, so this is cheap enough for every touch sample.
+     * @param listener An instance of the Listener interface to attach to this View, or null
+     */
+    public void setJoystickKeyListener(JoystickKeyListener listener) {
+        this.keyListener = listener;
+    }
+
+    /**
+     * Retrieves the keys currently pressed (DPad and WASD joysticks only).
+     * @return a bit mask of {@link HitRegionTable#KEY_UP}, KEY_RIGHT, KEY_DOWN and KEY_LEFT
+     */
+    public int getKeys() {
+        return keys;
+    }
+
+    /**
+     * Enables input-path instrumentation (see {@link JoystickMetrics}): latency histograms for input
+     * dispatch, delivery (e.g. the wait for the next poll) and the listener callback, and event counts.
+     * Query the metrics from {@link #getMetrics()}.
+     * @param enabled true to record metrics (starting afresh), false to stop
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        metrics = enabled ? new JoystickMetrics() : null;
+        touchNanos_pending = 0;
+    }
+
+    /**
+     * Retrieves this joystick's input-path metrics (see {@link #setMetricsEnabled(boolean)}).
+     * @return the metrics, or null if not enabled
+     */
+    public JoystickMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Attaches a moveListener object to this View, which will be notified upon each
      * Joystick movement event.
@@ -396,76 +972,62 @@ public class JoystickView extends View implements Runnable {
     }
 
     /**
-     * Interface definition for a callback to be invoked when a Joystick view is moved.
+     * Attaches a moveListener object to this View, which will be notified on another thread (see
+     * {@link AsyncMoveDispatcher}): expensive listener work then doesn't take frame time from the UI
+     * thread. If the listener falls behind, only the latest movement is delivered.
+     * @param listener An instance of the Listener interface to attach to this View
+     * @param executor Runs the listener (in order, one event at a time), e.g. a single-thread executor
+     * @return the dispatcher (e.g. to query its superseded event count)
      */
-    public interface JoystickMoveListener {
-        /**
-         * Called when a Joystick is moved.
-         * @param event Contains information about the joystick movement event.
-         */
-        void OnJoystickMove(JoystickMoveEvent event);
+    public AsyncMoveDispatcher setJoystickMoveListener(JoystickMoveListener listener, Executor executor) {
+        AsyncMoveDispatcher dispatcher = new AsyncMoveDispatcher(executor, listener);
+        this.moveListener = dispatcher;
+        return dispatcher;
     }
 
     /**
-     * Event object that contains information about a Joystick movement event.
+     * Attaches a moveListener object to this View, which will be notified on a Handler's thread
+     * (e.g. a HandlerThread's); see {@link #setJoystickMoveListener(JoystickMoveListener, Executor)}.
+     * @param listener An instance of the Listener interface to attach to this View
+     * @param handler Handler of the thread to notify the listener on
+     * @return the dispatcher (e.g. to query its superseded event count)
      */
-    public class JoystickMoveEvent {
-        public final float touchX;
-        public final float touchY;
-        private final float centerX;
-        private final float centerY;
-        private final float angle;
-        private float angle_radians = Float.MAX_VALUE;
-        private Direction direction;
-        private final float distance;
-
-        /**
-         * Initialises the Joystick move event object.
-         * Use the get*() methods to retrieve event information.
-         * @param distance distance from center
-         * @param angle angle from top
-         */
-        JoystickMoveEvent(float touchX, float touchY, float centerX, float centerY, float distance, float angle) {
-            this.touchX = touchX;
-            this.touchY = touchY;
-            this.centerX = centerX;
-            this.centerY = centerY;
-            this.angle = angle;
-            this.distance = distance;
-        }
-
-        /**
-         * Retrieves the angle of the joystick in degrees; 0 is the top of the joystick.
-         * @return The angle of the joystick
-         */
-        public float getAngle() {
-            return angle;
-        }
-
-        public float getAngle_Radians() {
-            if(angle_radians == Float.MAX_VALUE) {
-                angle_radians = (float) calculateAngle_InRads(touchX, touchY, centerX, centerY);
+    public AsyncMoveDispatcher setJoystickMoveListener(JoystickMoveListener listener, final Handler handler) {
+        return setJoystickMoveListener(listener, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
             }
-            return angle_radians;
-        }
+        });
+    }
 
-        /**
-         * Retrieves a enum value that represents a simplified direction (e.g. 'Forward')
-         * @return The direction of the Joystick angle, of type JoystickView.Direction
-         */
-        public Direction getDirection() {
-            if(direction == null) {
-                direction = JoystickView.calculateDirection(angle);
-            }
-            return direction;
-        }
+    /**
+     * Sets an ordered pipeline of filters (e.g. dead-zone, movement tolerance and duplicate
+     * suppression) between this joystick's state and its moveListener. Events delivered through a
+     * pipeline are always recycled instances (see {@link JoystickMoveEvent#copy()}).
+     * @param filters The filter pipeline, or null to deliver all events
+     */
+    public void setJoystickMoveFilters(JoystickFilterPipeline filters) {
+        this.moveFilters = filters;
+    }
 
-        /**
-         * Retrieves the distance of the joystick from it's centre. Value is a percentage.
-         * @return Percentage distance from the centre.
-         */
-        public float getDistance() {
-            return distance;
-        }
+    /**
+     * Enables high-fidelity input: attaches a sampleListener object to this View, which will be
+     * notified of every input sample (including the batched, historical samples of each MotionEvent,
+     * which digitizers deliver at a higher rate than the display), with its timestamp.
+     * Samples are delivered on the UI thread, whilst touching.
+     * @param listener An instance of the Listener interface to attach to this View, or null
+     */
+    public void setJoystickSampleListener(JoystickSampleListener listener) {
+        this.sampleListener = listener;
+    }
+
+    /**
+     * Enables high-fidelity input, resampled to a fixed rate (see {@link TouchResampler}).
+     * @param listener An instance of the Listener interface to attach to this View
+     * @param resamplePeriod Output sample period, in milliseconds (e.g. 5 for 200Hz)
+     */
+    public void setJoystickSampleListener(JoystickSampleListener listener, long resamplePeriod) {
+        setJoystickSampleListener(new TouchResampler(resamplePeriod, listener));
     }
 }
@@ -0,0 +1,222 @@
+package caffeinatedandroid.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import caffeinatedandroid.joystick.JoystickMetrics;
+import caffeinatedandroid.joystick.LatencyHistogram;
+
+/**
+ * An on-screen performance overlay: frame times and missed frames (from Choreographer frame
+ * callbacks), how late the UI thread services each frame, and, per joystick, input events per second
+ * and input-path latencies (from each joystick's {@link JoystickMetrics}). Separates UI jank (long or
+ * late frames) from input-path delay (slow delivery or listeners).
+ * <p>
+ * Frame callbacks are only requested whilst the overlay is shown and attached, so a hidden overlay
+ * costs nothing. Whilst shown, statistics are gathered every frame without allocating, and the text
+ * is rebuilt (and redrawn) only every {@link #UPDATE_INTERVAL_MILLIS}.
+ * <p>
+ * UI thread only.
+ * @author Christopher Bull
+ */
+public class PerformanceOverlayView extends View implements Choreographer.FrameCallback {
+
+    /** How often the overlay's text is updated */
+    public static final long UPDATE_INTERVAL_MILLIS = 500;
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final float TEXT_SIZE = 36f;
+    private static final float PADDING = 16f;
+
+    private final Paint paintText;
+    private final Paint paintBackground;
+    private final Choreographer choreographer;
+    private boolean frameCallbackPosted = false;
+
+    // Frame statistics (for the current update interval)
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
+    private final LatencyHistogram frameLateness = new LatencyHistogram();
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long frameTimeNanos_last = 0;
+    private long updateTimeNanos_last = 0;
+    private long missedFrames = 0;
+
+    // Joysticks (names, views, and touch event counts at the last update)
+    private final ArrayList<String> joystickNames = new ArrayList<>(2);
+    private final ArrayList<JoystickView> joysticks = new ArrayList<>(2);
+    private long[] touchCounts_last = new long[0];
+
+    // Text (rebuilt in place)
+    private final StringBuilder text = new StringBuilder(512);
+    private int lines = 0;
+
+    public PerformanceOverlayView(Context context) {
+        super(context);
+        choreographer = Choreographer.getInstance();
+        paintText = new Paint();
+        paintText.setAntiAlias(true);
+        paintText.setColor(Color.WHITE);
+        paintText.setTextSize(TEXT_SIZE);
+        paintBackground = new Paint();
+        paintBackground.setColor(Color.BLACK);
+        paintBackground.setAlpha(140);
+        paintBackground.setStyle(Paint.Style.FILL);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Adds a joystick to report on, enabling its metrics (see
+     * {@link JoystickView#setMetricsEnabled(boolean)}) if not already enabled.
+     * @param name Name to display (e.g. "left")
+     * @param joystick The joystick
+     */
+    public void addJoystick(String name, JoystickView joystick) {
+        if(joystick.getMetrics() == null) {
+            joystick.setMetricsEnabled(true);
+        }
+        joystickNames.add(name);
+        joysticks.add(joystick);
+        touchCounts_last = new long[joysticks.size()];
+        for(int j = 0; j < joysticks.size(); j++) {
+            touchCounts_last[j] = joysticks.get(j).getMetrics().getCount(JoystickMetrics.COUNT_TOUCH_EVENTS);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateFrameCallbacks();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        updateFrameCallbacks();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateFrameCallbacks();
+    }
+
+    /**
+     * Requests frame callbacks whilst shown, and stops them otherwise.
+     */
+    private void updateFrameCallbacks() {
+        boolean shown = isAttachedToWindow() && isShown();
+        if(shown && !frameCallbackPosted) {
+            Display display = getDisplay();
+            if(display != null && display.getRefreshRate() > 0) {
+                frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / display.getRefreshRate());
+            }
+            frameCallbackPosted = true;
+            frameTimeNanos_last = 0; // Don't count the time hidden as a long frame
+            choreographer.postFrameCallback(this);
+        } else if(!shown && frameCallbackPosted) {
+            frameCallbackPosted = false;
+            choreographer.removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if(frameTimeNanos_last != 0) {
+            long frameTime = frameTimeNanos - frameTimeNanos_last;
+            frameTimes.record(frameTime);
+            // Frames skipped between this frame and the last (rounded to whole frames)
+            long frames = (frameTime + frameIntervalNanos / 2) / frameIntervalNanos;
+            if(frames > 1) {
+                missedFrames += frames - 1;
+            }
+        }
+        frameTimeNanos_last = frameTimeNanos;
+        // How long after vsync the UI thread got to this frame
+        frameLateness.record(System.nanoTime() - frameTimeNanos);
+
+        if(updateTimeNanos_last == 0) {
+            updateTimeNanos_last = frameTimeNanos;
+        } else if(frameTimeNanos - updateTimeNanos_last >= TimeUnit.MILLISECONDS.toNanos(UPDATE_INTERVAL_MILLIS)) {
+            updateText(frameTimeNanos - updateTimeNanos_last);
+            updateTimeNanos_last = frameTimeNanos;
+            invalidate();
+        }
+        choreographer.postFrameCallback(this);
+    }
+
+    /**
+     * Rebuilds the overlay's text from the last interval's statistics, and starts the next interval.
+     * @param elapsedNanos The interval's length
+     */
+    private void updateText(long elapsedNanos) {
+        text.setLength(0);
+        text.append("frame p50 ");
+        appendMillis(frameTimes.getPercentile(50));
+        text.append(" p99 ");
+        appendMillis(frameTimes.getPercentile(99));
+        text.append(" max ");
+        appendMillis(frameTimes.getMax());
+        text.append(" missed ").append(missedFrames).append('\n');
+        text.append("ui late p50 ");
+        appendMillis(frameLateness.getPercentile(50));
+        text.append(" p99 ");
+        appendMillis(frameLateness.getPercentile(99));
+        text.append('\n');
+        lines = 2;
+        frameTimes.reset();
+        frameLateness.reset();
+        missedFrames = 0;
+
+        for(int j = 0; j < joysticks.size(); j++) {
+            JoystickMetrics metrics = joysticks.get(j).getMetrics();
+            if(metrics == null) {
+                continue; // Disabled since added
+            }
+            long touches = metrics.getCount(JoystickMetrics.COUNT_TOUCH_EVENTS);
+            long perSecond = (touches - touchCounts_last[j]) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+            touchCounts_last[j] = touches;
+            text.append(joystickNames.get(j)).append(": ").append(perSecond).append(" ev/s, delivery p99 ");
+            appendMillis(metrics.getLatency(JoystickMetrics.STAGE_DELIVERY).getPercentile(99));
+            text.append(", listener p99 ");
+            appendMillis(metrics.getLatency(JoystickMetrics.STAGE_LISTENER).getPercentile(99));
+            text.append('\n');
+            lines++;
+        }
+    }
+
+    /**
+     * Appends a duration in milliseconds, to one decimal place.
+     */
+    private void appendMillis(long nanos) {
+        long tenths = (nanos + 50000) / 100000;
+        text.append(tenths / 10).append('.').append(tenths % 10).append("ms");
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if(lines == 0) {
+            return;
+        }
+        float lineHeight = TEXT_SIZE * 1.25f;
+        canvas.drawRect(0, 0, getWidth(), PADDING * 2 + lineHeight * lines, paintBackground);
+        int start = 0;
+        float y = PADDING + TEXT_SIZE;
+        for(int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == '\n') {
+                canvas.drawText(text, start, i, PADDING, y, paintText);
+                start = i + 1;
+                y += lineHeight;
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package caffeinatedandroid.link;
+
+import java.nio.ByteBuffer;
+
+import caffeinatedandroid.joystick.JoystickState;
+
+/**
+ * A control frame: the state of both sticks (quantized X/Y), buttons, a sequence number and a
+ * timestamp, encoded into a small fixed-size binary frame. This object is mutable and intended to be
+ * reused; {@link #encode(ByteBuffer)} writes into a caller-supplied buffer without allocating.
+ * Frames are decoded (without copying) by {@link ControlFrameReader}.
+ * <p>
+ * Frame layout ({@link #SIZE} bytes, big-endian):
+ * <pre>
+ *  0  magic/version  (1 byte)
+ *  1  buttons        (2 bytes, bit per button)
+ *  3  sequence       (2 bytes, unsigned, wraps)
+ *  5  timestamp      (4 bytes, milliseconds, wraps)
+ *  9  left stick X   (2 bytes, signed, -1.0 to 1.0 quantized to +/-32767)
+ * 11  left stick Y   (2 bytes)
+ * 13  right stick X  (2 bytes)
+ * 15  right stick Y  (2 bytes)
+ * 17  checksum       (1 byte, XOR of bytes 0 to 16)
+ * </pre>
+ * Stick X is positive to the right, and stick Y is positive forwards (up).
+ * @author Christopher Bull
+ */
+public class ControlFrame {
+
+    /** Frame identifier and format version */
+    public static final byte MAGIC = (byte) 0xC1;
+    /** Encoded frame size, in bytes */
+    public static final int SIZE = 18;
+
+    /** Index of the left stick */
+    public static final int STICK_LEFT = 0;
+    /** Index of the right stick */
+    public static final int STICK_RIGHT = 1;
+
+    // Field offsets
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_BUTTONS = 1;
+    static final int OFFSET_SEQUENCE = 3;
+    static final int OFFSET_TIMESTAMP = 5;
+    static final int OFFSET_STICKS = 9;
+    static final int OFFSET_CHECKSUM = 17;
+
+    private static final float QUANTIZE_SCALE = Short.MAX_VALUE;
+
+    private int buttons = 0;
+    private int sequence = 0;
+    private long timestamp = 0;
+    // Left X, left Y, right X, right Y
+    private final short[] sticks = new short[4];
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * Sets a stick's position.
+     * @param stick {@link #STICK_LEFT} or {@link #STICK_RIGHT}
+     * @param x X position, -1.0 (left) to 1.0 (right)
+     * @param y Y position, -1.0 (back) to 1.0 (forward)
+     */
+    public void setStick(int stick, float x, float y) {
+        sticks[stick * 2] = quantize(x);
+        sticks[stick * 2 + 1] = quantize(y);
+    }
+
+    /**
+     * Sets a stick's position from a snapshot of a joystick's state (centred if not being touched).
+     * Positions are relative to the stick's clamp radius, so full deflection is 1.0.
+     * @param stick {@link #STICK_LEFT} or {@link #STICK_RIGHT}
+     * @param snapshot The joystick state
+     */
+    public void setStick(int stick, JoystickState.Snapshot snapshot) {
+        float reach = snapshot.getClampRadius();
+        if(!snapshot.isTouching() || reach <= 0) {
+            setStick(stick, 0f, 0f);
+        } else {
+            setStick(stick,
+                    (snapshot.getTouchX() - snapshot.getCenterX()) / reach,
+                    (snapshot.getCenterY() - snapshot.getTouchY()) / reach);
+        }
+    }
+
+    /**
+     * Sets the state of all buttons.
+     * @param buttons Bit per button (up to 16 buttons)
+     */
+    public void setButtons(int buttons) {
+        this.buttons = buttons & 0xFFFF;
+    }
+
+    /**
+     * Sets the sequence number.
+     * @param sequence Sequence number (only the lowest 16 bits are encoded)
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence & 0xFFFF;
+    }
+
+    /**
+     * Sets the timestamp.
+     * @param timestamp Timestamp in milliseconds (only the lowest 32 bits are encoded)
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp & 0xFFFFFFFFL;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getButtons() {
+        return buttons;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public float getStickX(int stick) {
+        return dequantize(sticks[stick * 2]);
+    }
+
+    public float getStickY(int stick) {
+        return dequantize(sticks[stick * 2 + 1]);
+    }
+
+    //////////////
+    // Encoding //
+    //////////////
+
+    /**
+     * Encodes this frame into a buffer, at the buffer's position, and advances the position by
+     * {@link #SIZE}. Does not allocate.
+     * @param buffer The buffer to write into; must have at least {@link #SIZE} bytes remaining
+     * @throws java.nio.BufferOverflowException if there is insufficient space remaining
+     */
+    public void encode(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put(MAGIC);
+        buffer.putShort((short) buttons);
+        buffer.putShort((short) sequence);
+        buffer.putInt((int) timestamp);
+        for(int i = 0; i < sticks.length; i++) {
+            buffer.putShort(sticks[i]);
+        }
+        buffer.put(checksum(buffer, start));
+    }
+
+    /**
+     * Calculates the checksum of a frame (XOR of all bytes preceding the checksum).
+     * @param buffer Buffer containing the frame
+     * @param start Offset of the frame within the buffer
+     * @return the checksum
+     */
+    static byte checksum(ByteBuffer buffer, int start) {
+        int checksum = 0;
+        for(int i = start; i < start + OFFSET_CHECKSUM; i++) {
+            checksum ^= buffer.get(i);
+        }
+        return (byte) checksum;
+    }
+
+    /**
+     * Compares two (wrapping, 16-bit) sequence numbers.
+     * @param sequence A sequence number
+     * @param previous The sequence number to compare against
+     * @return true if sequence is newer than previous (allowing for wrap-around)
+     */
+    public static boolean isSequenceNewer(int sequence, int previous) {
+        return (short) (sequence - previous) > 0;
+    }
+
+    /**
+     * Quantizes a stick position (-1.0 to 1.0) to a 16-bit value, clamping out of range values.
+     * @param value The stick position
+     * @return the quantized value
+     */
+    public static short quantize(float value) {
+        if(value >= 1f) {
+            return Short.MAX_VALUE;
+        } else if(value <= -1f) {
+            return -Short.MAX_VALUE;
+        }
+        return (short) Math.round(value * QUANTIZE_SCALE);
+    }
+
+    /**
+     * Converts a quantized stick position back to a float (-1.0 to 1.0).
+     * @param value The quantized value
+     * @return the stick position
+     */
+    public static float dequantize(short value) {
+        return value / QUANTIZE_SCALE;
+    }
+}
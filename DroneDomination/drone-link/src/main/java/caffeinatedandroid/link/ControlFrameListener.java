@@ -0,0 +1,13 @@
+package caffeinatedandroid.link;
+
+/**
+ * Interface definition for a callback to be invoked when a control frame is received.
+ * @author Christopher Bull
+ */
+public interface ControlFrameListener {
+    /**
+     * Called when a valid, in-order control frame is received.
+     * @param frame Reader wrapping the received frame; only valid for the duration of this call.
+     */
+    void OnControlFrame(ControlFrameReader frame);
+}
@@ -0,0 +1,81 @@
+package caffeinatedandroid.link;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Zero-copy decoder for frames encoded by {@link ControlFrame}. A flyweight: wraps a buffer at an
+ * offset, and each getter reads its field directly from the buffer (no copying, no allocation).
+ * Reuse a single instance by re-wrapping it for each received frame.
+ * <p>
+ * Reads use absolute indices, so wrapping doesn't change the buffer's position or limit.
+ * @author Christopher Bull
+ */
+public class ControlFrameReader {
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Points this reader at a frame.
+     * @param buffer Buffer containing the frame
+     * @param offset Offset of the frame within the buffer
+     * @return this reader
+     */
+    public ControlFrameReader wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Checks that the wrapped frame is complete, has the expected magic/version, and that its
+     * checksum matches.
+     * @return true if the frame is valid
+     */
+    public boolean isValid() {
+        return buffer != null
+                && offset >= 0
+                && buffer.limit() - offset >= ControlFrame.SIZE
+                && buffer.get(offset + ControlFrame.OFFSET_MAGIC) == ControlFrame.MAGIC
+                && buffer.get(offset + ControlFrame.OFFSET_CHECKSUM) == ControlFrame.checksum(buffer, offset);
+    }
+
+    public int getButtons() {
+        return buffer.getShort(offset + ControlFrame.OFFSET_BUTTONS) & 0xFFFF;
+    }
+
+    /**
+     * Checks whether a button is pressed.
+     * @param button Button index (0 to 15)
+     * @return true if pressed
+     */
+    public boolean isButtonPressed(int button) {
+        return (getButtons() & (1 << button)) != 0;
+    }
+
+    public int getSequence() {
+        return buffer.getShort(offset + ControlFrame.OFFSET_SEQUENCE) & 0xFFFF;
+    }
+
+    public long getTimestamp() {
+        return buffer.getInt(offset + ControlFrame.OFFSET_TIMESTAMP) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Retrieves a stick's X position.
+     * @param stick {@link ControlFrame#STICK_LEFT} or {@link ControlFrame#STICK_RIGHT}
+     * @return X position, -1.0 (left) to 1.0 (right)
+     */
+    public float getStickX(int stick) {
+        return ControlFrame.dequantize(buffer.getShort(offset + ControlFrame.OFFSET_STICKS + stick * 4));
+    }
+
+    /**
+     * Retrieves a stick's Y position.
+     * @param stick {@link ControlFrame#STICK_LEFT} or {@link ControlFrame#STICK_RIGHT}
+     * @return Y position, -1.0 (back) to 1.0 (forward)
+     */
+    public float getStickY(int stick) {
+        return ControlFrame.dequantize(buffer.getShort(offset + ControlFrame.OFFSET_STICKS + stick * 4 + 2));
+    }
+}
@@ -0,0 +1,48 @@
+package caffeinatedandroid.link;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives control frames over UDP, on its own thread: the drone's end of a
+ * {@link ControlLinkSender}. Used as a loopback receiver to verify the link without a real drone.
+ * <p>
+ * Frames are decoded in place (see {@link FrameReceiver}); invalid and stale frames are dropped and
+ * counted, so only the newest frames reach the listener.
+ * @author Christopher Bull
+ */
+public class ControlLinkReceiver extends FrameReceiver {
+
+    private final ControlFrameListener listener;
+    private final ControlFrameReader reader = new ControlFrameReader();
+
+    /**
+     * Initialises the receiver, and binds its channel. Call {@link #start()} to begin receiving.
+     * @param bindAddress Local address to receive on (port 0 picks a free port)
+     * @param listener Listener for received frames (called on the receiver thread)
+     * @throws IOException if the channel can't be opened or bound
+     */
+    public ControlLinkReceiver(InetSocketAddress bindAddress, ControlFrameListener listener) throws IOException {
+        super(bindAddress, "ControlLinkReceiver");
+        this.listener = listener;
+    }
+
+    @Override
+    protected boolean decode(ByteBuffer datagram) {
+        reader.wrap(datagram, 0);
+        return datagram.remaining() == ControlFrame.SIZE && reader.isValid();
+    }
+
+    @Override
+    protected int getSequence() {
+        return reader.getSequence();
+    }
+
+    @Override
+    protected void onFrame() {
+        if(listener != null) {
+            listener.OnControlFrame(reader);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package caffeinatedandroid.link;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import caffeinatedandroid.joystick.JoystickState;
+
+/**
+ * Streams control frames to a drone over UDP, at a fixed send rate, from its own thread.
+ * <p>
+ * Each frame is built from the latest state of each stick's {@link JoystickState} (read lock-free),
+ * so the sender never waits on, or queues behind, the UI thread: input that arrives faster than the
+ * send rate simply replaces the previous state. The channel is non-blocking; if the socket's send
+ * buffer is full, the frame is dropped (and counted) rather than queued, since a newer frame will be
+ * sent on the next tick anyway. If the sender falls behind schedule, it skips the missed ticks
+ * instead of bursting.
+ * <p>
+ * Stick sources and buttons may be set from any thread.
+ * @author Christopher Bull
+ */
+public class ControlLinkSender implements Runnable {
+
+    /** Default send rate: 200Hz */
+    public static final int SEND_RATE_DEFAULT = 200;
+
+    private final InetSocketAddress target;
+    private final long periodNanos;
+
+    // Frame sources
+    private volatile JoystickState stickLeft = null;
+    private volatile JoystickState stickRight = null;
+    private volatile int buttons = 0;
+
+    // Sender thread state
+    private final ControlFrame frame = new ControlFrame();
+    private final JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(ControlFrame.SIZE);
+    private DatagramChannel channel;
+    private Thread thread;
+    private volatile boolean running = false;
+    private int sequence = 0;
+
+    // Statistics (written by the sender thread only)
+    private volatile long framesSent = 0;
+    private volatile long framesDropped = 0;
+    private volatile IOException lastError = null;
+
+    public ControlLinkSender(InetSocketAddress target) {
+        this(target, SEND_RATE_DEFAULT);
+    }
+
+    /**
+     * Initialises the sender. Call {@link #start()} to begin sending.
+     * @param target The drone's address
+     * @param sendRate Frames to send per second
+     */
+    public ControlLinkSender(InetSocketAddress target, int sendRate) {
+        if(sendRate <= 0) {
+            throw new IllegalArgumentException("sendRate must be positive");
+        }
+        this.target = target;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / sendRate;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Sets the source of a stick's position (centred if null, or not being touched).
+     * @param stick {@link ControlFrame#STICK_LEFT} or {@link ControlFrame#STICK_RIGHT}
+     * @param state The joystick's state (e.g. from JoystickView.getState())
+     */
+    public void setStick(int stick, JoystickState state) {
+        if(stick == ControlFrame.STICK_LEFT) {
+            stickLeft = state;
+        } else {
+            stickRight = state;
+        }
+    }
+
+    /**
+     * Sets the state of all buttons, to be sent with the next frame.
+     * @param buttons Bit per button (up to 16 buttons)
+     */
+    public void setButtons(int buttons) {
+        this.buttons = buttons;
+    }
+
+    /**
+     * Opens the channel and starts the sender thread.
+     * @throws IOException if the channel can't be opened
+     */
+    public synchronized void start() throws IOException {
+        if(running) {
+            return;
+        }
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(target);
+        running = true;
+        thread = new Thread(this, "ControlLinkSender");
+        thread.start();
+    }
+
+    /**
+     * Stops the sender thread and closes the channel.
+     */
+    public synchronized void stop() {
+        if(!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch(IOException e) {
+            lastError = e;
+        }
+        thread = null;
+        channel = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        while(running) {
+            sendFrame();
+            // Fixed rate; skip (don't burst) any ticks missed by more than a period
+            next += periodNanos;
+            long delay = next - System.nanoTime();
+            if(delay > 0) {
+                LockSupport.parkNanos(delay);
+            } else if(-delay > periodNanos) {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    private void sendFrame() {
+        readStick(ControlFrame.STICK_LEFT, stickLeft);
+        readStick(ControlFrame.STICK_RIGHT, stickRight);
+        frame.setButtons(buttons);
+        frame.setSequence(sequence++);
+        frame.setTimestamp(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        buffer.clear();
+        frame.encode(buffer);
+        buffer.flip();
+        try {
+            if(channel.write(buffer) == 0) {
+                framesDropped++; // Send buffer full: drop this (now stale) frame
+            } else {
+                framesSent++;
+            }
+        } catch(IOException e) {
+            framesDropped++; // E.g. nothing listening (ICMP port unreachable)
+            lastError = e;
+        }
+    }
+
+    private void readStick(int stick, JoystickState state) {
+        if(state == null) {
+            frame.setStick(stick, 0f, 0f);
+        } else {
+            frame.setStick(stick, state.read(snapshot));
+        }
+    }
+
+    ////////////////
+    // Statistics //
+    ////////////////
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    /**
+     * Retrieves the most recent send error (sending continues regardless).
+     * @return the last error, or null
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,157 @@
+package caffeinatedandroid.link;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Receives sequenced frames over UDP, on its own thread: the shared receive loop of
+ * {@link ControlLinkReceiver} and {@link TelemetryReceiver}.
+ * <p>
+ * Datagrams are received into a single reused buffer, and a subclass decodes them in place (no
+ * per-frame allocation). Invalid frames, and stale frames (whose sequence number isn't newer than the
+ * last delivered frame), are dropped and counted; only the newest frames are delivered.
+ * @author Christopher Bull
+ */
+public abstract class FrameReceiver implements Runnable {
+
+    // Larger than a frame, so oversized datagrams can be detected (rather than silently truncated)
+    private static final int BUFFER_SIZE = 512;
+
+    private final DatagramChannel channel;
+    private final String threadName;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private Thread thread;
+    private boolean receivedAny = false;
+    private int lastSequence = 0;
+
+    // Statistics (written by the receiver thread only)
+    private volatile long framesReceived = 0;
+    private volatile long framesStale = 0;
+    private volatile long framesInvalid = 0;
+
+    /**
+     * Initialises the receiver, and binds its channel. Call {@link #start()} to begin receiving.
+     * @param bindAddress Local address to receive on (port 0 picks a free port)
+     * @param threadName Name of the receiver thread
+     * @throws IOException if the channel can't be opened or bound
+     */
+    protected FrameReceiver(InetSocketAddress bindAddress, String threadName) throws IOException {
+        this.threadName = threadName;
+        channel = DatagramChannel.open();
+        channel.socket().bind(bindAddress);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Retrieves the address the receiver is bound to (e.g. to find the port picked for port 0).
+     * @return the local address
+     */
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) channel.socket().getLocalSocketAddress();
+    }
+
+    /**
+     * Starts the receiver thread.
+     */
+    public synchronized void start() {
+        if(thread == null) {
+            thread = new Thread(this, threadName);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops receiving and closes the channel.
+     */
+    public synchronized void close() {
+        try {
+            channel.close(); // Wakes the receiver thread
+        } catch(IOException e) {
+            // Closing anyway
+        }
+        if(thread != null) {
+            try {
+                thread.join();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        while(channel.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress source = channel.receive(buffer);
+                if(source != null) {
+                    buffer.flip();
+                    onDatagram();
+                }
+            } catch(ClosedChannelException e) {
+                break;
+            } catch(IOException e) {
+                framesInvalid++;
+            }
+        }
+    }
+
+    private void onDatagram() {
+        if(!decode(buffer)) {
+            framesInvalid++;
+            return;
+        }
+        int sequence = getSequence();
+        if(receivedAny && !ControlFrame.isSequenceNewer(sequence, lastSequence)) {
+            framesStale++; // Duplicate, or overtaken by a newer frame
+            return;
+        }
+        receivedAny = true;
+        lastSequence = sequence;
+        framesReceived++;
+        onFrame();
+    }
+
+    /**
+     * Decodes a received datagram in place (called on the receiver thread).
+     * @param datagram The datagram, from position 0 to its limit
+     * @return true if it is a valid frame
+     */
+    protected abstract boolean decode(ByteBuffer datagram);
+
+    /**
+     * Retrieves the sequence number of the frame last decoded.
+     * @return the sequence number
+     */
+    protected abstract int getSequence();
+
+    /**
+     * Delivers the frame last decoded, which is newer than any delivered before it (called on the
+     * receiver thread).
+     */
+    protected abstract void onFrame();
+
+    ////////////////
+    // Statistics //
+    ////////////////
+
+    public long getFramesReceived() {
+        return framesReceived;
+    }
+
+    public long getFramesStale() {
+        return framesStale;
+    }
+
+    public long getFramesInvalid() {
+        return framesInvalid;
+    }
+}
@@ -0,0 +1,204 @@
+package caffeinatedandroid.link;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A telemetry frame: the drone's reported state (position, heading, battery and link quality), with
+ * a sequence number and a timestamp, encoded into a small fixed-size binary frame. The drone's half
+ * of the link, sent back to the controller (see {@link TelemetryReceiver}). Like {@link ControlFrame},
+ * this object is mutable and intended to be reused, and {@link #encode(ByteBuffer)} doesn't allocate.
+ * Frames are decoded (without copying) by {@link TelemetryFrameReader}.
+ * <p>
+ * Frame layout ({@link #SIZE} bytes, big-endian):
+ * <pre>
+ *  0  magic/version  (1 byte)
+ *  1  sequence       (2 bytes, unsigned, wraps)
+ *  3  timestamp      (4 bytes, milliseconds, wraps)
+ *  7  X              (4 bytes, float, world units)
+ * 11  Y              (4 bytes, float, world units)
+ * 15  heading        (2 bytes, unsigned, 0 to 2PI radians quantized to 0 to 65535)
+ * 17  battery        (1 byte, percent)
+ * 18  link quality   (1 byte, percent)
+ * 19  checksum       (1 byte, XOR of bytes 0 to 18)
+ * </pre>
+ * Headings are as in the simulator: 0 is 'up' (-Y), increasing clockwise.
+ * @author Christopher Bull
+ */
+public class TelemetryFrame {
+
+    /** Frame identifier and format version */
+    public static final byte MAGIC = (byte) 0xD1;
+    /** Encoded frame size, in bytes */
+    public static final int SIZE = 20;
+
+    // Field offsets
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_SEQUENCE = 1;
+    static final int OFFSET_TIMESTAMP = 3;
+    static final int OFFSET_X = 7;
+    static final int OFFSET_Y = 11;
+    static final int OFFSET_HEADING = 15;
+    static final int OFFSET_BATTERY = 17;
+    static final int OFFSET_LINK_QUALITY = 18;
+    static final int OFFSET_CHECKSUM = 19;
+
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double HEADING_SCALE = 65536 / TWO_PI;
+
+    private int sequence = 0;
+    private long timestamp = 0;
+    private float x = 0f;
+    private float y = 0f;
+    private int heading = 0;
+    private int battery = 0;
+    private int linkQuality = 0;
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * Sets the sequence number.
+     * @param sequence Sequence number (only the lowest 16 bits are encoded)
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence & 0xFFFF;
+    }
+
+    /**
+     * Sets the timestamp.
+     * @param timestamp Timestamp in milliseconds (only the lowest 32 bits are encoded)
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Sets the position.
+     * @param x X position, in world units
+     * @param y Y position, in world units
+     */
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Sets the heading.
+     * @param heading Heading in radians (0 is up, increasing clockwise; any multiple of 2PI)
+     */
+    public void setHeading(float heading) {
+        this.heading = quantizeHeading(heading);
+    }
+
+    /**
+     * Sets the battery level.
+     * @param battery Battery level, in percent (clamped to 0 to 100)
+     */
+    public void setBattery(int battery) {
+        this.battery = clampPercent(battery);
+    }
+
+    /**
+     * Sets the link quality (as measured by the drone, e.g. from received control frames).
+     * @param linkQuality Link quality, in percent (clamped to 0 to 100)
+     */
+    public void setLinkQuality(int linkQuality) {
+        this.linkQuality = clampPercent(linkQuality);
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getHeading() {
+        return dequantizeHeading(heading);
+    }
+
+    public int getBattery() {
+        return battery;
+    }
+
+    public int getLinkQuality() {
+        return linkQuality;
+    }
+
+    //////////////
+    // Encoding //
+    //////////////
+
+    /**
+     * Encodes this frame into a buffer, at the buffer's position, and advances the position by
+     * {@link #SIZE}. Does not allocate.
+     * @param buffer The buffer to write into; must have at least {@link #SIZE} bytes remaining
+     * @throws java.nio.BufferOverflowException if there is insufficient space remaining
+     */
+    public void encode(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put(MAGIC);
+        buffer.putShort((short) sequence);
+        buffer.putInt((int) timestamp);
+        buffer.putFloat(x);
+        buffer.putFloat(y);
+        buffer.putShort((short) heading);
+        buffer.put((byte) battery);
+        buffer.put((byte) linkQuality);
+        buffer.put(checksum(buffer, start));
+    }
+
+    /**
+     * Calculates the checksum of a frame (XOR of all bytes preceding the checksum).
+     * @param buffer Buffer containing the frame
+     * @param start Offset of the frame within the buffer
+     * @return the checksum
+     */
+    static byte checksum(ByteBuffer buffer, int start) {
+        int checksum = 0;
+        for(int i = start; i < start + OFFSET_CHECKSUM; i++) {
+            checksum ^= buffer.get(i);
+        }
+        return (byte) checksum;
+    }
+
+    /**
+     * Quantizes a heading to 16 bits (a resolution of about 0.005 degrees).
+     * @param heading Heading in radians
+     * @return the quantized heading (0 to 65535)
+     */
+    static int quantizeHeading(float heading) {
+        double normalised = heading % TWO_PI;
+        if(normalised < 0) {
+            normalised += TWO_PI;
+        }
+        return (int) Math.round(normalised * HEADING_SCALE) & 0xFFFF;
+    }
+
+    /**
+     * Converts a quantized heading back to radians.
+     * @param heading The quantized heading (0 to 65535)
+     * @return the heading, 0 to 2PI radians
+     */
+    static float dequantizeHeading(int heading) {
+        return (float) (heading / HEADING_SCALE);
+    }
+
+    private static int clampPercent(int percent) {
+        return Math.max(0, Math.min(100, percent));
+    }
+}
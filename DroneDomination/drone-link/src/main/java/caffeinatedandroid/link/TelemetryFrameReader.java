@@ -0,0 +1,82 @@
+package caffeinatedandroid.link;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Zero-copy decoder for frames encoded by {@link TelemetryFrame}. A flyweight, like
+ * {@link ControlFrameReader}: wraps a buffer at an offset, and each getter reads its field directly
+ * from the buffer. Reuse a single instance by re-wrapping it for each received frame.
+ * <p>
+ * Reads use absolute indices, so wrapping doesn't change the buffer's position or limit.
+ * @author Christopher Bull
+ */
+public class TelemetryFrameReader {
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Points this reader at a frame.
+     * @param buffer Buffer containing the frame
+     * @param offset Offset of the frame within the buffer
+     * @return this reader
+     */
+    public TelemetryFrameReader wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Checks that the wrapped frame is complete, has the expected magic/version, and that its
+     * checksum matches.
+     * @return true if the frame is valid
+     */
+    public boolean isValid() {
+        return buffer != null
+                && offset >= 0
+                && buffer.limit() - offset >= TelemetryFrame.SIZE
+                && buffer.get(offset + TelemetryFrame.OFFSET_MAGIC) == TelemetryFrame.MAGIC
+                && buffer.get(offset + TelemetryFrame.OFFSET_CHECKSUM) == TelemetryFrame.checksum(buffer, offset);
+    }
+
+    public int getSequence() {
+        return buffer.getShort(offset + TelemetryFrame.OFFSET_SEQUENCE) & 0xFFFF;
+    }
+
+    public long getTimestamp() {
+        return buffer.getInt(offset + TelemetryFrame.OFFSET_TIMESTAMP) & 0xFFFFFFFFL;
+    }
+
+    public float getX() {
+        return buffer.getFloat(offset + TelemetryFrame.OFFSET_X);
+    }
+
+    public float getY() {
+        return buffer.getFloat(offset + TelemetryFrame.OFFSET_Y);
+    }
+
+    /**
+     * Retrieves the heading.
+     * @return heading in radians, 0 (up) to 2PI, increasing clockwise
+     */
+    public float getHeading() {
+        return TelemetryFrame.dequantizeHeading(buffer.getShort(offset + TelemetryFrame.OFFSET_HEADING) & 0xFFFF);
+    }
+
+    /**
+     * Retrieves the battery level.
+     * @return battery level, in percent
+     */
+    public int getBattery() {
+        return buffer.get(offset + TelemetryFrame.OFFSET_BATTERY) & 0xFF;
+    }
+
+    /**
+     * Retrieves the link quality.
+     * @return link quality, in percent
+     */
+    public int getLinkQuality() {
+        return buffer.get(offset + TelemetryFrame.OFFSET_LINK_QUALITY) & 0xFF;
+    }
+}
@@ -0,0 +1,191 @@
+package caffeinatedandroid.link;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates telemetry frames for a pretend drone, flying a circle at a constant speed (facing along
+ * its path) whilst its battery slowly drains, and streams them over UDP at a fixed rate, from its own
+ * thread. Used as a loopback source to exercise a {@link TelemetryReceiver} (and whatever draws its
+ * history) without a real drone.
+ * <p>
+ * Frames can also be encoded directly ({@link #encode(ByteBuffer, long)}), without a channel or
+ * thread, for deterministic tests. Neither allocates per frame.
+ * @author Christopher Bull
+ */
+public class TelemetryGenerator implements Runnable {
+
+    /** Default send rate: 50Hz */
+    public static final int SEND_RATE_DEFAULT = 50;
+    /** Default time to fly one circle: 10 seconds */
+    public static final long PERIOD_MILLIS_DEFAULT = 10000;
+
+    // Battery drains by 1% every this many milliseconds (from 100%)
+    private static final long BATTERY_DRAIN_MILLIS = 6000;
+
+    private final float center_x;
+    private final float center_y;
+    private final float radius;
+    private final long periodMillis;
+
+    // Encoding state (the sender thread's, once started)
+    private final TelemetryFrame frame = new TelemetryFrame();
+    private int sequence = 0;
+    private volatile int linkQuality = 100;
+
+    // Sender thread state
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TelemetryFrame.SIZE);
+    private long periodNanos;
+    private DatagramChannel channel;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // Statistics (written by the sender thread only)
+    private volatile long framesSent = 0;
+    private volatile IOException lastError = null;
+
+    public TelemetryGenerator(float center_x, float center_y, float radius) {
+        this(center_x, center_y, radius, PERIOD_MILLIS_DEFAULT);
+    }
+
+    /**
+     * Initialises the generator.
+     * @param center_x Centre of the circle X coordinate
+     * @param center_y Centre of the circle Y coordinate
+     * @param radius Radius of the circle
+     * @param periodMillis Time to fly one circle, in milliseconds
+     */
+    public TelemetryGenerator(float center_x, float center_y, float radius, long periodMillis) {
+        if(periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis must be positive");
+        }
+        this.center_x = center_x;
+        this.center_y = center_y;
+        this.radius = radius;
+        this.periodMillis = periodMillis;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Sets the link quality reported in subsequent frames.
+     * @param linkQuality Link quality, in percent
+     */
+    public void setLinkQuality(int linkQuality) {
+        this.linkQuality = linkQuality;
+    }
+
+    /**
+     * Encodes the next frame: the drone's state at a given time. Advances the sequence number.
+     * @param buffer The buffer to write into, at its position; must have at least
+     *               {@link TelemetryFrame#SIZE} bytes remaining
+     * @param timeMillis Time since the drone started, in milliseconds
+     */
+    public void encode(ByteBuffer buffer, long timeMillis) {
+        // Clockwise around the centre, starting at the top (heading right)
+        double angle = 2 * Math.PI * (timeMillis % periodMillis) / periodMillis;
+        frame.setSequence(sequence++);
+        frame.setTimestamp(timeMillis);
+        frame.setPosition(center_x + (float) (Math.sin(angle) * radius), center_y - (float) (Math.cos(angle) * radius));
+        frame.setHeading((float) (angle + Math.PI / 2));
+        frame.setBattery(100 - (int) (timeMillis / BATTERY_DRAIN_MILLIS));
+        frame.setLinkQuality(linkQuality);
+        frame.encode(buffer);
+    }
+
+    /**
+     * Opens a channel and starts sending frames to a receiver, from a new thread.
+     * @param target The receiver's address
+     * @param sendRate Frames to send per second
+     * @throws IOException if the channel can't be opened
+     */
+    public synchronized void start(InetSocketAddress target, int sendRate) throws IOException {
+        if(sendRate <= 0) {
+            throw new IllegalArgumentException("sendRate must be positive");
+        }
+        if(running) {
+            return;
+        }
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / sendRate;
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(target);
+        running = true;
+        thread = new Thread(this, "TelemetryGenerator");
+        thread.start();
+    }
+
+    /**
+     * Stops the sender thread and closes the channel.
+     */
+    public synchronized void stop() {
+        if(!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch(IOException e) {
+            lastError = e;
+        }
+        thread = null;
+        channel = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        long next = start;
+        while(running) {
+            buffer.clear();
+            encode(buffer, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            buffer.flip();
+            try {
+                if(channel.write(buffer) > 0) {
+                    framesSent++;
+                }
+            } catch(IOException e) {
+                lastError = e; // E.g. nothing listening yet
+            }
+            next += periodNanos;
+            long delay = next - System.nanoTime();
+            if(delay > 0) {
+                LockSupport.parkNanos(delay);
+            } else if(-delay > periodNanos) {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    ////////////////
+    // Statistics //
+    ////////////////
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * Retrieves the most recent send error (sending continues regardless).
+     * @return the last error, or null
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+}
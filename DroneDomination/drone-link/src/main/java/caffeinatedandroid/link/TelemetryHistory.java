@@ -0,0 +1,184 @@
+package caffeinatedandroid.link;
+
+import caffeinatedandroid.joystick.StampedRing;
+
+/**
+ * A fixed-size rolling history of telemetry samples, added by a single writer (e.g. the
+ * {@link TelemetryReceiver}'s thread) and readable from any thread without locks (e.g. by a view
+ * drawing the drone's position and recent trail).
+ * <p>
+ * Samples are stored in a {@link StampedRing} (as with JoystickRing), so adding or reading a sample
+ * never allocates, a reader never sees a torn sample, and a read of a sample that has since been
+ * overwritten simply fails.
+ * @author Christopher Bull
+ */
+public class TelemetryHistory {
+
+    /** Default capacity: 256 samples (about 5 seconds at 50Hz) */
+    public static final int CAPACITY_DEFAULT = 256;
+
+    // Fields per slot
+    private static final int FIELD_SEQUENCE = 0;
+    private static final int FIELD_X = 1;
+    private static final int FIELD_Y = 2;
+    private static final int FIELD_HEADING = 3;
+    private static final int FIELD_BATTERY = 4;
+    private static final int FIELD_LINK_QUALITY = 5;
+    private static final int FIELDS = 6;
+
+    // Samples, with their timestamps
+    private final StampedRing ring;
+
+    public TelemetryHistory() {
+        this(CAPACITY_DEFAULT);
+    }
+
+    /**
+     * Initialises an empty history.
+     * @param capacity Number of samples kept (a power of two)
+     */
+    public TelemetryHistory(int capacity) {
+        ring = new StampedRing(capacity, FIELDS);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Adds a received frame's state, replacing the oldest sample once full. Must only be called by a
+     * single writer thread.
+     * @param frame Reader wrapping a valid frame
+     */
+    public void add(TelemetryFrameReader frame) {
+        add(frame.getSequence(), frame.getTimestamp(), frame.getX(), frame.getY(), frame.getHeading(),
+                frame.getBattery(), frame.getLinkQuality());
+    }
+
+    /**
+     * Adds a sample, replacing the oldest sample once full. Must only be called by a single writer
+     * thread.
+     * @param sequence Frame sequence number
+     * @param timestamp Drone timestamp, in milliseconds
+     * @param x X position
+     * @param y Y position
+     * @param heading Heading in radians
+     * @param battery Battery level, in percent
+     * @param linkQuality Link quality, in percent
+     */
+    public void add(int sequence, long timestamp, float x, float y, float heading, int battery, int linkQuality) {
+        int slot = ring.beginWrite();
+        ring.setInt(slot, FIELD_SEQUENCE, sequence);
+        ring.setFloat(slot, FIELD_X, x);
+        ring.setFloat(slot, FIELD_Y, y);
+        ring.setFloat(slot, FIELD_HEADING, heading);
+        ring.setInt(slot, FIELD_BATTERY, battery);
+        ring.setInt(slot, FIELD_LINK_QUALITY, linkQuality);
+        ring.setLong(slot, timestamp);
+        ring.endWrite();
+    }
+
+    /**
+     * Reads the newest sample.
+     * @param sample Receives the sample
+     * @return true if read, false if the history is empty
+     */
+    public boolean readLatest(Sample sample) {
+        while(true) {
+            long latest = ring.getCount() - 1;
+            if(latest < 0) {
+                return false;
+            }
+            if(read(latest, sample)) {
+                return true;
+            }
+            // Overwritten whilst reading (at least a ring's worth of samples since); try again
+        }
+    }
+
+    /**
+     * Reads a sample, by its index: 0 is the first sample ever added, and {@link #getCount()} - 1 the
+     * newest. Only the last {@link #getCapacity()} samples are kept.
+     * @param index The sample's index
+     * @param sample Receives the sample
+     * @return true if read, false if the sample hasn't been added, or has been overwritten
+     */
+    public boolean read(long index, Sample sample) {
+        int slot = ring.beginRead(index);
+        if(slot < 0) {
+            return false;
+        }
+        sample.index = index;
+        sample.sequence = ring.getInt(slot, FIELD_SEQUENCE);
+        sample.x = ring.getFloat(slot, FIELD_X);
+        sample.y = ring.getFloat(slot, FIELD_Y);
+        sample.heading = ring.getFloat(slot, FIELD_HEADING);
+        sample.battery = ring.getInt(slot, FIELD_BATTERY);
+        sample.linkQuality = ring.getInt(slot, FIELD_LINK_QUALITY);
+        sample.timestamp = ring.getLong(slot);
+        return ring.endRead(index);
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getCapacity() {
+        return ring.getCapacity();
+    }
+
+    /**
+     * Retrieves the number of samples added (including any since overwritten). Allows readers to
+     * cheaply check for new samples.
+     * @return the count
+     */
+    public long getCount() {
+        return ring.getCount();
+    }
+
+    /**
+     * A reader-owned copy of a telemetry sample. Reuse instances to avoid allocation.
+     */
+    public static class Sample {
+        private long index;
+        private int sequence;
+        private long timestamp;
+        private float x;
+        private float y;
+        private float heading;
+        private int battery;
+        private int linkQuality;
+
+        public long getIndex() {
+            return index;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public float getX() {
+            return x;
+        }
+
+        public float getY() {
+            return y;
+        }
+
+        public float getHeading() {
+            return heading;
+        }
+
+        public int getBattery() {
+            return battery;
+        }
+
+        public int getLinkQuality() {
+            return linkQuality;
+        }
+    }
+}
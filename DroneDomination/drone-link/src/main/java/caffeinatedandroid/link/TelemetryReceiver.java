@@ -0,0 +1,54 @@
+package caffeinatedandroid.link;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the drone's telemetry frames over UDP, on its own thread, and adds them to a
+ * {@link TelemetryHistory}, from which any thread (e.g. the UI) can read the drone's latest state.
+ * <p>
+ * As with {@link ControlLinkReceiver}, frames are decoded in place (see {@link FrameReceiver}), so
+ * receiving allocates nothing per frame; invalid and stale frames are dropped and counted.
+ * @author Christopher Bull
+ */
+public class TelemetryReceiver extends FrameReceiver {
+
+    private final TelemetryHistory history;
+    private final TelemetryFrameReader reader = new TelemetryFrameReader();
+
+    /**
+     * Initialises the receiver, and binds its channel. Call {@link #start()} to begin receiving.
+     * @param bindAddress Local address to receive on (port 0 picks a free port)
+     * @param history History to add received samples to (this receiver must be its only writer)
+     * @throws IOException if the channel can't be opened or bound
+     */
+    public TelemetryReceiver(InetSocketAddress bindAddress, TelemetryHistory history) throws IOException {
+        super(bindAddress, "TelemetryReceiver");
+        if(history == null) {
+            close();
+            throw new IllegalArgumentException("history must not be null");
+        }
+        this.history = history;
+    }
+
+    public TelemetryHistory getHistory() {
+        return history;
+    }
+
+    @Override
+    protected boolean decode(ByteBuffer datagram) {
+        reader.wrap(datagram, 0);
+        return datagram.remaining() == TelemetryFrame.SIZE && reader.isValid();
+    }
+
+    @Override
+    protected int getSequence() {
+        return reader.getSequence();
+    }
+
+    @Override
+    protected void onFrame() {
+        history.add(reader);
+    }
+}
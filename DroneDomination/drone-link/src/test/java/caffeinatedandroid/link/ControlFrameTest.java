@@ -0,0 +1,102 @@
+package caffeinatedandroid.link;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import caffeinatedandroid.joystick.JoystickState;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for encoding/decoding control frames.
+ * @author Christopher Bull
+ */
+public class ControlFrameTest {
+
+    @Test
+    public void encode_decode_roundTrip() throws Exception {
+        ControlFrame frame = new ControlFrame();
+        frame.setStick(ControlFrame.STICK_LEFT, 0.5f, -0.25f);
+        frame.setStick(ControlFrame.STICK_RIGHT, -1f, 1f);
+        frame.setButtons(0b101);
+        frame.setSequence(65537);
+        frame.setTimestamp(123456789L);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.position(3);
+        frame.encode(buffer);
+        assertEquals(3 + ControlFrame.SIZE, buffer.position());
+
+        ControlFrameReader reader = new ControlFrameReader().wrap(buffer, 3);
+        assertTrue(reader.isValid());
+        assertEquals(1, reader.getSequence());
+        assertEquals(123456789L, reader.getTimestamp());
+        assertTrue(reader.isButtonPressed(0));
+        assertFalse(reader.isButtonPressed(1));
+        assertTrue(reader.isButtonPressed(2));
+        assertEquals(0.5f, reader.getStickX(ControlFrame.STICK_LEFT), 0.0001f);
+        assertEquals(-0.25f, reader.getStickY(ControlFrame.STICK_LEFT), 0.0001f);
+        assertEquals(-1f, reader.getStickX(ControlFrame.STICK_RIGHT), 0f);
+        assertEquals(1f, reader.getStickY(ControlFrame.STICK_RIGHT), 0f);
+    }
+
+    @Test
+    public void isValid_rejectsCorruptAndTruncatedFrames() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(ControlFrame.SIZE);
+        new ControlFrame().encode(buffer);
+        ControlFrameReader reader = new ControlFrameReader().wrap(buffer, 0);
+        assertTrue(reader.isValid());
+
+        buffer.put(10, (byte) (buffer.get(10) ^ 0x10));
+        assertFalse(reader.isValid());
+
+        buffer.put(10, (byte) (buffer.get(10) ^ 0x10));
+        buffer.limit(ControlFrame.SIZE - 1);
+        assertFalse(reader.isValid());
+    }
+
+    @Test
+    public void setStick_fromSnapshot() throws Exception {
+        JoystickState state = new JoystickState();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        ControlFrame frame = new ControlFrame();
+
+        state.publish(300f, 150f, 250f, 250f, 200f, 200f, true, 0);
+        frame.setStick(ControlFrame.STICK_LEFT, state.read(snapshot));
+        assertEquals(0.25f, frame.getStickX(ControlFrame.STICK_LEFT), 0.0001f);
+        assertEquals(0.5f, frame.getStickY(ControlFrame.STICK_LEFT), 0.0001f);
+
+        state.publish(300f, 150f, 250f, 250f, 200f, 200f, false, 0);
+        frame.setStick(ControlFrame.STICK_LEFT, state.read(snapshot));
+        assertEquals(0f, frame.getStickX(ControlFrame.STICK_LEFT), 0f);
+        assertEquals(0f, frame.getStickY(ControlFrame.STICK_LEFT), 0f);
+    }
+
+    @Test
+    public void setStick_fullDeflection() throws Exception {
+        JoystickState state = new JoystickState();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        ControlFrame frame = new ControlFrame();
+
+        // A stick kept within the border (clamped to two thirds of the radius), pushed fully right
+        state.publish(250f + 200f, 250f, 250f, 250f, 300f, 200f, true, 0);
+        frame.setStick(ControlFrame.STICK_LEFT, state.read(snapshot));
+        assertEquals(1f, frame.getStickX(ControlFrame.STICK_LEFT), 0f);
+        assertEquals(0f, frame.getStickY(ControlFrame.STICK_LEFT), 0f);
+
+        // ... and fully back
+        state.publish(250f, 250f + 200f, 250f, 250f, 300f, 200f, true, 0);
+        frame.setStick(ControlFrame.STICK_LEFT, state.read(snapshot));
+        assertEquals(0f, frame.getStickX(ControlFrame.STICK_LEFT), 0f);
+        assertEquals(-1f, frame.getStickY(ControlFrame.STICK_LEFT), 0f);
+    }
+
+    @Test
+    public void isSequenceNewer_wraps() throws Exception {
+        assertTrue(ControlFrame.isSequenceNewer(2, 1));
+        assertFalse(ControlFrame.isSequenceNewer(1, 2));
+        assertFalse(ControlFrame.isSequenceNewer(1, 1));
+        assertTrue(ControlFrame.isSequenceNewer(0, 65535));
+    }
+}
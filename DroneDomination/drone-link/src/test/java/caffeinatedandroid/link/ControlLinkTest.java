@@ -0,0 +1,72 @@
+package caffeinatedandroid.link;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import caffeinatedandroid.joystick.JoystickState;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streams control frames over the loopback interface, from a sender to a receiver.
+ * @author Christopher Bull
+ */
+public class ControlLinkTest {
+
+    private ControlLinkReceiver receiver;
+    private ControlLinkSender sender;
+    private final CountDownLatch framesLatch = new CountDownLatch(20);
+    private final AtomicInteger outOfOrder = new AtomicInteger();
+    private volatile float lastLeftX = Float.NaN;
+    private volatile int lastButtons = -1;
+
+    @Before
+    public void setUp() throws Exception {
+        receiver = new ControlLinkReceiver(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), new ControlFrameListener() {
+            private int previous = -1;
+
+            @Override
+            public void OnControlFrame(ControlFrameReader frame) {
+                if(previous >= 0 && !ControlFrame.isSequenceNewer(frame.getSequence(), previous)) {
+                    outOfOrder.incrementAndGet();
+                }
+                previous = frame.getSequence();
+                lastLeftX = frame.getStickX(ControlFrame.STICK_LEFT);
+                lastButtons = frame.getButtons();
+                framesLatch.countDown();
+            }
+        });
+        receiver.start();
+        sender = new ControlLinkSender(receiver.getLocalAddress(), 500);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sender.stop();
+        receiver.close();
+    }
+
+    @Test
+    public void streamsLatestStickState() throws Exception {
+        JoystickState left = new JoystickState();
+        left.publish(350f, 250f, 250f, 250f, 200f, 200f, true, 0);
+        sender.setStick(ControlFrame.STICK_LEFT, left);
+        sender.setButtons(0x3);
+        sender.start();
+
+        assertTrue(framesLatch.await(5, TimeUnit.SECONDS));
+        sender.stop();
+        assertEquals(0.5f, lastLeftX, 0.0001f);
+        assertEquals(0x3, lastButtons);
+        assertEquals(0, outOfOrder.get());
+        assertEquals(0, receiver.getFramesInvalid());
+        assertTrue(sender.getFramesSent() >= 20);
+    }
+}
@@ -0,0 +1,63 @@
+package caffeinatedandroid.link;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Simple micro-benchmarks for the drone link, run on a desktop JVM with
+ * {@code gradlew :drone-link:benchmark}. Results are printed as nanoseconds per operation.
+ * @author Christopher Bull
+ */
+public class LinkBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2000000;
+    private static final int ITERATIONS = 20000000;
+
+    // Accumulated results, so the JIT can't eliminate the benchmarked work
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        final ControlFrame frame = new ControlFrame();
+        final ControlFrameReader reader = new ControlFrameReader();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(ControlFrame.SIZE);
+
+        run("ControlFrame.encode", new Operation() {
+            @Override
+            public void run(int i) {
+                frame.setStick(ControlFrame.STICK_LEFT, (i & 1023) / 1023f, 0.5f);
+                frame.setSequence(i);
+                frame.setTimestamp(i);
+                buffer.clear();
+                frame.encode(buffer);
+            }
+        });
+        run("ControlFrameReader.decode", new Operation() {
+            @Override
+            public void run(int i) {
+                reader.wrap(buffer, 0);
+                if(reader.isValid()) {
+                    sink += reader.getSequence() + (long) reader.getStickX(ControlFrame.STICK_LEFT);
+                }
+            }
+        });
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Times an operation, after a warm-up, and prints the average time per operation.
+     */
+    static void run(String name, Operation operation) {
+        for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run(i);
+        }
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++) {
+            operation.run(i);
+        }
+        double nanosPerOp = (System.nanoTime() - start) / (double) ITERATIONS;
+        System.out.println(String.format("%-32s %8.1f ns/op", name, nanosPerOp));
+    }
+
+    interface Operation {
+        void run(int i);
+    }
+}
@@ -0,0 +1,126 @@
+package caffeinatedandroid.link;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for encoding/decoding telemetry frames, the rolling history, and receiving
+ * generated frames over the loopback interface.
+ * @author Christopher Bull
+ */
+public class TelemetryTest {
+
+    @Test
+    public void encode_decode_roundTrip() throws Exception {
+        TelemetryFrame frame = new TelemetryFrame();
+        frame.setSequence(65538);
+        frame.setTimestamp(987654321L);
+        frame.setPosition(123.5f, -42.25f);
+        frame.setHeading((float) (-Math.PI / 2));
+        frame.setBattery(150);
+        frame.setLinkQuality(87);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.position(5);
+        frame.encode(buffer);
+        assertEquals(5 + TelemetryFrame.SIZE, buffer.position());
+
+        TelemetryFrameReader reader = new TelemetryFrameReader().wrap(buffer, 5);
+        assertTrue(reader.isValid());
+        assertEquals(2, reader.getSequence());
+        assertEquals(987654321L, reader.getTimestamp());
+        assertEquals(123.5f, reader.getX(), 0f);
+        assertEquals(-42.25f, reader.getY(), 0f);
+        assertEquals(1.5 * Math.PI, reader.getHeading(), 0.0001);
+        assertEquals(100, reader.getBattery());
+        assertEquals(87, reader.getLinkQuality());
+
+        buffer.put(12, (byte) (buffer.get(12) ^ 0x01));
+        assertFalse(reader.isValid());
+    }
+
+    @Test
+    public void history_keepsNewestSamples() throws Exception {
+        TelemetryHistory history = new TelemetryHistory(4);
+        TelemetryHistory.Sample sample = new TelemetryHistory.Sample();
+        assertFalse(history.readLatest(sample));
+        for(int i = 0; i < 10; i++) {
+            history.add(i, i * 20L, i, -i, 0.5f, 100 - i, 90);
+        }
+        assertEquals(10, history.getCount());
+        assertTrue(history.readLatest(sample));
+        assertEquals(9, sample.getIndex());
+        assertEquals(9f, sample.getX(), 0f);
+        assertEquals(-9f, sample.getY(), 0f);
+        assertEquals(180L, sample.getTimestamp());
+        assertEquals(91, sample.getBattery());
+
+        assertTrue(history.read(6, sample));
+        assertEquals(6, sample.getSequence());
+        assertFalse(history.read(5, sample)); // Overwritten
+        assertFalse(history.read(10, sample)); // Not added yet
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void history_capacityNotPowerOfTwo() throws Exception {
+        new TelemetryHistory(50);
+    }
+
+    @Test
+    public void generator_fliesCircle() throws Exception {
+        TelemetryGenerator generator = new TelemetryGenerator(250f, 250f, 100f, 4000);
+        ByteBuffer buffer = ByteBuffer.allocate(TelemetryFrame.SIZE);
+        TelemetryFrameReader reader = new TelemetryFrameReader().wrap(buffer, 0);
+
+        generator.encode(buffer, 0);
+        assertTrue(reader.isValid());
+        assertEquals(250f, reader.getX(), 0.001f);
+        assertEquals(150f, reader.getY(), 0.001f); // Top
+        assertEquals(Math.PI / 2, reader.getHeading(), 0.001); // Heading right
+
+        buffer.clear();
+        generator.encode(buffer, 1000); // A quarter of the way round
+        assertEquals(1, reader.getSequence());
+        assertEquals(350f, reader.getX(), 0.001f);
+        assertEquals(250f, reader.getY(), 0.001f);
+        assertEquals(Math.PI, reader.getHeading(), 0.001); // Heading down
+    }
+
+    @Test
+    public void loopback_receivesIntoHistory() throws Exception {
+        TelemetryHistory history = new TelemetryHistory();
+        TelemetryReceiver receiver = new TelemetryReceiver(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), history);
+        TelemetryGenerator generator = new TelemetryGenerator(0f, 0f, 100f);
+        generator.setLinkQuality(75);
+        try {
+            receiver.start();
+            generator.start(receiver.getLocalAddress(), 200);
+            long deadline = System.currentTimeMillis() + 5000;
+            while(history.getCount() < 20 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            generator.stop();
+            receiver.close();
+        }
+        assertTrue(history.getCount() >= 20);
+        assertEquals(0, receiver.getFramesInvalid());
+
+        TelemetryHistory.Sample sample = new TelemetryHistory.Sample();
+        assertTrue(history.readLatest(sample));
+        assertEquals(100f, Math.hypot(sample.getX(), sample.getY()), 0.01f); // On the circle
+        assertEquals(75, sample.getLinkQuality());
+        // In order
+        TelemetryHistory.Sample previous = new TelemetryHistory.Sample();
+        for(long i = history.getCount() - 1; i > history.getCount() - 10; i--) {
+            assertTrue(history.read(i, sample));
+            assertTrue(history.read(i - 1, previous));
+            assertTrue(ControlFrame.isSequenceNewer(sample.getSequence(), previous.getSequence()));
+        }
+    }
+}
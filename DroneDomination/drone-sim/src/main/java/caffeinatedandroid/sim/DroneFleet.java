@@ -0,0 +1,114 @@
+package caffeinatedandroid.sim;
+
+/**
+ * The state of a fleet of simulated drones, stored as a structure of arrays: one primitive array per
+ * property, indexed by drone. Stepping the fleet then streams through a few contiguous arrays (cache
+ * and prefetch friendly), rather than chasing a reference per drone, and the fleet allocates nothing
+ * after construction.
+ * <p>
+ * Units: positions in world units (e.g. pixels), velocities in units per second, headings in radians
+ * (0 is 'up' (-Y), increasing clockwise), and inertia as a response time in seconds.
+ * <p>
+ * Not thread-safe; see {@link FleetSimulation}.
+ * @author Christopher Bull
+ */
+public class DroneFleet {
+
+    private final int capacity;
+    private int count = 0;
+
+    // Package-private, so the simulation can step the arrays directly
+    final float[] x;
+    final float[] y;
+    final float[] vx;
+    final float[] vy;
+    final float[] heading;
+    final float[] inertia;
+
+    /**
+     * Initialises an empty fleet.
+     * @param capacity Maximum number of drones
+     */
+    public DroneFleet(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        heading = new float[capacity];
+        inertia = new float[capacity];
+    }
+
+    /**
+     * Adds a (stationary) drone to the fleet.
+     * @param x X position
+     * @param y Y position
+     * @param heading Heading in radians (0 is up)
+     * @param inertia Response time in seconds: how quickly the drone reaches a commanded velocity
+     *                (e.g. 0.25); 0 responds instantly
+     * @return the drone's index
+     * @throws IllegalStateException if the fleet is full
+     */
+    public int add(float x, float y, float heading, float inertia) {
+        if(count == capacity) {
+            throw new IllegalStateException("Fleet is full (capacity " + capacity + ")");
+        }
+        if(inertia < 0f) {
+            throw new IllegalArgumentException("inertia must not be negative");
+        }
+        int i = count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        vx[i] = 0f;
+        vy[i] = 0f;
+        this.heading[i] = heading;
+        this.inertia[i] = inertia;
+        return i;
+    }
+
+    /**
+     * Removes all drones.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public float getX(int drone) {
+        return x[drone];
+    }
+
+    public float getY(int drone) {
+        return y[drone];
+    }
+
+    public float getVelocityX(int drone) {
+        return vx[drone];
+    }
+
+    public float getVelocityY(int drone) {
+        return vy[drone];
+    }
+
+    public float getHeading(int drone) {
+        return heading[drone];
+    }
+
+    public float getInertia(int drone) {
+        return inertia[drone];
+    }
+}
@@ -0,0 +1,360 @@
+package caffeinatedandroid.sim;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import caffeinatedandroid.joystick.JoystickState;
+import caffeinatedandroid.joystick.TrigTable;
+
+/**
+ * Steps a {@link DroneFleet} with a fixed timestep, from a fleet-wide (swarm) command: a movement
+ * vector relative to each drone's heading, and a yaw rate, e.g. from a pair of joysticks (see
+ * {@link #setCommand(JoystickState, JoystickState)}). Each drone eases towards its commanded
+ * velocity according to its inertia, and positions wrap around the world bounds (if set).
+ * <p>
+ * Large fleets are stepped in parallel: the fleet is split into one contiguous slice per thread, and
+ * each slice is stepped by a persistent worker thread (the calling thread steps the first). Every
+ * drone is independent within a step, so results are identical to stepping serially. Stepping
+ * allocates nothing, serial or parallel.
+ * <p>
+ * Not thread-safe: call from a single simulation thread, and {@link #close()} when done.
+ * @author Christopher Bull
+ */
+public class FleetSimulation {
+
+    /** Default timestep: 120Hz */
+    public static final long STEP_NANOS_DEFAULT = TimeUnit.SECONDS.toNanos(1) / 120;
+    /** Default fleet size from which steps run in parallel */
+    public static final int PARALLEL_THRESHOLD_DEFAULT = 4096;
+    /** Default speed at full stick deflection, in world units per second */
+    public static final float MAX_SPEED_DEFAULT = 600f;
+    /** Default yaw rate at full stick deflection, in radians per second */
+    public static final float MAX_YAW_RATE_DEFAULT = (float) Math.PI;
+    // Maximum time simulated per advance, so a stall doesn't cause a burst of catch-up steps
+    private static final long MAX_ADVANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final float PI = (float) Math.PI;
+    private static final float TWO_PI = (float) (Math.PI * 2);
+
+    private final DroneFleet fleet;
+    private final long stepNanos;
+    private final float dt;
+    private final TrigTable trig = TrigTable.DEFAULT;
+    private long accumulator = 0;
+    private long steps = 0;
+
+    // Parameters
+    private float maxSpeed = MAX_SPEED_DEFAULT;
+    private float maxYawRate = MAX_YAW_RATE_DEFAULT;
+    private float worldWidth = 0f;
+    private float worldHeight = 0f;
+    private int parallelThreshold = PARALLEL_THRESHOLD_DEFAULT;
+
+    // Command: stick X (right), stick Y (forward), yaw (clockwise); each -1.0 to 1.0
+    private float command_x = 0f;
+    private float command_y = 0f;
+    private float command_yaw = 0f;
+    private final JoystickState.Snapshot moveSnapshot = new JoystickState.Snapshot();
+    private final JoystickState.Snapshot turnSnapshot = new JoystickState.Snapshot();
+
+    // Parallel stepping. Workers wait for the generation to change, step their slice, and the last
+    // to finish wakes the caller. Fields written before the (volatile) generation are visible to
+    // workers, and workers' writes are visible to the caller after the pending count reaches 0.
+    private final Worker[] workers;
+    private final int slices;
+    private volatile int generation = 0;
+    private volatile boolean closed = false;
+    private volatile Thread caller = null;
+    private final AtomicInteger pending = new AtomicInteger();
+    private int stepCount = 0;
+
+    //////////////////
+    // Constructors //
+    //////////////////
+
+    /**
+     * Initialises the simulation with the default timestep, parallelised across all available
+     * processors.
+     * @param fleet The fleet to simulate
+     */
+    public FleetSimulation(DroneFleet fleet) {
+        this(fleet, STEP_NANOS_DEFAULT, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initialises the simulation.
+     * @param fleet The fleet to simulate
+     * @param stepNanos The fixed timestep, in nanoseconds
+     * @param threads Number of threads to step large fleets with (including the calling thread);
+     *                1 to always step serially
+     */
+    public FleetSimulation(DroneFleet fleet, long stepNanos, int threads) {
+        if(stepNanos <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("stepNanos and threads must be positive");
+        }
+        this.fleet = fleet;
+        this.stepNanos = stepNanos;
+        dt = stepNanos / (float) TimeUnit.SECONDS.toNanos(1);
+        slices = threads;
+        workers = new Worker[threads - 1];
+        for(int w = 0; w < workers.length; w++) {
+            workers[w] = new Worker(w + 1);
+            workers[w].start();
+        }
+    }
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * Sets the swarm command.
+     * @param x Movement to the drones' right, -1.0 to 1.0
+     * @param y Movement forwards, -1.0 to 1.0
+     * @param yaw Yaw rate, clockwise, -1.0 to 1.0
+     */
+    public void setCommand(float x, float y, float yaw) {
+        command_x = clamp(x);
+        command_y = clamp(y);
+        command_yaw = clamp(yaw);
+    }
+
+    /**
+     * Sets the swarm command from the latest state of a pair of joysticks: the move stick's
+     * position sets the movement, and the turn stick's X position sets the yaw rate. Released
+     * sticks are centred.
+     * @param move Joystick to move the swarm with, or null
+     * @param turn Joystick to turn the swarm with, or null
+     */
+    public void setCommand(JoystickState move, JoystickState turn) {
+        float x = 0f;
+        float y = 0f;
+        float yaw = 0f;
+        if(move != null && move.read(moveSnapshot).isTouching() && moveSnapshot.getRadius() > 0) {
+            x = (moveSnapshot.getTouchX() - moveSnapshot.getCenterX()) / moveSnapshot.getRadius();
+            y = (moveSnapshot.getCenterY() - moveSnapshot.getTouchY()) / moveSnapshot.getRadius();
+        }
+        if(turn != null && turn.read(turnSnapshot).isTouching() && turnSnapshot.getRadius() > 0) {
+            yaw = (turnSnapshot.getTouchX() - turnSnapshot.getCenterX()) / turnSnapshot.getRadius();
+        }
+        setCommand(x, y, yaw);
+    }
+
+    public void setMaxSpeed(float maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    public void setMaxYawRate(float maxYawRate) {
+        this.maxYawRate = maxYawRate;
+    }
+
+    /**
+     * Sets the world bounds; drones leaving one edge re-enter at the opposite edge.
+     * @param width World width, or 0 for unbounded
+     * @param height World height, or 0 for unbounded
+     */
+    public void setWorldBounds(float width, float height) {
+        worldWidth = width;
+        worldHeight = height;
+    }
+
+    /**
+     * Sets the fleet size from which steps run in parallel (smaller fleets aren't worth the
+     * hand-off to the worker threads).
+     * @param threshold Minimum number of drones
+     */
+    public void setParallelThreshold(int threshold) {
+        parallelThreshold = threshold;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Advances the simulation by real (elapsed) time, in as many fixed steps as are due. Leftover
+     * time is carried over to the next call.
+     * @param elapsedNanos Time elapsed since the last call
+     * @return the number of steps taken
+     */
+    public int advance(long elapsedNanos) {
+        accumulator += Math.min(elapsedNanos, MAX_ADVANCE_NANOS);
+        int taken = 0;
+        while(accumulator >= stepNanos) {
+            step();
+            accumulator -= stepNanos;
+            taken++;
+        }
+        return taken;
+    }
+
+    /**
+     * Retrieves how far the simulation is between its last step and the next, for interpolated
+     * rendering.
+     * @return fraction of a step, 0.0 to 1.0
+     */
+    public float getInterpolation() {
+        return accumulator / (float) stepNanos;
+    }
+
+    /**
+     * Advances the simulation by one fixed step.
+     */
+    public void step() {
+        int count = fleet.getCount();
+        if(workers.length == 0 || closed || count < parallelThreshold) {
+            stepRange(0, count);
+        } else {
+            stepParallel(count);
+        }
+        steps++;
+    }
+
+    private void stepParallel(int count) {
+        stepCount = count;
+        caller = Thread.currentThread();
+        pending.set(workers.length);
+        generation++; // Publishes the step to the workers
+        for(Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        stepRange(0, count / slices);
+        while(pending.get() != 0) {
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Steps a slice of the fleet.
+     * @param from First drone (inclusive)
+     * @param to Last drone (exclusive)
+     */
+    private void stepRange(int from, int to) {
+        final float[] x = fleet.x;
+        final float[] y = fleet.y;
+        final float[] vx = fleet.vx;
+        final float[] vy = fleet.vy;
+        final float[] heading = fleet.heading;
+        final float[] inertia = fleet.inertia;
+        final float dt = this.dt;
+        final float moveX = command_x * maxSpeed;
+        final float moveY = command_y * maxSpeed;
+        final float turn = command_yaw * maxYawRate * dt;
+        final float width = worldWidth;
+        final float height = worldHeight;
+
+        for(int i = from; i < to; i++) {
+            // Heading, kept within -pi to pi
+            float h = heading[i] + turn;
+            if(h > PI) {
+                h -= TWO_PI;
+            } else if(h < -PI) {
+                h += TWO_PI;
+            }
+            heading[i] = h;
+
+            // Commanded velocity, rotated from the drone's frame (right, forward) to the world's
+            float s = trig.sin(h);
+            float c = trig.cos(h);
+            float targetX = moveX * c + moveY * s;
+            float targetY = moveX * s - moveY * c;
+
+            // Ease towards it (first-order response; stable for any inertia and timestep)
+            float k = dt / (inertia[i] + dt);
+            float velX = vx[i] + (targetX - vx[i]) * k;
+            float velY = vy[i] + (targetY - vy[i]) * k;
+            vx[i] = velX;
+            vy[i] = velY;
+
+            float px = x[i] + velX * dt;
+            float py = y[i] + velY * dt;
+            if(width > 0f) {
+                if(px < 0f) {
+                    px += width;
+                } else if(px >= width) {
+                    px -= width;
+                }
+            }
+            if(height > 0f) {
+                if(py < 0f) {
+                    py += height;
+                } else if(py >= height) {
+                    py -= height;
+                }
+            }
+            x[i] = px;
+            y[i] = py;
+        }
+    }
+
+    /**
+     * Stops the worker threads. The simulation may still be stepped serially afterwards.
+     */
+    public void close() {
+        closed = true;
+        for(Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public DroneFleet getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Retrieves the number of steps taken so far.
+     * @return the step count
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public int getThreads() {
+        return slices;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(-1f, Math.min(1f, value));
+    }
+
+    /**
+     * Steps one slice of the fleet on each parallel step.
+     */
+    private final class Worker extends Thread {
+        private final int slice;
+
+        Worker(int slice) {
+            super("FleetSimulation worker " + slice);
+            this.slice = slice;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int seen = 0; // (Not read from generation: a step may already have been published)
+            while(true) {
+                while(generation == seen && !closed) {
+                    LockSupport.park(this);
+                }
+                if(closed) {
+                    return;
+                }
+                seen = generation;
+                int count = stepCount;
+                stepRange((int) ((long) count * slice / slices), (int) ((long) count * (slice + 1) / slices));
+                if(pending.decrementAndGet() == 0) {
+                    LockSupport.unpark(caller);
+                }
+            }
+        }
+    }
+}
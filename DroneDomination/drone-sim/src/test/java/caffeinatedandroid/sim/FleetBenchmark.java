@@ -0,0 +1,51 @@
+package caffeinatedandroid.sim;
+
+/**
+ * Benchmarks fleet step time against fleet size (serial and parallel), run on a desktop JVM with
+ * {@code gradlew :drone-sim:benchmark}. Results are printed as microseconds per step, and
+ * nanoseconds per drone per step.
+ * @author Christopher Bull
+ */
+public class FleetBenchmark {
+
+    private static final int[] FLEET_SIZES = {100, 1000, 10000, 100000, 1000000};
+    private static final long WARMUP_DRONE_STEPS = 50000000L;
+    private static final long DRONE_STEPS = 200000000L;
+
+    public static void main(String[] args) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println(String.format("%10s %8s %14s %14s", "drones", "threads", "us/step", "ns/drone"));
+        for(int size : FLEET_SIZES) {
+            run(size, 1);
+            if(processors > 1) {
+                run(size, processors);
+            }
+        }
+    }
+
+    /**
+     * Times stepping a fleet, after a warm-up, and prints the average step time.
+     */
+    static void run(int size, int threads) {
+        DroneFleet fleet = FleetSimulationTest.createFleet(size);
+        FleetSimulation simulation = new FleetSimulation(fleet, FleetSimulation.STEP_NANOS_DEFAULT, threads);
+        simulation.setParallelThreshold(0); // Measure the parallel hand-off at every size
+        simulation.setWorldBounds(1920f, 1080f);
+        simulation.setCommand(0.3f, 0.8f, -0.2f);
+        try {
+            long warmup = Math.max(1, WARMUP_DRONE_STEPS / size);
+            for(long i = 0; i < warmup; i++) {
+                simulation.step();
+            }
+            long steps = Math.max(1, DRONE_STEPS / size);
+            long start = System.nanoTime();
+            for(long i = 0; i < steps; i++) {
+                simulation.step();
+            }
+            double nanosPerStep = (System.nanoTime() - start) / (double) steps;
+            System.out.println(String.format("%10d %8d %14.1f %14.2f", size, threads, nanosPerStep / 1000, nanosPerStep / size));
+        } finally {
+            simulation.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package caffeinatedandroid.sim;
+
+import org.junit.After;
+import org.junit.Test;
+
+import caffeinatedandroid.joystick.JoystickState;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the fleet simulation: response to commands, fixed timestep, and parallel
+ * stepping.
+ * @author Christopher Bull
+ */
+public class FleetSimulationTest {
+
+    private static final long STEP = FleetSimulation.STEP_NANOS_DEFAULT;
+
+    private FleetSimulation simulation;
+
+    @After
+    public void tearDown() throws Exception {
+        if(simulation != null) {
+            simulation.close();
+        }
+    }
+
+    @Test
+    public void forwardCommand_movesAlongHeading() throws Exception {
+        DroneFleet fleet = new DroneFleet(2);
+        fleet.add(100f, 100f, 0f, 0f); // Facing up, no inertia
+        fleet.add(100f, 100f, (float) (Math.PI / 2), 0f); // Facing right
+        simulation = new FleetSimulation(fleet, STEP, 1);
+        simulation.setCommand(0f, 1f, 0f);
+        for(int i = 0; i < 120; i++) {
+            simulation.step();
+        }
+        // One second at full speed
+        assertEquals(100f, fleet.getX(0), 0.1f);
+        assertEquals(100f - FleetSimulation.MAX_SPEED_DEFAULT, fleet.getY(0), 0.1f);
+        assertEquals(100f + FleetSimulation.MAX_SPEED_DEFAULT, fleet.getX(1), 0.1f);
+        assertEquals(100f, fleet.getY(1), 0.1f);
+    }
+
+    @Test
+    public void inertia_easesTowardsCommandedVelocity() throws Exception {
+        DroneFleet fleet = new DroneFleet(1);
+        fleet.add(0f, 0f, (float) (Math.PI / 2), 0.5f);
+        simulation = new FleetSimulation(fleet, STEP, 1);
+        simulation.setCommand(0f, 1f, 0f);
+        simulation.step();
+        float first = fleet.getVelocityX(0);
+        assertTrue(first > 0f && first < FleetSimulation.MAX_SPEED_DEFAULT * 0.05f);
+        for(int i = 0; i < 600; i++) {
+            simulation.step();
+        }
+        assertEquals(FleetSimulation.MAX_SPEED_DEFAULT, fleet.getVelocityX(0), 1f);
+    }
+
+    @Test
+    public void yaw_turnsAndWrapsHeading() throws Exception {
+        DroneFleet fleet = new DroneFleet(1);
+        fleet.add(0f, 0f, 0f, 0f);
+        simulation = new FleetSimulation(fleet, STEP, 1);
+        simulation.setCommand(0f, 0f, 1f);
+        for(int i = 0; i < 180; i++) { // 1.5 seconds at pi rad/s
+            simulation.step();
+        }
+        assertEquals(-Math.PI / 2, fleet.getHeading(0), 0.001);
+    }
+
+    @Test
+    public void worldBounds_wrapPositions() throws Exception {
+        DroneFleet fleet = new DroneFleet(1);
+        fleet.add(95f, 50f, (float) (Math.PI / 2), 0f);
+        simulation = new FleetSimulation(fleet, STEP, 1);
+        simulation.setWorldBounds(100f, 100f);
+        simulation.setCommand(0f, 1f, 0f);
+        simulation.step(); // 5 units per step
+        simulation.step();
+        assertEquals(5f, fleet.getX(0), 0.01f);
+    }
+
+    @Test
+    public void advance_takesFixedStepsAndCarriesRemainder() throws Exception {
+        simulation = new FleetSimulation(new DroneFleet(1), STEP, 1);
+        assertEquals(2, simulation.advance(STEP * 2 + STEP / 2));
+        assertEquals(0.5f, simulation.getInterpolation(), 0.001f);
+        assertEquals(1, simulation.advance(STEP - STEP / 2));
+        assertEquals(3, simulation.getSteps());
+    }
+
+    @Test
+    public void joystickCommand_usesStickOffsets() throws Exception {
+        DroneFleet fleet = new DroneFleet(1);
+        fleet.add(0f, 0f, 0f, 0f);
+        simulation = new FleetSimulation(fleet, STEP, 1);
+        JoystickState move = new JoystickState();
+        move.publish(250f, 150f, 250f, 250f, 200f, 200f, true, 0); // Half forward
+        simulation.setCommand(move, null);
+        simulation.step();
+        assertEquals(-FleetSimulation.MAX_SPEED_DEFAULT / 2, fleet.getVelocityY(0), 0.01f);
+    }
+
+    @Test
+    public void parallel_matchesSerial() throws Exception {
+        DroneFleet serialFleet = createFleet(10007);
+        DroneFleet parallelFleet = createFleet(10007);
+        FleetSimulation serial = new FleetSimulation(serialFleet, STEP, 1);
+        simulation = new FleetSimulation(parallelFleet, STEP, 4);
+        simulation.setParallelThreshold(1000);
+        for(FleetSimulation sim : new FleetSimulation[] {serial, simulation}) {
+            sim.setWorldBounds(1920f, 1080f);
+            sim.setCommand(0.3f, 0.8f, -0.2f);
+        }
+        for(int i = 0; i < 200; i++) {
+            serial.step();
+            simulation.step();
+        }
+        for(int i = 0; i < serialFleet.getCount(); i++) {
+            assertEquals(serialFleet.getX(i), parallelFleet.getX(i), 0f);
+            assertEquals(serialFleet.getY(i), parallelFleet.getY(i), 0f);
+            assertEquals(serialFleet.getHeading(i), parallelFleet.getHeading(i), 0f);
+        }
+    }
+
+    static DroneFleet createFleet(int count) {
+        DroneFleet fleet = new DroneFleet(count);
+        for(int i = 0; i < count; i++) {
+            fleet.add((i * 37) % 1920, (i * 53) % 1080, (i % 628) / 100f - 3.14f, (i % 10) / 20f);
+        }
+        return fleet;
+    }
+}
@@ -0,0 +1,208 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Chooses a joystick's poll interval from how the stick is moving: the fast interval whilst it moves
+ * quickly, the medium and slow intervals as it slows, and a keep-alive interval once it has been held
+ * still for a while (so a resting thumb costs a few reports per second, rather than one per frame).
+ * <p>
+ * Only a centred stick (within the idle dead-zone) slows down: a stick held deflected is still
+ * asking for movement, and listeners that act per report (e.g. moving a step per event) would slow
+ * with it, so it's polled at the fast interval however still it's held.
+ * <p>
+ * The interval speeds up immediately, and slows by one step per poll. When the stick moves away from
+ * where it was last polled whilst polling slowly, {@link #onTouch(float, float, long)} asks for an
+ * immediate poll, so slowing down never delays a movement.
+ * <p>
+ * Positions are the stick's offset from its centre, normalised by its radius (so velocities are in
+ * radii per second, independent of the joystick's size). Not thread-safe; use from a single thread.
+ * @author Christopher Bull
+ */
+public class AdaptivePollPolicy {
+
+    /** Default fast interval: 17 milliseconds (~60Hz) */
+    public static final long INTERVAL_FAST_DEFAULT = 17;
+    /** Default medium interval: 33 milliseconds (~30Hz) */
+    public static final long INTERVAL_MEDIUM_DEFAULT = 33;
+    /** Default slow interval: 100 milliseconds (10Hz) */
+    public static final long INTERVAL_SLOW_DEFAULT = 100;
+    /** Default keep-alive interval, whilst held still: 500 milliseconds */
+    public static final long INTERVAL_KEEP_ALIVE_DEFAULT = 500;
+    /** Default velocity from which to poll at the fast interval: 1 radius per second */
+    public static final float VELOCITY_FAST_DEFAULT = 1f;
+    /** Default velocity from which to poll at the medium interval: 0.25 radii per second */
+    public static final float VELOCITY_MEDIUM_DEFAULT = 0.25f;
+    /** Default time held still before polling at the keep-alive interval: 300 milliseconds */
+    public static final long IDLE_DELAY_DEFAULT = 300;
+    /** Default movement under which the stick is considered still: 1% of the radius */
+    public static final float STILL_TOLERANCE_DEFAULT = 0.01f;
+    /** Default deflection beyond which the stick is polled at the fast interval: 10% of the radius */
+    public static final float IDLE_DEAD_ZONE_DEFAULT = 0.1f;
+
+    private static final int LEVEL_FAST = 0;
+    private static final int LEVEL_MEDIUM = 1;
+    private static final int LEVEL_SLOW = 2;
+    private static final int LEVEL_KEEP_ALIVE = 3;
+
+    // Interval per level
+    private final long[] intervals = new long[4];
+    private float velocityFast = VELOCITY_FAST_DEFAULT;
+    private float velocityMedium = VELOCITY_MEDIUM_DEFAULT;
+    private long idleDelay = IDLE_DELAY_DEFAULT;
+    private float stillTolerance = STILL_TOLERANCE_DEFAULT;
+    private float idleDeadZone = IDLE_DEAD_ZONE_DEFAULT;
+
+    // State
+    private int level = LEVEL_FAST;
+    private boolean started = false;
+    private float polled_x = 0f;
+    private float polled_y = 0f;
+    private long polled_time = 0;
+    private long stillSince = 0;
+
+    //////////////////
+    // Constructors //
+    //////////////////
+
+    public AdaptivePollPolicy() {
+        this(INTERVAL_FAST_DEFAULT, INTERVAL_MEDIUM_DEFAULT, INTERVAL_SLOW_DEFAULT, INTERVAL_KEEP_ALIVE_DEFAULT);
+    }
+
+    /**
+     * Initialises the policy.
+     * @param fast Interval whilst moving quickly, in milliseconds
+     * @param medium Interval whilst moving moderately, in milliseconds
+     * @param slow Interval whilst moving slowly, in milliseconds
+     * @param keepAlive Interval whilst held still, in milliseconds
+     */
+    public AdaptivePollPolicy(long fast, long medium, long slow, long keepAlive) {
+        if(fast <= 0 || medium < fast || slow < medium || keepAlive < slow) {
+            throw new IllegalArgumentException("Intervals must be positive and in increasing order");
+        }
+        intervals[LEVEL_FAST] = fast;
+        intervals[LEVEL_MEDIUM] = medium;
+        intervals[LEVEL_SLOW] = slow;
+        intervals[LEVEL_KEEP_ALIVE] = keepAlive;
+    }
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * Sets the velocities from which to poll at the fast and medium intervals (slower movement polls
+     * at the slow interval).
+     * @param fast Velocity, in radii per second
+     * @param medium Velocity, in radii per second
+     */
+    public void setVelocityThresholds(float fast, float medium) {
+        velocityFast = fast;
+        velocityMedium = medium;
+    }
+
+    /**
+     * Sets how long the stick must be held still before polling at the keep-alive interval.
+     * @param idleDelay Time, in milliseconds
+     */
+    public void setIdleDelay(long idleDelay) {
+        this.idleDelay = idleDelay;
+    }
+
+    /**
+     * Sets the movement under which the stick is considered still (e.g. to ignore digitizer noise).
+     * @param stillTolerance Distance, as a fraction of the radius
+     */
+    public void setStillTolerance(float stillTolerance) {
+        this.stillTolerance = stillTolerance;
+    }
+
+    /**
+     * Sets the deflection within which the stick may slow down; beyond it, the stick is polled at the
+     * fast interval, however still it's held (see the class description).
+     * @param idleDeadZone Distance from the centre, as a fraction of the radius (1 to slow down
+     *                     wherever the stick is held)
+     */
+    public void setIdleDeadZone(float idleDeadZone) {
+        this.idleDeadZone = idleDeadZone;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Restarts at the fast interval (e.g. on touch down).
+     */
+    public void reset() {
+        level = LEVEL_FAST;
+        started = false;
+    }
+
+    /**
+     * Updates the policy at a poll.
+     * @param x Stick X offset from the centre, in radii
+     * @param y Stick Y offset from the centre, in radii
+     * @param timeMillis Time of the poll, in milliseconds
+     * @return the interval until the next poll, in milliseconds
+     */
+    public long onPoll(float x, float y, long timeMillis) {
+        if(!started) {
+            started = true;
+            stillSince = timeMillis;
+        } else {
+            float distance = (float) JoystickMath.calculateDistance(polled_x, polled_y, x, y);
+            long elapsed = timeMillis - polled_time;
+            float velocity = elapsed > 0 ? distance * 1000f / elapsed : 0f;
+            boolean deflected = x * x + y * y > idleDeadZone * idleDeadZone;
+            if(distance > stillTolerance || deflected) {
+                stillSince = timeMillis;
+            }
+
+            int target;
+            if(velocity >= velocityFast || deflected) {
+                target = LEVEL_FAST;
+            } else if(velocity >= velocityMedium) {
+                target = LEVEL_MEDIUM;
+            } else if(timeMillis - stillSince >= idleDelay) {
+                target = LEVEL_KEEP_ALIVE;
+            } else {
+                target = LEVEL_SLOW;
+            }
+            // Speed up immediately; slow down a step at a time
+            level = target < level ? target : Math.min(target, level + 1);
+        }
+        polled_x = x;
+        polled_y = y;
+        polled_time = timeMillis;
+        return intervals[level];
+    }
+
+    /**
+     * Checks a touch sample between polls: if the stick has moved away from where it was last polled
+     * whilst polling slower than the fast interval, the policy returns to the fast interval.
+     * @param x Stick X offset from the centre, in radii
+     * @param y Stick Y offset from the centre, in radii
+     * @param timeMillis Time of the sample, in milliseconds
+     * @return true if the joystick should poll now, rather than wait for the current interval
+     */
+    public boolean onTouch(float x, float y, long timeMillis) {
+        if(!started || level == LEVEL_FAST
+                || JoystickMath.calculateDistance(polled_x, polled_y, x, y) <= stillTolerance) {
+            return false;
+        }
+        level = LEVEL_FAST;
+        stillSince = timeMillis;
+        return true;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * Retrieves the current poll interval.
+     * @return the interval, in milliseconds
+     */
+    public long getInterval() {
+        return intervals[level];
+    }
+}
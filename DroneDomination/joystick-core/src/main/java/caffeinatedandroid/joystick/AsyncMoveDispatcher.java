@@ -0,0 +1,118 @@
+package caffeinatedandroid.joystick;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers move events to a listener on another thread (via an {@link Executor}, e.g. a single
+ * thread, or a Handler's thread), so expensive listener work (transport, logging, control logic)
+ * doesn't run on the input thread.
+ * <p>
+ * Queueing is bounded and latest-value-wins: at most one delivery is queued at a time, and if the
+ * listener falls behind, only the newest event is delivered (superseded events are counted; see
+ * {@link #getSupersededCount()}). Events are handed over through three preallocated events (a triple
+ * buffer) without locking or allocating, so a slow listener never blocks the input thread.
+ * <p>
+ * {@link #OnJoystickMove(JoystickMoveEvent)} must be called from a single (input) thread. The
+ * listener receives a recycled event, owned by the dispatcher: copy it to keep it beyond the
+ * callback. Its derived values (angle, distance) are calculated lazily on the listener's thread.
+ * @author Christopher Bull
+ */
+public class AsyncMoveDispatcher implements JoystickMoveListener {
+
+    private final Executor executor;
+    private final JoystickMoveListener listener;
+
+    // Triple buffer: the input thread writes 'back', the listener thread reads 'front', and the
+    // latest event is exchanged through 'middle'
+    private Slot back = new Slot();
+    private final AtomicReference<Slot> middle = new AtomicReference<>(new Slot());
+    private Slot front = new Slot();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile long superseded = 0;
+    private volatile long delivered = 0;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            // Allow the next event to schedule another delivery before taking this one, so none is missed
+            scheduled.set(false);
+            if(!middle.get().fresh) {
+                return; // Already delivered by an earlier run
+            }
+            front.fresh = false;
+            front = middle.getAndSet(front);
+            listener.OnJoystickMove(front.event);
+            delivered++;
+        }
+    };
+
+    /**
+     * Initialises the dispatcher.
+     * @param executor Runs deliveries (e.g. on a HandlerThread, or a single-thread executor); should
+     *                 run them in order, one at a time
+     * @param listener Listener to deliver events to
+     */
+    public AsyncMoveDispatcher(Executor executor, JoystickMoveListener listener) {
+        if(executor == null || listener == null) {
+            throw new IllegalArgumentException("executor and listener must not be null");
+        }
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Queues an event for delivery, replacing any event still waiting to be delivered.
+     * @param event The event (copied, so may be recycled afterwards)
+     */
+    @Override
+    public void OnJoystickMove(JoystickMoveEvent event) {
+        back.event.set(event);
+        back.fresh = true;
+        back = middle.getAndSet(back);
+        if(back.fresh) {
+            superseded++; // Never delivered
+        }
+        if(scheduled.compareAndSet(false, true)) {
+            executor.execute(drain);
+        }
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * Retrieves the number of events replaced by a newer event before they could be delivered.
+     * @return the count
+     */
+    public long getSupersededCount() {
+        return superseded;
+    }
+
+    /**
+     * Retrieves the number of events delivered to the listener.
+     * @return the count
+     */
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    public JoystickMoveListener getListener() {
+        return listener;
+    }
+
+    /**
+     * An event, and whether it is waiting to be delivered.
+     */
+    private static final class Slot {
+        final JoystickMoveEvent event = new JoystickMoveEvent();
+        volatile boolean fresh = false;
+    }
+}
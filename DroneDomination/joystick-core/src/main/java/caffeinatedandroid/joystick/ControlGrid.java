@@ -0,0 +1,191 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * A uniform-grid spatial index of on-screen controls' touch regions, for hit-testing many controls
+ * in constant time: the area is divided into a grid of square cells, and each cell lists the
+ * controls whose regions overlap it. Finding the control under a touch then only tests the few
+ * controls in one cell, rather than every control.
+ * <p>
+ * Controls are identified by the order they were added, which is also their z-order: where regions
+ * overlap, the last added (top-most) wins. Add every control, then {@link #build(int, int)} the
+ * index (e.g. on each layout change); building reuses the index's arrays where possible, and
+ * {@link #find(float, float)} never allocates. Not thread-safe.
+ * @author Christopher Bull
+ */
+public class ControlGrid {
+
+    /** Default cell size: 64 pixels (a little under a fingertip's width on most screens) */
+    public static final int CELL_SIZE_DEFAULT = 64;
+
+    private final int cellSize;
+
+    // Controls' regions: left, top, right, bottom per control
+    private float[] regions = new float[4 * 16];
+    private int count = 0;
+
+    // Index: the controls overlapping cell i are cellControls[cellStart[i] .. cellStart[i + 1] - 1],
+    // top-most first
+    private int[] cellStart = new int[1];
+    private int[] cellControls = new int[0];
+    private int columns = 0;
+    private int rows = 0;
+
+    public ControlGrid() {
+        this(CELL_SIZE_DEFAULT);
+    }
+
+    /**
+     * Initialises an empty grid.
+     * @param cellSize Size of each (square) cell, in pixels; ideally around the size of the smallest
+     *                 control, so each cell holds few controls
+     */
+    public ControlGrid(int cellSize) {
+        if(cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Removes every control (and empties the index, until rebuilt).
+     */
+    public void clear() {
+        count = 0;
+        columns = 0;
+        rows = 0;
+    }
+
+    /**
+     * Adds a control's touch region, above all those already added. Takes effect once the index is
+     * next built.
+     * @param left Region's left edge
+     * @param top Region's top edge
+     * @param right Region's right edge (exclusive)
+     * @param bottom Region's bottom edge (exclusive)
+     * @return the control's index
+     */
+    public int add(float left, float top, float right, float bottom) {
+        if(4 * (count + 1) > regions.length) {
+            float[] grown = new float[regions.length * 2];
+            System.arraycopy(regions, 0, grown, 0, 4 * count);
+            regions = grown;
+        }
+        int base = 4 * count;
+        regions[base] = left;
+        regions[base + 1] = top;
+        regions[base + 2] = right;
+        regions[base + 3] = bottom;
+        return count++;
+    }
+
+    /**
+     * Builds the index over an area (regions outside the area are clipped to it).
+     * @param width Area width
+     * @param height Area height
+     */
+    public void build(int width, int height) {
+        if(width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        columns = (width + cellSize - 1) / cellSize;
+        rows = (height + cellSize - 1) / cellSize;
+        int cells = columns * rows;
+        if(cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            for(int i = 0; i <= cells; i++) {
+                cellStart[i] = 0;
+            }
+        }
+        // Count the controls per cell (in cellStart[i + 1]), then turn the counts into offsets
+        for(int control = 0; control < count; control++) {
+            int base = 4 * control;
+            int c0 = column(regions[base]);
+            int c1 = column(regions[base + 2]);
+            int r0 = row(regions[base + 1]);
+            int r1 = row(regions[base + 3]);
+            for(int r = r0; r <= r1; r++) {
+                for(int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+        }
+        for(int i = 0; i < cells; i++) {
+            cellStart[i + 1] += cellStart[i];
+        }
+        if(cellControls.length < cellStart[cells]) {
+            cellControls = new int[cellStart[cells]];
+        }
+        // Fill each cell top-most first, using cellStart[i] as the fill position (restored after)
+        for(int control = count - 1; control >= 0; control--) {
+            int base = 4 * control;
+            int c0 = column(regions[base]);
+            int c1 = column(regions[base + 2]);
+            int r0 = row(regions[base + 1]);
+            int r1 = row(regions[base + 3]);
+            for(int r = r0; r <= r1; r++) {
+                for(int c = c0; c <= c1; c++) {
+                    cellControls[cellStart[r * columns + c]++] = control;
+                }
+            }
+        }
+        for(int i = cells; i > 0; i--) {
+            cellStart[i] = cellStart[i - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    /**
+     * Finds the top-most control whose region contains a point.
+     * @param x Point X coordinate
+     * @param y Point Y coordinate
+     * @return the control's index, or -1 if there is none at the point (or the index isn't built)
+     */
+    public int find(float x, float y) {
+        if(columns == 0 || !(x >= 0) || !(y >= 0)) {
+            return -1;
+        }
+        int c = (int) (x / cellSize);
+        int r = (int) (y / cellSize);
+        if(c >= columns || r >= rows) {
+            return -1;
+        }
+        int cell = r * columns + c;
+        for(int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int control = cellControls[i];
+            int base = 4 * control;
+            if(x >= regions[base] && y >= regions[base + 1] && x < regions[base + 2] && y < regions[base + 3]) {
+                return control;
+            }
+        }
+        return -1;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Retrieves the number of controls added.
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+}
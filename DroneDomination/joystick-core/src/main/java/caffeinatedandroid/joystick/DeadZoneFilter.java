@@ -0,0 +1,54 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Dead-zone filter: treats small distances from the centre as centred (the touch point snapped to
+ * the centre, so the distance is 0 and the angle and direction stop jittering). Optionally remaps
+ * the remaining range, so distance still rises smoothly from 0 at the dead-zone's edge (rather than
+ * jumping straight from 0 to the dead-zone size), whilst a distance of 1 stays 1.
+ * <p>
+ * Distances are fractions of the joystick's radius, so only reach 1 if the stick may reach the
+ * border: with a smaller clamp radius (by default, JoystickView keeps the inner-stick within the
+ * border, at two thirds of the radius), the remapped maximum is proportionally lower.
+ * @author Christopher Bull
+ */
+public class DeadZoneFilter implements JoystickFilter {
+
+    private final float deadZone;
+    private final boolean remap;
+
+    /**
+     * Initialises the filter, with remapping.
+     * @param deadZone Size of the dead-zone, as a decimal fraction of the radius (e.g. 0.1)
+     */
+    public DeadZoneFilter(float deadZone) {
+        this(deadZone, true);
+    }
+
+    /**
+     * Initialises the filter.
+     * @param deadZone Size of the dead-zone, as a decimal fraction of the radius (e.g. 0.1)
+     * @param remap Whether to remap distances outside the dead-zone to the full 0 to 1 range
+     */
+    public DeadZoneFilter(float deadZone, boolean remap) {
+        if(deadZone < 0f || deadZone >= 1f) {
+            throw new IllegalArgumentException("deadZone must be between 0 (inclusive) and 1 (exclusive)");
+        }
+        this.deadZone = deadZone;
+        this.remap = remap;
+    }
+
+    @Override
+    public boolean filter(JoystickMoveEvent event) {
+        float distance = event.getDistance();
+        if(distance <= deadZone) {
+            event.setTouch(event.getCenterX(), event.getCenterY());
+            event.setDistance(0f); // (Events without a radius can't calculate it)
+        } else if(remap) {
+            event.setDistance((distance - deadZone) / (1f - deadZone));
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() {}
+}
@@ -0,0 +1,17 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Simplified (8-way) description of a Joystick's angle.
+ * Declared in clockwise order, starting at the top/front of the joystick.
+ * @author Christopher Bull
+ */
+public enum Direction {
+    Forward,
+    ForwardRight,
+    Right,
+    BackRight,
+    Back,
+    BackLeft,
+    Left,
+    ForwardLeft,
+}
@@ -0,0 +1,32 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Duplicate suppression filter: drops events identical to the last event passed on (e.g. a poll
+ * re-delivering an unchanged position).
+ * @author Christopher Bull
+ */
+public class DuplicateFilter implements JoystickFilter {
+
+    private boolean hasLast = false;
+    private float distance_last = 0f;
+    private float angle_last = 0f;
+
+    @Override
+    public boolean filter(JoystickMoveEvent event) {
+        float distance = event.getDistance();
+        // (Angle is meaningless when centred, so isn't calculated)
+        float angle = distance == 0f ? angle_last : event.getAngle();
+        if(hasLast && distance == distance_last && angle == angle_last) {
+            return false;
+        }
+        hasLast = true;
+        distance_last = distance;
+        angle_last = angle;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        hasLast = false;
+    }
+}
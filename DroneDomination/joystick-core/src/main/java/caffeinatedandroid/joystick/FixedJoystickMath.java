@@ -0,0 +1,211 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Integer (fixed-point) joystick calculations. Equivalent to {@link JoystickMath}, but performed
+ * entirely with int/long arithmetic: no allocation, and no float/double round trips.
+ * <p>
+ * Units:
+ * <ul>
+ *     <li>Coordinates and distances are Q16.16 fixed-point (see {@link #toFixed(float)}).</li>
+ *     <li>Fractions are Q16.16, where {@link #ONE} is 1.0.</li>
+ *     <li>Angles are 16-bit binary angles, where {@link #FULL_TURN} is 360 degrees, measured
+ *     clockwise with 0 at the top of the joystick (the same convention as
+ *     {@link JoystickMath#calculateAngle_InDegrees(float, float, float, float)}).</li>
+ * </ul>
+ * @author Christopher Bull
+ */
+public final class FixedJoystickMath {
+
+    /** Number of fractional bits in a fixed-point value */
+    public static final int FRACTION_BITS = 16;
+    /** 1.0 in fixed-point */
+    public static final int ONE = 1 << FRACTION_BITS;
+    /** 360 degrees as a binary angle */
+    public static final int FULL_TURN = 1 << 16;
+
+    // Half an octant (22.5 degrees) as a binary angle
+    private static final int HALF_OCTANT = FULL_TURN / 16;
+    // Binary angle is 16 bits; 8 octants == top 3 bits
+    private static final int OCTANT_SHIFT = 13;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // CORDIC works in 32-bit binary angles (2^32 == 360 degrees), so int overflow wraps for free.
+    private static final int QUARTER_TURN_32 = 1 << 30;
+    // atan(2^-i), as 32-bit binary angles
+    private static final int[] ATAN_TABLE = {
+            536870912, 316933406, 167458907, 85004756, 42667331, 21354465, 10679838, 5340245,
+            2670163, 1335087, 667544, 333772, 166886, 83443, 41722, 20861,
+            10430, 5215, 2608, 1304, 652, 326, 163, 81
+    };
+
+    private FixedJoystickMath() {}
+
+    /////////////////
+    // Conversions //
+    /////////////////
+
+    /**
+     * Converts a float value (e.g. a touch coordinate, in pixels) to Q16.16 fixed-point.
+     * @param value Value to convert; must be within +/-32767
+     * @return the fixed-point value
+     */
+    public static int toFixed(float value) {
+        return (int) (value * ONE);
+    }
+
+    /**
+     * Converts a Q16.16 fixed-point value back to a float.
+     * @param value The fixed-point value
+     * @return the float value
+     */
+    public static float toFloat(int value) {
+        return value / (float) ONE;
+    }
+
+    /**
+     * Converts a binary angle to degrees.
+     * @param angle The binary angle (0 to {@link #FULL_TURN})
+     * @return angle in degrees (0 to 360)
+     */
+    public static float toDegrees(int angle) {
+        return angle * (360f / FULL_TURN);
+    }
+
+    /**
+     * Converts a binary angle to radians, in the convention of
+     * {@link JoystickMath#calculateAngle_InRads(float, float, float, float)} (0 at the right of the
+     * joystick, increasing clockwise on screen).
+     * @param angle The binary angle (0 to {@link #FULL_TURN})
+     * @return angle in radians (-PI exclusive to PI inclusive)
+     */
+    public static float toRadians(int angle) {
+        int rads = angle - FULL_TURN / 4; // Binary angles start at the top; radians at the right
+        if(rads > FULL_TURN / 2) {
+            rads -= FULL_TURN;
+        } else if(rads <= -FULL_TURN / 2) {
+            rads += FULL_TURN;
+        }
+        return rads * (float) (2 * Math.PI / FULL_TURN);
+    }
+
+    //////////////////
+    // Calculations //
+    //////////////////
+
+    /**
+     * Integer square root.
+     * @param value A non-negative value
+     * @return floor(sqrt(value)), or 0 for non-positive values
+     */
+    public static long sqrt(long value) {
+        if(value <= 0) {
+            return 0;
+        }
+        long root = 0;
+        long bit = 1L << 62;
+        while(bit > value) {
+            bit >>>= 2;
+        }
+        while(bit != 0) {
+            if(value >= root + bit) {
+                value -= root + bit;
+                root = (root >>> 1) + bit;
+            } else {
+                root >>>= 1;
+            }
+            bit >>>= 2;
+        }
+        return root;
+    }
+
+    /**
+     * Calculates the distance between the touch point and the center of the Joystick.
+     * All parameters and the return value are Q16.16 fixed-point.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return distance as an absolute value
+     */
+    public static int calculateDistance(int touch_x, int touch_y, int center_x, int center_y) {
+        long dx = (long) touch_x - center_x;
+        long dy = (long) touch_y - center_y;
+        return (int) sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Calculates the distance between the touch point and the center of the Joystick, as a
+     * fraction of the radius (clamped to {@link #ONE}). All parameters are Q16.16 fixed-point.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @return the distance as a Q16.16 fraction (0 to {@link #ONE})
+     */
+    public static int calculateDistance_AsFraction(int touch_x, int touch_y, int center_x, int center_y, int radius) {
+        if(radius <= 0) {
+            return ONE;
+        }
+        long distance = calculateDistance(touch_x, touch_y, center_x, center_y);
+        return (int) Math.min((distance << FRACTION_BITS) / radius, ONE); // Max return value: 1.0
+    }
+
+    /**
+     * Calculate angle of touch point to center of joystick, as a binary angle (0 at top of circle,
+     * increasing clockwise). Uses CORDIC vectoring; error is below 0.01 degrees. All coordinates are
+     * Q16.16 fixed-point.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return binary angle (0 to {@link #FULL_TURN} - 1)
+     */
+    public static int calculateAngle(int touch_x, int touch_y, int center_x, int center_y) {
+        // Rotate the frame so that 'up' is the positive X axis and 'right' is the positive Y axis
+        long x = (long) center_y - touch_y;
+        long y = (long) touch_x - center_x;
+        if(x == 0 && y == 0) {
+            return 0;
+        }
+        int angle = 0;
+        // CORDIC only converges within +/-90 degrees, so pre-rotate the left half-plane
+        if(x < 0) {
+            long t = x;
+            if(y >= 0) {
+                x = y;
+                y = -t;
+                angle = QUARTER_TURN_32;
+            } else {
+                x = -y;
+                y = t;
+                angle = -QUARTER_TURN_32;
+            }
+        }
+        for(int i = 0; i < ATAN_TABLE.length; i++) {
+            long xShifted = x >> i;
+            long yShifted = y >> i;
+            if(y > 0) {
+                x += yShifted;
+                y -= xShifted;
+                angle += ATAN_TABLE[i];
+            } else {
+                x -= yShifted;
+                y += xShifted;
+                angle -= ATAN_TABLE[i];
+            }
+        }
+        // Round the 32-bit angle to 16 bits (wrapping 360 back to 0)
+        return (int) ((((angle & 0xFFFFFFFFL) + 0x8000L) >>> 16) & (FULL_TURN - 1));
+    }
+
+    /**
+     * Calculates a simplified enum value for the Joystick's direction based on a binary angle.
+     * Constant-time: the octant is taken directly from the top bits of the angle.
+     * @param angle The binary angle of the joystick (0 at the top/front)
+     * @return A simplified enum description of the Joystick's angle.
+     */
+    public static Direction calculateDirection(int angle) {
+        return DIRECTIONS[(((angle + HALF_OCTANT) & (FULL_TURN - 1)) >>> OCTANT_SHIFT)];
+    }
+}
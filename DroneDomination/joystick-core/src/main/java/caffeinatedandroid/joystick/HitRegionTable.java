@@ -0,0 +1,171 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * A precomputed table of a digital joystick's hit regions: the area is divided into a grid of small
+ * cells, and each cell holds the keys (a bit mask) pressed by a touch within it. Classifying a touch
+ * is then a constant-time table read, with no trigonometry per event; the geometry (angles, dead
+ * zone, key boundaries) is only evaluated when the table is built (e.g. on a size change).
+ * <p>
+ * Touches outside the table's area are classified by the nearest edge cell. Not thread-safe.
+ * @author Christopher Bull
+ */
+public class HitRegionTable {
+
+    /** Key: up (forward, or W) */
+    public static final int KEY_UP = 1;
+    /** Key: right (or D) */
+    public static final int KEY_RIGHT = 1 << 1;
+    /** Key: down (back, or S) */
+    public static final int KEY_DOWN = 1 << 2;
+    /** Key: left (or A) */
+    public static final int KEY_LEFT = 1 << 3;
+
+    /** Default cell size: 4 pixels */
+    public static final int CELL_SIZE_DEFAULT = 4;
+    /** Default DPad dead zone: a quarter of the radius */
+    public static final float DEAD_ZONE_DEFAULT = 0.25f;
+
+    // Keys per 45 degree sector, clockwise from the top
+    private static final byte[] SECTOR_KEYS_8 = {
+            KEY_UP, KEY_UP | KEY_RIGHT, KEY_RIGHT, KEY_DOWN | KEY_RIGHT,
+            KEY_DOWN, KEY_DOWN | KEY_LEFT, KEY_LEFT, KEY_UP | KEY_LEFT};
+    // Keys per 90 degree sector, clockwise from the top
+    private static final byte[] SECTOR_KEYS_4 = {KEY_UP, KEY_RIGHT, KEY_DOWN, KEY_LEFT};
+    // Direction per key combination (null for none, or opposing keys)
+    private static final Direction[] DIRECTIONS = new Direction[16];
+    static {
+        DIRECTIONS[KEY_UP] = Direction.Forward;
+        DIRECTIONS[KEY_UP | KEY_RIGHT] = Direction.ForwardRight;
+        DIRECTIONS[KEY_RIGHT] = Direction.Right;
+        DIRECTIONS[KEY_DOWN | KEY_RIGHT] = Direction.BackRight;
+        DIRECTIONS[KEY_DOWN] = Direction.Back;
+        DIRECTIONS[KEY_DOWN | KEY_LEFT] = Direction.BackLeft;
+        DIRECTIONS[KEY_LEFT] = Direction.Left;
+        DIRECTIONS[KEY_UP | KEY_LEFT] = Direction.ForwardLeft;
+    }
+
+    private final int cellSize;
+    private byte[] cells = new byte[0];
+    private int columns = 0;
+    private int rows = 0;
+
+    public HitRegionTable() {
+        this(CELL_SIZE_DEFAULT);
+    }
+
+    /**
+     * Initialises an empty table.
+     * @param cellSize Size of each (square) cell, in pixels; smaller cells follow the region
+     *                 boundaries more closely, but use more memory (one byte per cell)
+     */
+    public HitRegionTable(int cellSize) {
+        if(cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Builds a DPad: sectors around the centre (with a dead zone in the middle), each pressing the
+     * key(s) it points towards.
+     * @param width Area width
+     * @param height Area height
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the DPad
+     * @param deadZone Radius of the dead zone, as a fraction of the radius (e.g. {@link #DEAD_ZONE_DEFAULT})
+     * @param diagonals true for 8 sectors (diagonals press two keys), false for 4
+     */
+    public void buildDPad(int width, int height, float center_x, float center_y, float radius, float deadZone, boolean diagonals) {
+        allocate(width, height);
+        float deadZoneRadius = radius * deadZone;
+        for(int r = 0; r < rows; r++) {
+            float dy = (r + 0.5f) * cellSize - center_y;
+            for(int c = 0; c < columns; c++) {
+                float dx = (c + 0.5f) * cellSize - center_x;
+                byte keys = 0;
+                if(Math.sqrt(dx * dx + dy * dy) >= deadZoneRadius) {
+                    // 0 degrees is the top, increasing clockwise
+                    double degrees = Math.toDegrees(Math.atan2(dx, -dy));
+                    if(diagonals) {
+                        keys = SECTOR_KEYS_8[(int) Math.floor((degrees + 22.5) / 45) & 7];
+                    } else {
+                        keys = SECTOR_KEYS_4[(int) Math.floor((degrees + 45) / 90) & 3];
+                    }
+                }
+                cells[r * columns + c] = keys;
+            }
+        }
+    }
+
+    /**
+     * Builds a WASD cluster, laid out as on a keyboard: the area is divided into 3 columns and 2
+     * rows, with W (up) in the middle of the top row, and A (left), S (down) and D (right) along the
+     * bottom row. The top corners press nothing.
+     * @param width Area width
+     * @param height Area height
+     */
+    public void buildWasd(int width, int height) {
+        allocate(width, height);
+        for(int r = 0; r < rows; r++) {
+            int row = Math.min(1, (int) ((r + 0.5f) * cellSize * 2 / height));
+            for(int c = 0; c < columns; c++) {
+                int column = Math.min(2, (int) ((c + 0.5f) * cellSize * 3 / width));
+                byte keys;
+                if(row == 0) {
+                    keys = column == 1 ? (byte) KEY_UP : 0;
+                } else {
+                    keys = (byte) (column == 0 ? KEY_LEFT : column == 1 ? KEY_DOWN : KEY_RIGHT);
+                }
+                cells[r * columns + c] = keys;
+            }
+        }
+    }
+
+    private void allocate(int width, int height) {
+        if(width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        columns = (width + cellSize - 1) / cellSize;
+        rows = (height + cellSize - 1) / cellSize;
+        if(cells.length < columns * rows) {
+            cells = new byte[columns * rows];
+        }
+    }
+
+    /**
+     * Classifies a touch.
+     * @param x Touch point X coordinate
+     * @param y Touch point Y coordinate
+     * @return the keys pressed (0 for none, or if the table hasn't been built)
+     */
+    public int classify(float x, float y) {
+        if(columns == 0) {
+            return 0;
+        }
+        int c = Math.max(0, Math.min(columns - 1, (int) (x / cellSize)));
+        int r = Math.max(0, Math.min(rows - 1, (int) (y / cellSize)));
+        return cells[r * columns + c];
+    }
+
+    /**
+     * Converts keys to a simplified direction.
+     * @param keys The keys pressed
+     * @return the direction, or null for no keys (or opposing keys)
+     */
+    public static Direction toDirection(int keys) {
+        return DIRECTIONS[keys & 15];
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getCellSize() {
+        return cellSize;
+    }
+}
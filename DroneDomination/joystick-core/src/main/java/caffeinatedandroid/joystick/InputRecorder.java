@@ -0,0 +1,266 @@
+package caffeinatedandroid.joystick;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Records a joystick's input (measurements, raw touch samples, and the move events it emitted) to a
+ * compact binary journal, for deterministic replay with {@link InputReplayer}.
+ * <p>
+ * The journal is written through a memory-mapped file: each record is a handful of absolute puts
+ * into the mapping (no system calls, no allocation), and the OS writes the pages back in the
+ * background. The mapping grows a segment at a time. Unwritten space is zero-filled, so a journal
+ * that wasn't closed (e.g. after a crash) can still be replayed, up to its last record.
+ * <p>
+ * Journal layout (big-endian): a {@link #HEADER_SIZE} byte header (magic, version, record size,
+ * record count), then fixed-size records of {@link #RECORD_SIZE} bytes:
+ * <pre>
+ *  0  type        (1 byte: {@link #TYPE_MEASUREMENTS}, {@link #TYPE_TOUCH}, {@link #TYPE_SAMPLE} or {@link #TYPE_MOVE})
+ *  1  action      (1 byte, touch records: {@link #ACTION_DOWN}, {@link #ACTION_UP} or {@link #ACTION_MOVE})
+ *  2  touch age   (2 bytes, move records: delivery time - event time, in milliseconds, up to 65535)
+ *  4  time        (8 bytes, milliseconds: event time, or delivery time for move records)
+ * 12  values      (7 floats, by type:
+ *                  measurements: center X, center Y, radius, clamp radius;
+ *                  touch/sample: touch X, touch Y;
+ *                  move: touch X, touch Y, center X, center Y, radius, distance, angle)
+ * </pre>
+ * Not thread-safe: record from a single thread (e.g. the UI thread). If the journal can't be grown,
+ * recording stops, and the error is available from {@link #getLastError()}.
+ * @author Christopher Bull
+ */
+public class InputRecorder implements Closeable {
+
+    /** Journal identifier ("JOYJ") */
+    public static final int MAGIC = 0x4A4F594A;
+    /** Journal format version */
+    public static final short VERSION = 1;
+    /** Header size, in bytes */
+    public static final int HEADER_SIZE = 16;
+    /** Record size, in bytes */
+    public static final int RECORD_SIZE = 40;
+
+    /** Record type: joystick measurements */
+    public static final byte TYPE_MEASUREMENTS = 1;
+    /** Record type: a touch event (down, move or up) */
+    public static final byte TYPE_TOUCH = 2;
+    /** Record type: a batched (historical) touch sample, preceding a touch event */
+    public static final byte TYPE_SAMPLE = 3;
+    /** Record type: an emitted move event */
+    public static final byte TYPE_MOVE = 4;
+
+    /** Touch action: down (same value as MotionEvent.ACTION_DOWN) */
+    public static final int ACTION_DOWN = 0;
+    /** Touch action: up (same value as MotionEvent.ACTION_UP) */
+    public static final int ACTION_UP = 1;
+    /** Touch action: move (same value as MotionEvent.ACTION_MOVE) */
+    public static final int ACTION_MOVE = 2;
+
+    /** Default mapping growth: 1MB (~26,000 records) */
+    public static final int SEGMENT_SIZE_DEFAULT = 1 << 20;
+
+    // Header field offsets
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_RECORD_SIZE = 6;
+    static final int OFFSET_RECORD_COUNT = 8;
+    // Record field offsets
+    static final int OFFSET_TYPE = 0;
+    static final int OFFSET_ACTION = 1;
+    static final int OFFSET_TOUCH_AGE = 2;
+    static final int OFFSET_TIME = 4;
+    static final int OFFSET_VALUES = 12;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int segmentSize;
+    private MappedByteBuffer mapping;
+    private long mappingStart;
+    private long position = HEADER_SIZE;
+    private long recordCount = 0;
+    private IOException lastError = null;
+
+    public InputRecorder(File file) throws IOException {
+        this(file, SEGMENT_SIZE_DEFAULT);
+    }
+
+    /**
+     * Creates (or truncates) a journal file, and writes its header.
+     * @param file The journal file
+     * @param segmentSize How much to grow the mapping by, in bytes
+     * @throws IOException if the file can't be created or mapped
+     */
+    public InputRecorder(File file, int segmentSize) throws IOException {
+        if(segmentSize < RECORD_SIZE + HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small");
+        }
+        this.segmentSize = segmentSize;
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        channel = this.file.getChannel();
+        map(0);
+        mapping.putInt(OFFSET_MAGIC, MAGIC);
+        mapping.putShort(OFFSET_VERSION, VERSION);
+        mapping.putShort(OFFSET_RECORD_SIZE, (short) RECORD_SIZE);
+        mapping.putLong(OFFSET_RECORD_COUNT, 0);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Records the joystick's measurements (e.g. after a size change).
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @param radius_Clamp The furthest the inner-stick may move from the centre
+     * @param eventTime Time, in milliseconds
+     */
+    public void recordMeasurements(float center_x, float center_y, float radius, float radius_Clamp, long eventTime) {
+        int offset = reserveRecord(0, eventTime);
+        if(offset >= 0) {
+            mapping.putFloat(offset + OFFSET_VALUES, center_x);
+            mapping.putFloat(offset + OFFSET_VALUES + 4, center_y);
+            mapping.putFloat(offset + OFFSET_VALUES + 8, radius);
+            mapping.putFloat(offset + OFFSET_VALUES + 12, radius_Clamp);
+            commitRecord(offset, TYPE_MEASUREMENTS);
+        }
+    }
+
+    /**
+     * Records a touch event.
+     * @param action {@link #ACTION_DOWN}, {@link #ACTION_UP} or {@link #ACTION_MOVE}
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param eventTime Time of the touch, in milliseconds
+     */
+    public void recordTouch(int action, float touch_x, float touch_y, long eventTime) {
+        recordPoint(TYPE_TOUCH, action, touch_x, touch_y, eventTime);
+    }
+
+    /**
+     * Records a batched (historical) touch sample.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param eventTime Time of the sample, in milliseconds
+     */
+    public void recordSample(float touch_x, float touch_y, long eventTime) {
+        recordPoint(TYPE_SAMPLE, 0, touch_x, touch_y, eventTime);
+    }
+
+    /**
+     * Records an emitted move event (calculating its distance and angle, if not already done), at
+     * its delivery time. Its event time is kept relative to that, so a stick held still for over 65
+     * seconds replays with a later event time than it had.
+     * @param event The event
+     */
+    public void recordMove(JoystickMoveEvent event) {
+        int offset = reserveRecord(0, event.getDeliveryTime());
+        if(offset >= 0) {
+            long touchAge = Math.max(0, Math.min(0xFFFF, event.getDeliveryTime() - event.getEventTime()));
+            mapping.putShort(offset + OFFSET_TOUCH_AGE, (short) touchAge);
+            mapping.putFloat(offset + OFFSET_VALUES, event.getTouchX());
+            mapping.putFloat(offset + OFFSET_VALUES + 4, event.getTouchY());
+            mapping.putFloat(offset + OFFSET_VALUES + 8, event.getCenterX());
+            mapping.putFloat(offset + OFFSET_VALUES + 12, event.getCenterY());
+            mapping.putFloat(offset + OFFSET_VALUES + 16, event.getRadius());
+            mapping.putFloat(offset + OFFSET_VALUES + 20, event.getDistance());
+            mapping.putFloat(offset + OFFSET_VALUES + 24, event.getAngle());
+            commitRecord(offset, TYPE_MOVE);
+        }
+    }
+
+    private void recordPoint(byte type, int action, float touch_x, float touch_y, long eventTime) {
+        int offset = reserveRecord(action, eventTime);
+        if(offset >= 0) {
+            mapping.putFloat(offset + OFFSET_VALUES, touch_x);
+            mapping.putFloat(offset + OFFSET_VALUES + 4, touch_y);
+            commitRecord(offset, type);
+        }
+    }
+
+    /**
+     * Reserves the next record (growing the mapping if needed), and writes its common fields, except
+     * the type. The caller then writes the values, and commits the record.
+     * @return offset of the record within the mapping, or -1 if recording has stopped
+     */
+    private int reserveRecord(int action, long eventTime) {
+        if(mapping == null) {
+            return -1;
+        }
+        if(position + RECORD_SIZE > mappingStart + mapping.capacity()) {
+            try {
+                map(position);
+            } catch(IOException e) {
+                lastError = e;
+                mapping = null;
+                return -1;
+            }
+        }
+        int offset = (int) (position - mappingStart);
+        mapping.putLong(offset + OFFSET_TIME, eventTime);
+        mapping.put(offset + OFFSET_ACTION, (byte) action);
+        return offset;
+    }
+
+    /**
+     * Completes a reserved record, once its values are written, by writing its type. The type is
+     * written last, so a record cut short (e.g. by a crash) is still empty (type 0), and never
+     * mistaken for a whole one.
+     */
+    private void commitRecord(int offset, byte type) {
+        mapping.put(offset + OFFSET_TYPE, type);
+        position += RECORD_SIZE;
+        recordCount++;
+    }
+
+    private void map(long start) throws IOException {
+        mappingStart = start;
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize);
+    }
+
+    /**
+     * Writes the record count, flushes the journal to storage, and trims the file to the records
+     * written.
+     * @throws IOException if the journal couldn't be completed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putLong(OFFSET_RECORD_COUNT, recordCount);
+            header.force();
+            if(mapping != null) {
+                mapping.force();
+            }
+            mapping = null;
+            // (Fails on some platforms whilst a mapping is still live; the zero-filled tail is harmless)
+            try {
+                channel.truncate(position);
+            } catch(IOException ignored) {
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Retrieves the error that stopped recording (if any).
+     * @return the error, or null
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,223 @@
+package caffeinatedandroid.joystick;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static caffeinatedandroid.joystick.InputRecorder.*;
+
+/**
+ * Replays a journal written by {@link InputRecorder}, feeding its records to a {@link Target} (e.g.
+ * the same joystick pipeline that recorded it), either as fast as possible or at the pace they were
+ * recorded.
+ * <p>
+ * The journal is read through a read-only memory mapping, and replay allocates nothing: move records
+ * are delivered in a single, reused {@link JoystickMoveEvent} (copy it to keep it). A journal that
+ * wasn't closed is replayed up to its last complete record.
+ * <p>
+ * Not thread-safe: replay from a single thread.
+ * @author Christopher Bull
+ */
+public class InputReplayer implements Closeable {
+
+    /**
+     * Receives replayed records.
+     */
+    public interface Target {
+        void OnReplayMeasurements(float center_x, float center_y, float radius, float radius_Clamp, long eventTime);
+        void OnReplayTouch(int action, float touch_x, float touch_y, long eventTime);
+        void OnReplaySample(float touch_x, float touch_y, long eventTime);
+        void OnReplayMove(JoystickMoveEvent event);
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer mapping;
+    private final long recordCount;
+    private final JoystickMoveEvent moveEvent = new JoystickMoveEvent();
+    private int position = HEADER_SIZE;
+    private long replayed = 0;
+    private long startTime = 0;
+
+    /**
+     * Opens a journal for replay.
+     * @param file The journal file
+     * @throws IOException if the file can't be read, or isn't a journal
+     */
+    public InputReplayer(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            long length = this.file.length();
+            if(length < HEADER_SIZE) {
+                throw new IOException("Not an input journal (too short): " + file);
+            }
+            if(length > Integer.MAX_VALUE) {
+                throw new IOException("Input journal too large: " + file);
+            }
+            mapping = this.file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if(mapping.getInt(OFFSET_MAGIC) != MAGIC) {
+                throw new IOException("Not an input journal: " + file);
+            }
+            if(mapping.getShort(OFFSET_VERSION) != VERSION || mapping.getShort(OFFSET_RECORD_SIZE) != RECORD_SIZE) {
+                throw new IOException("Unsupported input journal version: " + mapping.getShort(OFFSET_VERSION));
+            }
+            recordCount = countRecords(mapping);
+        } catch(IOException e) {
+            this.file.close();
+            throw e;
+        }
+        rewind();
+    }
+
+    /**
+     * Counts the journal's records: from its header if it was closed, otherwise by scanning for the
+     * first empty (zero-filled) record.
+     */
+    private static long countRecords(MappedByteBuffer mapping) {
+        long available = (mapping.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        long count = mapping.getLong(OFFSET_RECORD_COUNT);
+        if(count > 0) {
+            return Math.min(count, available);
+        }
+        count = 0;
+        while(count < available && mapping.get((int) (HEADER_SIZE + count * RECORD_SIZE) + OFFSET_TYPE) != 0) {
+            count++;
+        }
+        return count;
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Returns to the start of the journal.
+     */
+    public void rewind() {
+        position = HEADER_SIZE;
+        replayed = 0;
+        startTime = recordCount > 0 ? mapping.getLong(HEADER_SIZE + OFFSET_TIME) : 0;
+    }
+
+    /**
+     * Replays the next record.
+     * @param target Receives the record
+     * @return false if there were no more records
+     */
+    public boolean replayNext(Target target) {
+        if(replayed >= recordCount) {
+            return false;
+        }
+        int offset = position;
+        position += RECORD_SIZE;
+        replayed++;
+        int values = offset + OFFSET_VALUES;
+        long eventTime = mapping.getLong(offset + OFFSET_TIME);
+        switch(mapping.get(offset + OFFSET_TYPE)) {
+            case TYPE_MEASUREMENTS:
+                target.OnReplayMeasurements(mapping.getFloat(values), mapping.getFloat(values + 4),
+                        mapping.getFloat(values + 8), mapping.getFloat(values + 12), eventTime);
+                break;
+            case TYPE_TOUCH:
+                target.OnReplayTouch(mapping.get(offset + OFFSET_ACTION), mapping.getFloat(values),
+                        mapping.getFloat(values + 4), eventTime);
+                break;
+            case TYPE_SAMPLE:
+                target.OnReplaySample(mapping.getFloat(values), mapping.getFloat(values + 4), eventTime);
+                break;
+            case TYPE_MOVE:
+                // Recorded at its delivery time
+                moveEvent.set(mapping.getFloat(values), mapping.getFloat(values + 4),
+                        mapping.getFloat(values + 8), mapping.getFloat(values + 12),
+                        mapping.getFloat(values + 16), mapping.getFloat(values + 20),
+                        mapping.getFloat(values + 24), eventTime - (mapping.getShort(offset + OFFSET_TOUCH_AGE) & 0xFFFF));
+                target.OnReplayMove(moveEvent.setDeliveryTime(eventTime));
+                break;
+            default:
+                // Unknown (newer) record type: skip
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Replays every record recorded up to a point in time, relative to the first record. Suited to
+     * real-time replay driven by a frame callback.
+     * @param elapsedMillis Time since the start of the journal, in milliseconds
+     * @param target Receives the records
+     * @return the number of records replayed
+     */
+    public int replayUntil(long elapsedMillis, Target target) {
+        int count = 0;
+        while(replayed < recordCount && mapping.getLong(position + OFFSET_TIME) - startTime <= elapsedMillis) {
+            replayNext(target);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Replays the rest of the journal, blocking until done.
+     * @param target Receives the records
+     * @param realTime true to replay at the pace the records were recorded, false to replay as fast
+     *                 as possible
+     */
+    public void replay(Target target, boolean realTime) {
+        if(!realTime) {
+            while(replayNext(target)) {}
+            return;
+        }
+        // Pace from the next record (so replay can resume part-way through)
+        long offset = replayed < recordCount ? mapping.getLong(position + OFFSET_TIME) - startTime : 0;
+        long start = System.nanoTime();
+        while(replayed < recordCount && !Thread.currentThread().isInterrupted()) {
+            long due = TimeUnit.MILLISECONDS.toNanos(mapping.getLong(position + OFFSET_TIME) - startTime - offset);
+            long wait = due - (System.nanoTime() - start);
+            if(wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            replayNext(target);
+        }
+    }
+
+    /**
+     * Releases the journal file.
+     * @throws IOException if the file couldn't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Checks whether every record has been replayed.
+     * @return true if finished
+     */
+    public boolean isFinished() {
+        return replayed >= recordCount;
+    }
+
+    /**
+     * Retrieves the journal's duration: the time from the first record to the last.
+     * @return duration in milliseconds
+     */
+    public long getDuration() {
+        if(recordCount == 0) {
+            return 0;
+        }
+        return mapping.getLong((int) (HEADER_SIZE + (recordCount - 1) * RECORD_SIZE) + OFFSET_TIME) - startTime;
+    }
+}
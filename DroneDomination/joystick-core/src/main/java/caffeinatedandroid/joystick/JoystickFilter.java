@@ -0,0 +1,20 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * A stage of a {@link JoystickFilterPipeline}, between a Joystick's computed state and its
+ * {@link JoystickMoveListener}. Filters may drop events, or adjust them in place.
+ * @author Christopher Bull
+ */
+public interface JoystickFilter {
+    /**
+     * Filters a move event.
+     * @param event The event; owned by the pipeline, so may be adjusted in place
+     * @return true to pass the event on to the next stage, false to drop it
+     */
+    boolean filter(JoystickMoveEvent event);
+
+    /**
+     * Called at the start of each touch, to clear any state kept from previous events.
+     */
+    void reset();
+}
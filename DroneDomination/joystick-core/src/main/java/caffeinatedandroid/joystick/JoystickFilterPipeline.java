@@ -0,0 +1,112 @@
+package caffeinatedandroid.joystick;
+
+import java.util.ArrayList;
+
+/**
+ * An ordered pipeline of {@link JoystickFilter}s, between a Joystick's computed state and its
+ * {@link JoystickMoveListener}, with counters of how many events each stage dropped.
+ * <p>
+ * Events are copied into a single event owned by the pipeline before filtering, so the input event
+ * is never modified (and re-delivering the same input is filtered the same way). The returned event
+ * is recycled by each call to {@link #process(JoystickMoveEvent)}.
+ * <p>
+ * Not thread-safe; intended to be called from a single (e.g. the UI) thread.
+ * @author Christopher Bull
+ */
+public class JoystickFilterPipeline {
+
+    private final ArrayList<JoystickFilter> filters = new ArrayList<>();
+    private long[] dropped = new long[0];
+    private long received = 0;
+    private final JoystickMoveEvent output = new JoystickMoveEvent();
+
+    /**
+     * Appends a filter to the end of the pipeline.
+     * @param filter The filter
+     * @return this pipeline
+     */
+    public JoystickFilterPipeline addFilter(JoystickFilter filter) {
+        filters.add(filter);
+        long[] droppedResized = new long[filters.size()];
+        System.arraycopy(dropped, 0, droppedResized, 0, dropped.length);
+        dropped = droppedResized;
+        return this;
+    }
+
+    /**
+     * Passes an event through each filter, in order.
+     * @param event The input event (not modified)
+     * @return the filtered event (a recycled instance owned by this pipeline), or null if dropped
+     */
+    public JoystickMoveEvent process(JoystickMoveEvent event) {
+        received++;
+        output.set(event);
+        for(int i = 0; i < filters.size(); i++) {
+            if(!filters.get(i).filter(output)) {
+                dropped[i]++;
+                return null;
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Resets all filters (e.g. at the start of a touch).
+     */
+    public void reset() {
+        for(int i = 0; i < filters.size(); i++) {
+            filters.get(i).reset();
+        }
+    }
+
+    ////////////////
+    // Statistics //
+    ////////////////
+
+    public int getFilterCount() {
+        return filters.size();
+    }
+
+    public JoystickFilter getFilter(int stage) {
+        return filters.get(stage);
+    }
+
+    /**
+     * Retrieves the number of events received by the pipeline.
+     * @return events received
+     */
+    public long getReceivedCount() {
+        return received;
+    }
+
+    /**
+     * Retrieves the number of events dropped by a stage.
+     * @param stage Index of the filter
+     * @return events dropped by the filter
+     */
+    public long getDroppedCount(int stage) {
+        return dropped[stage];
+    }
+
+    /**
+     * Retrieves the number of events that passed all stages.
+     * @return events passed
+     */
+    public long getPassedCount() {
+        long passed = received;
+        for(long d : dropped) {
+            passed -= d;
+        }
+        return passed;
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public void resetCounters() {
+        received = 0;
+        for(int i = 0; i < dropped.length; i++) {
+            dropped[i] = 0;
+        }
+    }
+}
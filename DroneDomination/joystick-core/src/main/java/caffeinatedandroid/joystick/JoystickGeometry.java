@@ -0,0 +1,284 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Joystick stick geometry: the joystick's measurements, and the (clamped) position of the inner-stick
+ * for a touch point. Calculations are done either in floating-point (angles from a {@link TrigTable},
+ * by default), or, in fixed-point mode, entirely in integer arithmetic ({@link FixedJoystickMath}).
+ * <p>
+ * Not thread-safe; intended to be owned by a single view and updated from its touch events.
+ * @author Christopher Bull
+ */
+public class JoystickGeometry {
+
+    // Mode
+    private boolean fixedPoint = false;
+    private TrigTable trigTable = TrigTable.DEFAULT;
+
+    // Measurements
+    private float center_x = 0f;
+    private float center_y = 0f;
+    private float radius = 0f;
+    private float radius_Clamp = 0f;
+    private int center_x_fixed = 0;
+    private int center_y_fixed = 0;
+    private int radius_fixed = 0;
+    private int radius_Clamp_fixed = 0;
+
+    // Inner-stick position
+    private float stick_x = 0f;
+    private float stick_y = 0f;
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Enables/disables fixed-point (integer) calculations.
+     * @param fixedPoint true to use fixed-point arithmetic, false for floating-point
+     */
+    public void setFixedPoint(boolean fixedPoint) {
+        this.fixedPoint = fixedPoint;
+    }
+
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    /**
+     * Sets the lookup table used for floating-point angle calculations.
+     * @param trigTable The table, or null to use the exact (Math.atan2) calculations
+     */
+    public void setTrigTable(TrigTable trigTable) {
+        this.trigTable = trigTable;
+    }
+
+    public TrigTable getTrigTable() {
+        return trigTable;
+    }
+
+    /**
+     * Sets the joystick's measurements, and re-centers the inner-stick.
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick (i.e. a distance of 1.0)
+     * @param radius_Clamp The furthest the inner-stick may move from the centre
+     */
+    public void setMeasurements(float center_x, float center_y, float radius, float radius_Clamp) {
+        this.center_x = center_x;
+        this.center_y = center_y;
+        this.radius = radius;
+        center_x_fixed = FixedJoystickMath.toFixed(center_x);
+        center_y_fixed = FixedJoystickMath.toFixed(center_y);
+        radius_fixed = FixedJoystickMath.toFixed(radius);
+        setClampRadius(radius_Clamp);
+        recenter();
+    }
+
+    /**
+     * Sets the furthest the inner-stick may move from the centre.
+     * @param radius_Clamp clamp radius
+     */
+    public void setClampRadius(float radius_Clamp) {
+        this.radius_Clamp = radius_Clamp;
+        radius_Clamp_fixed = FixedJoystickMath.toFixed(radius_Clamp);
+    }
+
+    /**
+     * Moves the inner-stick back to the centre.
+     */
+    public void recenter() {
+        stick_x = center_x;
+        stick_y = center_y;
+    }
+
+    /**
+     * Moves the inner-stick to the given touch point, clamping it to the clamp radius (i.e. the
+     * point on the border nearest the touch point).
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @return the (unclamped) distance between the touch point and the centre
+     */
+    public float update(float touch_x, float touch_y) {
+        if(fixedPoint) {
+            return updateFixed(touch_x, touch_y);
+        }
+        float distFromCenter = (float) JoystickMath.calculateDistance(touch_x, touch_y, center_x, center_y);
+        if(distFromCenter <= radius_Clamp) {
+            stick_x = touch_x;
+            stick_y = touch_y;
+        } else { // Touch point is at circle's border (or beyond)
+            // Calculate point on circle border nearest given touch point
+            // http://stackoverflow.com/a/300894
+            double vX = touch_x - center_x;
+            double vY = touch_y - center_y;
+            stick_x = (float) (center_x + vX / distFromCenter * radius_Clamp);
+            stick_y = (float) (center_y + vY / distFromCenter * radius_Clamp);
+        }
+        return distFromCenter;
+    }
+
+    private float updateFixed(float touch_x, float touch_y) {
+        int touch_x_fixed = FixedJoystickMath.toFixed(touch_x);
+        int touch_y_fixed = FixedJoystickMath.toFixed(touch_y);
+        int distFromCenter = FixedJoystickMath.calculateDistance(touch_x_fixed, touch_y_fixed, center_x_fixed, center_y_fixed);
+        if(distFromCenter <= radius_Clamp_fixed) {
+            stick_x = touch_x;
+            stick_y = touch_y;
+        } else {
+            long vX = (long) touch_x_fixed - center_x_fixed;
+            long vY = (long) touch_y_fixed - center_y_fixed;
+            stick_x = FixedJoystickMath.toFloat((int) (center_x_fixed + vX * radius_Clamp_fixed / distFromCenter));
+            stick_y = FixedJoystickMath.toFloat((int) (center_y_fixed + vY * radius_Clamp_fixed / distFromCenter));
+        }
+        return FixedJoystickMath.toFloat(distFromCenter);
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public float getCenterX() {
+        return center_x;
+    }
+
+    public float getCenterY() {
+        return center_y;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public float getClampRadius() {
+        return radius_Clamp;
+    }
+
+    public float getStickX() {
+        return stick_x;
+    }
+
+    public float getStickY() {
+        return stick_y;
+    }
+
+    //////////////////////
+    // Calculate Output //
+    //////////////////////
+
+    /**
+     * Calculates the distance of a stick position from a centre, as a decimal fraction of the radius
+     * (i.e. between 0 and 1), using the current mode (floating-point or fixed-point).
+     * @param touch_x Stick X coordinate
+     * @param touch_y Stick Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @return the distance as a fraction
+     */
+    public float calculateDistance_AsDecimalFraction(float touch_x, float touch_y, float center_x, float center_y, float radius) {
+        if(fixedPoint) {
+            return FixedJoystickMath.toFloat(FixedJoystickMath.calculateDistance_AsFraction(
+                    FixedJoystickMath.toFixed(touch_x),
+                    FixedJoystickMath.toFixed(touch_y),
+                    FixedJoystickMath.toFixed(center_x),
+                    FixedJoystickMath.toFixed(center_y),
+                    FixedJoystickMath.toFixed(radius)));
+        }
+        return JoystickMath.calculateDistance_AsDecimalFraction(touch_x, touch_y, center_x, center_y, radius);
+    }
+
+    /**
+     * Calculates the angle of a stick position to a centre, in degrees (0 at top of circle), using the
+     * current mode (floating-point or fixed-point).
+     * @param touch_x Stick X coordinate
+     * @param touch_y Stick Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return angle in degrees
+     */
+    public float calculateAngle_InDegrees(float touch_x, float touch_y, float center_x, float center_y) {
+        if(fixedPoint) {
+            return FixedJoystickMath.toDegrees(FixedJoystickMath.calculateAngle(
+                    FixedJoystickMath.toFixed(touch_x),
+                    FixedJoystickMath.toFixed(touch_y),
+                    FixedJoystickMath.toFixed(center_x),
+                    FixedJoystickMath.toFixed(center_y)));
+        } else if(trigTable != null) {
+            return trigTable.calculateAngle_InDegrees(touch_x, touch_y, center_x, center_y);
+        }
+        return JoystickMath.calculateAngle_InDegrees(touch_x, touch_y, center_x, center_y);
+    }
+
+    /**
+     * Calculates the angle of a stick position to a centre, in radians (0 at the right of the circle),
+     * using the current mode (floating-point or fixed-point).
+     * @param touch_x Stick X coordinate
+     * @param touch_y Stick Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return angle in radians
+     */
+    public float calculateAngle_InRads(float touch_x, float touch_y, float center_x, float center_y) {
+        if(fixedPoint) {
+            int touch_x_fixed = FixedJoystickMath.toFixed(touch_x);
+            int touch_y_fixed = FixedJoystickMath.toFixed(touch_y);
+            int center_x_fixed = FixedJoystickMath.toFixed(center_x);
+            int center_y_fixed = FixedJoystickMath.toFixed(center_y);
+            if(touch_x_fixed == center_x_fixed && touch_y_fixed == center_y_fixed) {
+                return 0f; // As atan2(0, 0)
+            }
+            return FixedJoystickMath.toRadians(FixedJoystickMath.calculateAngle(
+                    touch_x_fixed, touch_y_fixed, center_x_fixed, center_y_fixed));
+        } else if(trigTable != null) {
+            return trigTable.calculateAngle_InRads(touch_x, touch_y, center_x, center_y);
+        }
+        return (float) JoystickMath.calculateAngle_InRads(touch_x, touch_y, center_x, center_y);
+    }
+
+    /**
+     * Creates a move event for the current inner-stick position.
+     * @param eventTime Time of the touch, in milliseconds
+     * @return a new move event
+     */
+    public JoystickMoveEvent createMoveEvent(long eventTime) {
+        return fillMoveEvent(new JoystickMoveEvent(), eventTime);
+    }
+
+    /**
+     * Resets an existing (recycled) move event in place, for the current inner-stick position.
+     * @param event The event to reset
+     * @param eventTime Time of the touch, in milliseconds
+     * @return the given event
+     */
+    public JoystickMoveEvent fillMoveEvent(JoystickMoveEvent event, long eventTime) {
+        return fillMoveEvent(event, stick_x, stick_y, center_x, center_y, radius, eventTime);
+    }
+
+    /**
+     * Resets an existing (recycled) move event in place, for a snapshot of a joystick's state.
+     * @param event The event to reset
+     * @param snapshot The joystick state
+     * @return the given event
+     */
+    public JoystickMoveEvent fillMoveEvent(JoystickMoveEvent event, JoystickState.Snapshot snapshot) {
+        return fillMoveEvent(event, snapshot.getTouchX(), snapshot.getTouchY(),
+                snapshot.getCenterX(), snapshot.getCenterY(), snapshot.getRadius(), snapshot.getEventTime());
+    }
+
+    /**
+     * Resets an existing (recycled) move event in place, for a given stick position. Only the raw
+     * values are stored; derived values are calculated on request, with this geometry's mode.
+     * @param event The event to reset
+     * @param touch_x Stick X coordinate
+     * @param touch_y Stick Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @param eventTime Time of the touch, in milliseconds
+     * @return the given event
+     */
+    public JoystickMoveEvent fillMoveEvent(JoystickMoveEvent event, float touch_x, float touch_y, float center_x, float center_y, float radius, long eventTime) {
+        // Distance and angle are calculated lazily (by this geometry), if the listener asks for them
+        return event.set(touch_x, touch_y, center_x, center_y, radius, eventTime, this);
+    }
+}
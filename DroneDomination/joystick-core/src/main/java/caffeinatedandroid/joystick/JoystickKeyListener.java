@@ -0,0 +1,18 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Interface definition for a callback to be invoked when the keys pressed on a digital joystick (a
+ * DPad or WASD cluster) change. Keys are delivered as a bit mask of {@link HitRegionTable#KEY_UP},
+ * {@link HitRegionTable#KEY_RIGHT}, {@link HitRegionTable#KEY_DOWN} and {@link HitRegionTable#KEY_LEFT};
+ * no event object is created.
+ * @author Christopher Bull
+ */
+public interface JoystickKeyListener {
+    /**
+     * Called when the pressed keys change.
+     * @param keys The keys now pressed (0 for none)
+     * @param changed The keys pressed or released by this change
+     * @param eventTime Time of the touch that changed the keys, in milliseconds (in the uptime time base)
+     */
+    void OnJoystickKeys(int keys, int changed, long eventTime);
+}
@@ -0,0 +1,92 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Floating-point joystick calculations (angles, distances and directions). These are the reference
+ * implementations; see {@link FixedJoystickMath} for the integer equivalents.
+ * @author Christopher Bull
+ */
+public final class JoystickMath {
+
+    private JoystickMath() {}
+
+    /**
+     * Calculate angle of touch point to center of joystick, in radians.
+     * Counter-clockwise angle, numeric value between -PI and PI (0 along the positive X axis).
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return angle in radians
+     */
+    public static double calculateAngle_InRads(float touch_x, float touch_y, float center_x, float center_y) {
+        return Math.atan2(touch_y - center_y, touch_x - center_x);
+    }
+
+    /**
+     * Calculate angle of touch point to center of joystick, in degrees (0 at top of circle)
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return angle in degrees
+     */
+    public static float calculateAngle_InDegrees(float touch_x, float touch_y, float center_x, float center_y) {
+        float angle = (float) Math.toDegrees(Math.atan2(-(center_x - touch_x), center_y - touch_y));
+        if(angle < 0) {
+            angle += 360;
+        }
+        return angle;
+    }
+
+    /**
+     * Calculates the distance between the touch point and the center of the Joystick.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return distance as an absolute value
+     */
+    public static double calculateDistance(float touch_x, float touch_y, float center_x, float center_y) {
+        return Math.hypot(center_x - touch_x, center_y - touch_y);
+    }
+
+    /**
+     * Calculates the distance between the touch point and the center of the Joystick. Returns value
+     * as a decimal fraction (i.e. between 0 and 1).
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @return the distance as a fraction
+     */
+    public static float calculateDistance_AsDecimalFraction(float touch_x, float touch_y, float center_x, float center_y, float radius) {
+        double distance = calculateDistance(touch_x, touch_y, center_x, center_y);
+        return Math.min((float)distance / radius, 1f); // Max return value: 1.0
+    }
+
+    /**
+     * Calculates a simplified enum value for the Joystick's direction based on an angle input
+     * @param angle The 360 degree angle of the joystick (0 at the top/front)
+     * @return A simplified enum description of the Joystick's angle.
+     */
+    public static Direction calculateDirection(float angle) {
+        if(angle >= 337.5 || angle <= 22.5) {
+            return Direction.Forward;
+        } else if(angle <= 67.5) {
+            return Direction.ForwardRight;
+        } else if(angle <= 112.5) {
+            return Direction.Right;
+        } else if(angle <= 157.5) {
+            return Direction.BackRight;
+        } else if(angle <= 202.5) {
+            return Direction.Back;
+        } else if(angle <= 247.5) {
+            return Direction.BackLeft;
+        } else if(angle <= 292.5) {
+            return Direction.Left;
+        } else {
+            return Direction.ForwardLeft;
+        }
+    }
+}
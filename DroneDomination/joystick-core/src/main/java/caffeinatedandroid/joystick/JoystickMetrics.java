@@ -0,0 +1,143 @@
+package caffeinatedandroid.joystick;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Input-path instrumentation for a joystick: a {@link LatencyHistogram} per pipeline stage, and event
+ * counters. Recording allocates nothing and costs a few nanoseconds per event, so it can be left
+ * enabled; query it (or {@link #dump(StringBuilder)} it) from any thread.
+ * <p>
+ * Stages:
+ * <ul>
+ *     <li>{@link #STAGE_INPUT}: from the touch event's timestamp to the joystick handling it (i.e.
+ *     input dispatch; millisecond resolution)</li>
+ *     <li>{@link #STAGE_DELIVERY}: from the joystick handling a touch to the listener being called
+ *     with it (i.e. the wait for the next poll, and any filtering)</li>
+ *     <li>{@link #STAGE_LISTENER}: time spent in the listener's callback</li>
+ * </ul>
+ * Record from a single thread (e.g. the UI thread).
+ * @author Christopher Bull
+ */
+public class JoystickMetrics {
+
+    /** Stage: touch event timestamp to joystick */
+    public static final int STAGE_INPUT = 0;
+    /** Stage: joystick to listener */
+    public static final int STAGE_DELIVERY = 1;
+    /** Stage: listener callback */
+    public static final int STAGE_LISTENER = 2;
+    /** Number of stages */
+    public static final int STAGE_COUNT = 3;
+
+    /** Counter: touch events handled */
+    public static final int COUNT_TOUCH_EVENTS = 0;
+    /** Counter: move events delivered to the listener */
+    public static final int COUNT_DELIVERED = 1;
+    /** Counter: move events dropped by filters */
+    public static final int COUNT_DROPPED = 2;
+    /** Counter: touches superseded by a later touch before being delivered (e.g. between polls) */
+    public static final int COUNT_COALESCED = 3;
+    /** Counter: poll frames that reported */
+    public static final int COUNT_POLLS = 4;
+    /** Number of counters */
+    public static final int COUNTER_COUNT = 5;
+
+    private static final String[] STAGE_NAMES = {"input", "delivery", "listener"};
+    private static final String[] COUNTER_NAMES = {"touches", "delivered", "dropped", "coalesced", "polls"};
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[STAGE_COUNT];
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTER_COUNT);
+
+    public JoystickMetrics() {
+        for(int i = 0; i < STAGE_COUNT; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Records a stage's latency.
+     * @param stage The stage, e.g. {@link #STAGE_DELIVERY}
+     * @param nanos The latency, in nanoseconds
+     */
+    public void recordLatency(int stage, long nanos) {
+        stages[stage].record(nanos);
+    }
+
+    /**
+     * Increments a counter.
+     * @param counter The counter, e.g. {@link #COUNT_DELIVERED}
+     */
+    public void increment(int counter) {
+        // Single writer, so a plain increment (lazily published) is enough
+        counters.lazySet(counter, counters.get(counter) + 1);
+    }
+
+    /**
+     * Clears all histograms and counters. Call from the recording thread.
+     */
+    public void reset() {
+        for(LatencyHistogram stage : stages) {
+            stage.reset();
+        }
+        for(int i = 0; i < COUNTER_COUNT; i++) {
+            counters.lazySet(i, 0);
+        }
+    }
+
+    /**
+     * Appends a summary of each stage (p50, p99 and max, in microseconds) and each counter, one per
+     * line, e.g. for logging or an on-screen overlay.
+     * @param out Receives the summary
+     * @return out
+     */
+    public StringBuilder dump(StringBuilder out) {
+        for(int i = 0; i < STAGE_COUNT; i++) {
+            LatencyHistogram stage = stages[i];
+            out.append(STAGE_NAMES[i])
+                    .append(": p50 ").append(toMicros(stage.getPercentile(50)))
+                    .append("us, p99 ").append(toMicros(stage.getPercentile(99)))
+                    .append("us, max ").append(toMicros(stage.getMax()))
+                    .append("us (n=").append(stage.getCount()).append(")\n");
+        }
+        for(int i = 0; i < COUNTER_COUNT; i++) {
+            out.append(COUNTER_NAMES[i]).append(": ").append(counters.get(i)).append('\n');
+        }
+        return out;
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return dump(new StringBuilder()).toString();
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * Retrieves a stage's latency histogram.
+     * @param stage The stage, e.g. {@link #STAGE_DELIVERY}
+     * @return the histogram
+     */
+    public LatencyHistogram getLatency(int stage) {
+        return stages[stage];
+    }
+
+    /**
+     * Retrieves a counter's value.
+     * @param counter The counter, e.g. {@link #COUNT_DELIVERED}
+     * @return the count
+     */
+    public long getCount(int counter) {
+        return counters.get(counter);
+    }
+}
@@ -0,0 +1,275 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Event object that contains information about a Joystick movement event.
+ * <p>
+ * Only the raw stick position and the joystick's measurements are stored when an event is created;
+ * every derived value (distance, angle, direction) is calculated on first request and then memoized,
+ * so listeners only pay for the values they use. Derived values are calculated the same way the
+ * creating {@link JoystickGeometry} would (e.g. fixed-point, or from its {@link TrigTable}).
+ * <p>
+ * Events may be recycled (see {@link #set(float, float, float, float, float, long, JoystickGeometry)}): when a joystick
+ * delivers recycled events, the same instance is reset in place for each movement, so listeners that
+ * keep a reference beyond {@link JoystickMoveListener#OnJoystickMove(JoystickMoveEvent)} must take a
+ * {@link #copy()}.
+ * @author Christopher Bull
+ */
+public class JoystickMoveEvent {
+    // Marks a lazily calculated value as not yet calculated
+    private static final float UNSET = Float.MAX_VALUE;
+
+    private float touchX;
+    private float touchY;
+    private float centerX;
+    private float centerY;
+    private float radius;
+    private long eventTime;
+    private long deliveryTime;
+    // Calculates the derived values (null for the floating-point defaults)
+    private JoystickGeometry geometry;
+
+    // Derived values, calculated lazily
+    private float angle = UNSET;
+    private float angle_radians = UNSET;
+    private Direction direction;
+    private float distance = UNSET;
+
+    /**
+     * Initialises an empty (centred) Joystick move event object, to be filled by
+     * {@link #set(float, float, float, float, float, long, JoystickGeometry)}.
+     */
+    public JoystickMoveEvent() {}
+
+    /**
+     * Initialises the Joystick move event object, with precalculated values, without a radius or
+     * timestamp. Use the get*() methods to retrieve event information.
+     * @param distance distance from center
+     * @param angle angle from top
+     */
+    public JoystickMoveEvent(float touchX, float touchY, float centerX, float centerY, float distance, float angle) {
+        set(touchX, touchY, centerX, centerY, 0f, distance, angle, 0);
+    }
+
+    /**
+     * Initialises the Joystick move event object, with precalculated values.
+     * Use the get*() methods to retrieve event information.
+     * @param radius radius of the joystick
+     * @param distance distance from center
+     * @param angle angle from top
+     * @param eventTime time of the touch, in milliseconds (uptime time base)
+     */
+    public JoystickMoveEvent(float touchX, float touchY, float centerX, float centerY, float radius, float distance, float angle, long eventTime) {
+        set(touchX, touchY, centerX, centerY, radius, distance, angle, eventTime);
+    }
+
+    /**
+     * Resets this event in place (for recycling), clearing any lazily calculated values. The delivery
+     * time is reset to the event time.
+     * @param radius radius of the joystick
+     * @param eventTime time of the touch, in milliseconds (uptime time base)
+     * @param geometry geometry to calculate derived values with (its mode and trig table), or null for
+     *                 the floating-point defaults
+     * @return this event
+     */
+    public JoystickMoveEvent set(float touchX, float touchY, float centerX, float centerY, float radius, long eventTime, JoystickGeometry geometry) {
+        this.touchX = touchX;
+        this.touchY = touchY;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+        this.eventTime = eventTime;
+        this.deliveryTime = eventTime;
+        this.geometry = geometry;
+        angle = UNSET;
+        angle_radians = UNSET;
+        direction = null;
+        distance = UNSET;
+        return this;
+    }
+
+    /**
+     * Moves the inner-stick of this event in place (e.g. for filters that reshape the stick's
+     * movement), keeping its measurements and times, and clearing any lazily calculated values.
+     * @return this event
+     */
+    public JoystickMoveEvent setTouch(float touchX, float touchY) {
+        long deliveryTime = this.deliveryTime;
+        return set(touchX, touchY, centerX, centerY, radius, eventTime, geometry).setDeliveryTime(deliveryTime);
+    }
+
+    /**
+     * Resets this event in place (for recycling), with precalculated values, without a radius or
+     * timestamp.
+     * @param distance distance from center
+     * @param angle angle from top
+     * @return this event
+     */
+    public JoystickMoveEvent set(float touchX, float touchY, float centerX, float centerY, float distance, float angle) {
+        return set(touchX, touchY, centerX, centerY, 0f, distance, angle, 0);
+    }
+
+    /**
+     * Resets this event in place (for recycling), with precalculated values.
+     * @param radius radius of the joystick
+     * @param distance distance from center
+     * @param angle angle from top
+     * @param eventTime time of the touch, in milliseconds (uptime time base)
+     * @return this event
+     */
+    public JoystickMoveEvent set(float touchX, float touchY, float centerX, float centerY, float radius, float distance, float angle, long eventTime) {
+        set(touchX, touchY, centerX, centerY, radius, eventTime, null);
+        this.distance = distance;
+        this.angle = angle;
+        return this;
+    }
+
+    /**
+     * Resets this event in place (for recycling), to the values of another event (including any
+     * values it has already calculated).
+     * @param event The event to copy values from
+     * @return this event
+     */
+    public JoystickMoveEvent set(JoystickMoveEvent event) {
+        set(event.touchX, event.touchY, event.centerX, event.centerY, event.radius, event.eventTime, event.geometry);
+        deliveryTime = event.deliveryTime;
+        angle = event.angle;
+        angle_radians = event.angle_radians;
+        direction = event.direction;
+        distance = event.distance;
+        return this;
+    }
+
+    /**
+     * Creates an independent copy of this event. Listeners receiving recycled events must copy any
+     * event they keep a reference to.
+     * @return a new event with the same values
+     */
+    public JoystickMoveEvent copy() {
+        return new JoystickMoveEvent().set(this);
+    }
+
+    /**
+     * Adjusts the distance of this event, e.g. for dead-zone remapping (see {@link JoystickFilter}).
+     * @param distance distance from center, as a decimal fraction
+     */
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+
+    /**
+     * Stamps the time this event is delivered, e.g. by a poll, which re-delivers a held stick's event
+     * unchanged (see {@link #getDeliveryTime()}).
+     * @param deliveryTime time of delivery, in milliseconds (uptime time base)
+     * @return this event
+     */
+    public JoystickMoveEvent setDeliveryTime(long deliveryTime) {
+        this.deliveryTime = deliveryTime;
+        return this;
+    }
+
+    JoystickGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Retrieves the X coordinate of the inner-stick.
+     * @return The X coordinate
+     */
+    public float getTouchX() {
+        return touchX;
+    }
+
+    /**
+     * Retrieves the Y coordinate of the inner-stick.
+     * @return The Y coordinate
+     */
+    public float getTouchY() {
+        return touchY;
+    }
+
+    public float getCenterX() {
+        return centerX;
+    }
+
+    public float getCenterY() {
+        return centerY;
+    }
+
+    /**
+     * Retrieves the radius of the joystick (i.e. the distance of a fully deflected stick).
+     * @return The radius, or 0 if unknown
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Retrieves the time of the touch that produced this event, in milliseconds, in the same time
+     * base as MotionEvent.getEventTime() (i.e. SystemClock.uptimeMillis()).
+     * @return The event time
+     */
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * Retrieves the time this event was delivered, in the same time base as {@link #getEventTime()}.
+     * The same as the event time, unless the event was stamped when it was delivered (e.g. by a poll,
+     * which re-delivers a held stick's event with its original event time). Time-based filters (e.g.
+     * a rate limit) use this, so their output depends only on the event, not when it's processed.
+     * @return The delivery time
+     */
+    public long getDeliveryTime() {
+        return deliveryTime;
+    }
+
+    /**
+     * Retrieves the angle of the joystick in degrees; 0 is the top of the joystick.
+     * @return The angle of the joystick
+     */
+    public float getAngle() {
+        if(angle == UNSET) {
+            angle = geometry != null
+                    ? geometry.calculateAngle_InDegrees(touchX, touchY, centerX, centerY)
+                    : TrigTable.DEFAULT.calculateAngle_InDegrees(touchX, touchY, centerX, centerY);
+        }
+        return angle;
+    }
+
+    /**
+     * Retrieves the angle of the joystick in radians; 0 is the right of the joystick.
+     * @return The angle of the joystick
+     */
+    public float getAngle_Radians() {
+        if(angle_radians == UNSET) {
+            angle_radians = geometry != null
+                    ? geometry.calculateAngle_InRads(touchX, touchY, centerX, centerY)
+                    : TrigTable.DEFAULT.calculateAngle_InRads(touchX, touchY, centerX, centerY);
+        }
+        return angle_radians;
+    }
+
+    /**
+     * Retrieves a enum value that represents a simplified direction (e.g. 'Forward')
+     * @return The direction of the Joystick angle, of type Direction
+     */
+    public Direction getDirection() {
+        if(direction == null) {
+            direction = TrigTable.calculateDirection(getAngle());
+        }
+        return direction;
+    }
+
+    /**
+     * Retrieves the distance of the joystick from it's centre. Value is a percentage.
+     * @return Percentage distance from the centre.
+     */
+    public float getDistance() {
+        if(distance == UNSET) {
+            distance = geometry != null
+                    ? geometry.calculateDistance_AsDecimalFraction(touchX, touchY, centerX, centerY, radius)
+                    : JoystickMath.calculateDistance_AsDecimalFraction(touchX, touchY, centerX, centerY, radius);
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,14 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Interface definition for a callback to be invoked when a Joystick is moved.
+ * @author Christopher Bull
+ */
+public interface JoystickMoveListener {
+    /**
+     * Called when a Joystick is moved.
+     * @param event Contains information about the joystick movement event. May be a recycled
+     *              instance; use {@link JoystickMoveEvent#copy()} to keep it beyond this call.
+     */
+    void OnJoystickMove(JoystickMoveEvent event);
+}
@@ -0,0 +1,197 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * A bounded, single-producer/multi-consumer ring of joystick states: the producer (e.g. a view's
+ * touch handler) publishes every state, and each consumer (transport, recorder, simulation) reads at
+ * its own pace through its own {@link Cursor}, either taking only the newest state
+ * ({@link #readLatest(Cursor, JoystickState.Snapshot)}) or draining the history in order
+ * ({@link #readNext(Cursor, JoystickState.Snapshot)}).
+ * <p>
+ * Lock-free and preallocated: publishing never blocks or allocates, however slow the consumers are.
+ * A consumer that falls more than the ring's capacity behind skips the overwritten states (counted
+ * by its cursor), rather than holding up the producer, or the queue growing (as a looper's message
+ * queue would). The states are held in a {@link StampedRing}, so a consumer never sees a torn state.
+ * @author Christopher Bull
+ */
+public class JoystickRing {
+
+    /** Default capacity: 256 states (over a second of 200Hz input) */
+    public static final int CAPACITY_DEFAULT = 256;
+
+    // Fields per slot
+    private static final int FIELD_TOUCH_X = 0;
+    private static final int FIELD_TOUCH_Y = 1;
+    private static final int FIELD_CENTER_X = 2;
+    private static final int FIELD_CENTER_Y = 3;
+    private static final int FIELD_RADIUS = 4;
+    private static final int FIELD_RADIUS_CLAMP = 5;
+    private static final int FIELD_TOUCHING = 6;
+    private static final int FIELDS = 7;
+
+    // States, with their event times (one record per sequence number)
+    private final StampedRing ring;
+
+    public JoystickRing() {
+        this(CAPACITY_DEFAULT);
+    }
+
+    /**
+     * Initialises an empty ring.
+     * @param capacity Number of states kept (a power of two)
+     */
+    public JoystickRing(int capacity) {
+        ring = new StampedRing(capacity, FIELDS);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Publishes a state. Must only be called by a single producer thread.
+     * @param touch_x Inner-stick X coordinate
+     * @param touch_y Inner-stick Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @param radius_Clamp The furthest the inner-stick may move from the centre (full deflection)
+     * @param touching Whether the joystick is being touched
+     * @param eventTime Time of the touch, in milliseconds (uptime time base)
+     */
+    public void publish(float touch_x, float touch_y, float center_x, float center_y, float radius, float radius_Clamp, boolean touching, long eventTime) {
+        int slot = ring.beginWrite();
+        ring.setFloat(slot, FIELD_TOUCH_X, touch_x);
+        ring.setFloat(slot, FIELD_TOUCH_Y, touch_y);
+        ring.setFloat(slot, FIELD_CENTER_X, center_x);
+        ring.setFloat(slot, FIELD_CENTER_Y, center_y);
+        ring.setFloat(slot, FIELD_RADIUS, radius);
+        ring.setFloat(slot, FIELD_RADIUS_CLAMP, radius_Clamp);
+        ring.setInt(slot, FIELD_TOUCHING, touching ? 1 : 0);
+        ring.setLong(slot, eventTime);
+        ring.endWrite();
+    }
+
+    /**
+     * Creates a cursor for a new consumer, which will read states published from now on.
+     * @return the cursor (owned by the consumer's thread)
+     */
+    public Cursor newCursor() {
+        return new Cursor(ring.getCount());
+    }
+
+    /**
+     * Reads the newest state, if there is one the cursor hasn't read; any older unread states are
+     * skipped (latest-value-wins).
+     * @param cursor The consumer's cursor
+     * @param snapshot Receives the state
+     * @return true if a new state was read, false if there was none
+     */
+    public boolean readLatest(Cursor cursor, JoystickState.Snapshot snapshot) {
+        while(true) {
+            long latest = ring.getCount() - 1;
+            if(latest < cursor.next) {
+                return false;
+            }
+            if(read(latest, snapshot)) {
+                cursor.next = latest + 1;
+                return true;
+            }
+            // Overwritten whilst reading (the producer lapped the ring); try the newer latest
+        }
+    }
+
+    /**
+     * Reads the next state in order. If the consumer has fallen more than the capacity behind, the
+     * overwritten states are skipped (see {@link Cursor#getSkipped()}).
+     * @param cursor The consumer's cursor
+     * @param snapshot Receives the state
+     * @return true if a state was read, false if the consumer has read every state
+     */
+    public boolean readNext(Cursor cursor, JoystickState.Snapshot snapshot) {
+        while(true) {
+            long available = ring.getCount();
+            if(cursor.next >= available) {
+                return false;
+            }
+            long oldest = available - ring.getCapacity();
+            if(cursor.next < oldest) {
+                cursor.skipped += oldest - cursor.next;
+                cursor.next = oldest;
+            }
+            if(read(cursor.next, snapshot)) {
+                cursor.next++;
+                return true;
+            }
+            // Overwritten whilst reading; skip ahead to what's still in the ring
+        }
+    }
+
+    /**
+     * Reads a sequence's state, if it is still in the ring.
+     * @return false if it has been (or is being) overwritten
+     */
+    private boolean read(long seq, JoystickState.Snapshot snapshot) {
+        int slot = ring.beginRead(seq);
+        if(slot < 0) {
+            return false;
+        }
+        snapshot.touch_x = ring.getFloat(slot, FIELD_TOUCH_X);
+        snapshot.touch_y = ring.getFloat(slot, FIELD_TOUCH_Y);
+        snapshot.center_x = ring.getFloat(slot, FIELD_CENTER_X);
+        snapshot.center_y = ring.getFloat(slot, FIELD_CENTER_Y);
+        snapshot.radius = ring.getFloat(slot, FIELD_RADIUS);
+        snapshot.radius_Clamp = ring.getFloat(slot, FIELD_RADIUS_CLAMP);
+        snapshot.touching = ring.getInt(slot, FIELD_TOUCHING) != 0;
+        snapshot.eventTime = ring.getLong(slot);
+        snapshot.version = (int) seq;
+        return ring.endRead(seq);
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getCapacity() {
+        return ring.getCapacity();
+    }
+
+    /**
+     * Retrieves the number of states published.
+     * @return the count
+     */
+    public long getPublishedCount() {
+        return ring.getCount();
+    }
+
+    /**
+     * A consumer's position in the ring. Each consumer owns its cursor; don't share one between
+     * threads.
+     */
+    public static class Cursor {
+        private long next;
+        private long skipped = 0;
+
+        Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Retrieves the number of states that were overwritten before this consumer read them (via
+         * {@link JoystickRing#readNext(Cursor, JoystickState.Snapshot)}).
+         * @return the count
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Retrieves the number of states this consumer hasn't read yet (which may exceed the ring's
+         * capacity, if it has fallen behind).
+         * @param ring The ring this cursor reads
+         * @return the count
+         */
+        public long getBacklog(JoystickRing ring) {
+            return Math.max(0, ring.getPublishedCount() - next);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Interface definition for a callback to be invoked for each individual input sample of a Joystick,
+ * including batched (historical) samples. Unlike {@link JoystickMoveListener}, no event object is
+ * created; samples are delivered as primitives.
+ * @author Christopher Bull
+ */
+public interface JoystickSampleListener {
+    /**
+     * Called for each input sample, in time order.
+     * @param touchX Inner-stick X coordinate (clamped to the joystick)
+     * @param touchY Inner-stick Y coordinate (clamped to the joystick)
+     * @param eventTime Time of the sample, in milliseconds (in the uptime time base)
+     */
+    void OnJoystickSample(float touchX, float touchY, long eventTime);
+}
@@ -0,0 +1,76 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Smoothing filter: removes touch jitter from the stick position with a pair of {@link OneEuroFilter}s
+ * (one per axis), and can optionally predict the position a short time ahead, to offset touch and
+ * display latency. Prediction extrapolates along the filtered velocity, so is only as good as the
+ * recent movement; keep the horizon short (e.g. 8 to 16ms).
+ * <p>
+ * Works on the normalised stick offset (offset from the centre, divided by the radius), so the same
+ * parameters suit any joystick size. Requires timestamped events with a radius (see
+ * {@link JoystickMoveEvent#getEventTime()}); other events are passed through unchanged. The smoothed
+ * event's touch position, distance and angle are all updated.
+ * @author Christopher Bull
+ */
+public class JoystickSmoothingFilter implements JoystickFilter {
+
+    private final OneEuroFilter filter_x;
+    private final OneEuroFilter filter_y;
+    private final long predictionMillis;
+
+    /**
+     * Initialises the filter with default One Euro parameters, and no prediction.
+     */
+    public JoystickSmoothingFilter() {
+        this(OneEuroFilter.MIN_CUTOFF_DEFAULT, OneEuroFilter.BETA_DEFAULT, 0);
+    }
+
+    /**
+     * Initialises the filter.
+     * @param minCutoff Minimum cutoff frequency, in Hz (see {@link OneEuroFilter})
+     * @param beta Speed coefficient (see {@link OneEuroFilter})
+     * @param predictionMillis How far ahead to predict the stick position, in milliseconds (0 for none)
+     */
+    public JoystickSmoothingFilter(float minCutoff, float beta, long predictionMillis) {
+        if(predictionMillis < 0) {
+            throw new IllegalArgumentException("predictionMillis must not be negative");
+        }
+        filter_x = new OneEuroFilter(minCutoff, beta, OneEuroFilter.D_CUTOFF_DEFAULT);
+        filter_y = new OneEuroFilter(minCutoff, beta, OneEuroFilter.D_CUTOFF_DEFAULT);
+        this.predictionMillis = predictionMillis;
+    }
+
+    @Override
+    public boolean filter(JoystickMoveEvent event) {
+        float radius = event.getRadius();
+        if(radius <= 0f || event.getEventTime() <= 0) {
+            return true;
+        }
+        long time = event.getEventTime();
+        float x = filter_x.filter((event.getTouchX() - event.getCenterX()) / radius, time);
+        float y = filter_y.filter((event.getTouchY() - event.getCenterY()) / radius, time);
+
+        if(predictionMillis > 0) {
+            float horizon = predictionMillis / 1000f;
+            x += filter_x.getDerivative() * horizon;
+            y += filter_y.getDerivative() * horizon;
+        }
+
+        // Keep the stick within the border
+        float distance = (float) Math.sqrt(x * x + y * y);
+        if(distance > 1f) {
+            x /= distance;
+            y /= distance;
+        }
+
+        // Distance and angle are recalculated lazily, from the new position
+        event.setTouch(event.getCenterX() + x * radius, event.getCenterY() + y * radius);
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        filter_x.reset();
+        filter_y.reset();
+    }
+}
@@ -0,0 +1,139 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * The latest state of a Joystick (stick position, measurements and touching), published by a single
+ * writer (e.g. a view's touch handler) and readable from any thread without locks.
+ * <p>
+ * Uses a sequence lock: the writer makes the sequence odd whilst writing, and even once done, and
+ * readers retry if the sequence changed (or was odd) whilst they were reading. Readers therefore
+ * always see one coherent state (never X from one touch and Y from another), and never block the
+ * writer. Reads copy into a caller-supplied {@link Snapshot}, so neither side allocates.
+ * @author Christopher Bull
+ */
+public class JoystickState {
+
+    // All fields are volatile, so that reads can't be reordered around the sequence checks
+    private volatile int sequence = 0;
+    private volatile float touch_x = 0f;
+    private volatile float touch_y = 0f;
+    private volatile float center_x = 0f;
+    private volatile float center_y = 0f;
+    private volatile float radius = 0f;
+    private volatile float radius_Clamp = 0f;
+    private volatile boolean touching = false;
+    private volatile long eventTime = 0;
+
+    /**
+     * Publishes a new state. Must only be called by a single writer thread.
+     * @param touch_x Inner-stick X coordinate
+     * @param touch_y Inner-stick Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @param radius The radius of the joystick
+     * @param radius_Clamp The furthest the inner-stick may move from the centre (full deflection)
+     * @param touching Whether the joystick is being touched
+     * @param eventTime Time of the touch, in milliseconds (uptime time base)
+     */
+    public void publish(float touch_x, float touch_y, float center_x, float center_y, float radius, float radius_Clamp, boolean touching, long eventTime) {
+        int seq = sequence;
+        sequence = seq + 1; // Odd: write in progress
+        this.touch_x = touch_x;
+        this.touch_y = touch_y;
+        this.center_x = center_x;
+        this.center_y = center_y;
+        this.radius = radius;
+        this.radius_Clamp = radius_Clamp;
+        this.touching = touching;
+        this.eventTime = eventTime;
+        sequence = seq + 2; // Even: write complete
+    }
+
+    /**
+     * Reads a consistent copy of the latest state. Lock-free: spins only whilst a write is in
+     * progress (a handful of field writes).
+     * @param snapshot The snapshot to copy the state into
+     * @return the given snapshot
+     */
+    public Snapshot read(Snapshot snapshot) {
+        int seq;
+        do {
+            seq = sequence;
+            snapshot.touch_x = touch_x;
+            snapshot.touch_y = touch_y;
+            snapshot.center_x = center_x;
+            snapshot.center_y = center_y;
+            snapshot.radius = radius;
+            snapshot.radius_Clamp = radius_Clamp;
+            snapshot.touching = touching;
+            snapshot.eventTime = eventTime;
+        } while((seq & 1) != 0 || seq != sequence);
+        snapshot.version = seq >>> 1;
+        return snapshot;
+    }
+
+    /**
+     * Retrieves the version of the latest state; incremented on each publish. Allows readers to
+     * cheaply check whether the state has changed since their last {@link #read(Snapshot)}.
+     * @return the state version
+     */
+    public int getVersion() {
+        return sequence >>> 1;
+    }
+
+    /**
+     * A reader-owned copy of a JoystickState. Reuse instances to avoid allocation.
+     */
+    public static class Snapshot {
+        // Package-private, so other publishers (e.g. JoystickRing) can fill snapshots
+        int version;
+        float touch_x;
+        float touch_y;
+        float center_x;
+        float center_y;
+        float radius;
+        float radius_Clamp;
+        boolean touching;
+        long eventTime;
+
+        public int getVersion() {
+            return version;
+        }
+
+        public float getTouchX() {
+            return touch_x;
+        }
+
+        public float getTouchY() {
+            return touch_y;
+        }
+
+        public float getCenterX() {
+            return center_x;
+        }
+
+        public float getCenterY() {
+            return center_y;
+        }
+
+        public float getRadius() {
+            return radius;
+        }
+
+        /**
+         * Retrieves the furthest the inner-stick may move from the centre: its distance at full
+         * deflection (at most the radius; e.g. two thirds of it, if the stick is kept within the border).
+         * @return The clamp radius, or 0 if unknown
+         */
+        public float getClampRadius() {
+            return radius_Clamp;
+        }
+
+        public boolean isTouching() {
+            return touching;
+        }
+
+        public long getEventTime() {
+            return eventTime;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package caffeinatedandroid.joystick;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory histogram of latencies (in nanoseconds), for percentiles without keeping samples.
+ * <p>
+ * Buckets are log-linear: each power of two is split into {@link #SUB_BUCKETS} equal buckets, so a
+ * recorded value is resolved to within ~6% (and exactly below {@link #SUB_BUCKETS} nanoseconds), up
+ * to {@link #MAX_TRACKABLE_NANOS}; longer values are counted in the last bucket. Recording is a few
+ * bit operations and a counter update, and never allocates.
+ * <p>
+ * Record from a single thread (e.g. the UI thread); it may be read from any thread, when reads
+ * reflect recent (not necessarily the very latest) values.
+ * @author Christopher Bull
+ */
+public class LatencyHistogram {
+
+    // Sub-buckets per power of two (as bits)
+    private static final int SUB_BITS = 4;
+    /** Buckets per power of two */
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Largest power of two tracked: 2^36ns (~69 seconds)
+    private static final int MAX_MAGNITUDE = 36;
+    /** Longest latency resolved; longer latencies are counted as this */
+    public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long count = 0;
+    private volatile long max = 0;
+    private volatile long total = 0;
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Records a latency.
+     * @param nanos The latency, in nanoseconds (negative values are recorded as 0)
+     */
+    public void record(long nanos) {
+        if(nanos < 0) {
+            nanos = 0;
+        } else if(nanos > MAX_TRACKABLE_NANOS) {
+            nanos = MAX_TRACKABLE_NANOS;
+        }
+        int bucket = bucketOf(nanos);
+        // Single writer, so plain increments (lazily published) are enough
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        total += nanos;
+        if(nanos > max) {
+            max = nanos;
+        }
+        count++;
+    }
+
+    /**
+     * Clears all recorded latencies. Call from the recording thread.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            counts.lazySet(i, 0);
+        }
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+    static int bucketOf(long nanos) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos | SUB_BUCKETS);
+        int shift = magnitude - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (nanos >>> shift);
+    }
+
+    /**
+     * Retrieves the highest value counted by a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        int shift = Math.max(0, (bucket >> SUB_BITS) - 1);
+        long lowest = (long) (bucket - (shift << SUB_BITS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * Retrieves a percentile of the recorded latencies, e.g. 50 for the median, or 99. Resolved to
+     * the highest value of its bucket (but no higher than the maximum recorded).
+     * @param percentile 0.0 to 100.0
+     * @return the latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = this.count;
+        if(count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long max = this.max;
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if(seen >= target) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Retrieves the mean of the recorded latencies.
+     * @return the mean in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getMean() {
+        long count = this.count;
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Retrieves the number of latencies recorded.
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+}
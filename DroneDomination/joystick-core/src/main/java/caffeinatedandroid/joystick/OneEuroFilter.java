@@ -0,0 +1,108 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * One Euro filter (Casiez et al., CHI 2012): a first-order low-pass filter whose cutoff frequency
+ * adapts to the signal's speed. Slow movements get a low cutoff (removing jitter), and fast movements
+ * a high cutoff (removing lag), so a resting thumb is steady while a flick still responds immediately.
+ * <p>
+ * Samples are timestamped, so irregular sample rates (e.g. batched or dropped touch events) are
+ * handled correctly. Does not allocate.
+ * @author Christopher Bull
+ */
+public class OneEuroFilter {
+
+    /** Default minimum cutoff frequency, in Hz */
+    public static final float MIN_CUTOFF_DEFAULT = 1f;
+    /** Default speed coefficient */
+    public static final float BETA_DEFAULT = 0.02f;
+    /** Default cutoff frequency for the derivative, in Hz */
+    public static final float D_CUTOFF_DEFAULT = 1f;
+
+    private final float minCutoff;
+    private final float beta;
+    private final float dCutoff;
+
+    private boolean initialised = false;
+    private float value;
+    private float derivative;
+    private long lastTime;
+
+    /**
+     * Initialises the filter with default parameters.
+     */
+    public OneEuroFilter() {
+        this(MIN_CUTOFF_DEFAULT, BETA_DEFAULT, D_CUTOFF_DEFAULT);
+    }
+
+    /**
+     * Initialises the filter.
+     * @param minCutoff Minimum cutoff frequency, in Hz; lower values remove more jitter when slow
+     * @param beta Speed coefficient; higher values reduce lag when fast
+     * @param dCutoff Cutoff frequency for the derivative, in Hz
+     */
+    public OneEuroFilter(float minCutoff, float beta, float dCutoff) {
+        if(minCutoff <= 0f || dCutoff <= 0f || beta < 0f) {
+            throw new IllegalArgumentException("Cutoffs must be positive, and beta must not be negative");
+        }
+        this.minCutoff = minCutoff;
+        this.beta = beta;
+        this.dCutoff = dCutoff;
+    }
+
+    /**
+     * Filters a sample.
+     * @param sample The raw value
+     * @param time Time of the sample, in milliseconds
+     * @return the filtered value
+     */
+    public float filter(float sample, long time) {
+        if(!initialised) {
+            initialised = true;
+            value = sample;
+            derivative = 0f;
+            lastTime = time;
+            return value;
+        }
+        float dt = (time - lastTime) / 1000f;
+        if(dt <= 0f) {
+            // Same (or out of order) timestamp: nothing to integrate
+            return value;
+        }
+        lastTime = time;
+
+        float rawDerivative = (sample - value) / dt;
+        derivative += alpha(dt, dCutoff) * (rawDerivative - derivative);
+        float cutoff = minCutoff + beta * Math.abs(derivative);
+        value += alpha(dt, cutoff) * (sample - value);
+        return value;
+    }
+
+    /**
+     * Retrieves the latest filtered value.
+     * @return the filtered value
+     */
+    public float getValue() {
+        return value;
+    }
+
+    /**
+     * Retrieves the latest (smoothed) rate of change of the value.
+     * @return the derivative, in units per second
+     */
+    public float getDerivative() {
+        return derivative;
+    }
+
+    /**
+     * Clears the filter's history; the next sample passes through unfiltered.
+     */
+    public void reset() {
+        initialised = false;
+        derivative = 0f;
+    }
+
+    private static float alpha(float dt, float cutoff) {
+        float tau = 1f / (2f * (float) Math.PI * cutoff);
+        return 1f / (1f + tau / dt);
+    }
+}
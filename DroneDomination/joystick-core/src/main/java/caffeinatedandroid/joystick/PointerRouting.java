@@ -0,0 +1,137 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Tracks which of a multi-touch gesture's pointers are routed directly to controls, and which are
+ * left to the default (per-View) dispatch, and works out which action the default dispatch should
+ * see for each event, as if it were only ever sent the default pointers.
+ * <p>
+ * Each pointer is decided as it goes down: on a control it is routed, otherwise it is a default
+ * pointer. So a pointer that goes down on e.g. an unregistered button, whilst a joystick is held,
+ * still reaches the button. The default dispatch's first pointer down is reported as
+ * {@link #ACTION_DOWN}, and its last pointer up as {@link #ACTION_UP}, however many routed
+ * pointers are down. Pointers are identified by ID (0 to {@link #MAX_POINTER_ID}). Not thread-safe.
+ * @author Christopher Bull
+ */
+public class PointerRouting {
+
+    /** Highest pointer ID */
+    public static final int MAX_POINTER_ID = 31;
+
+    /** Action: none (the event isn't sent) */
+    public static final int ACTION_NONE = -1;
+    /** Action: down (same value as MotionEvent.ACTION_DOWN) */
+    public static final int ACTION_DOWN = 0;
+    /** Action: up (same value as MotionEvent.ACTION_UP) */
+    public static final int ACTION_UP = 1;
+    /** Action: move (same value as MotionEvent.ACTION_MOVE) */
+    public static final int ACTION_MOVE = 2;
+    /** Action: cancel (same value as MotionEvent.ACTION_CANCEL) */
+    public static final int ACTION_CANCEL = 3;
+    /** Action: non-primary pointer down (same value as MotionEvent.ACTION_POINTER_DOWN) */
+    public static final int ACTION_POINTER_DOWN = 5;
+    /** Action: non-primary pointer up (same value as MotionEvent.ACTION_POINTER_UP) */
+    public static final int ACTION_POINTER_UP = 6;
+
+    // One bit per pointer ID
+    private int routedPointers = 0;
+    private int defaultPointers = 0;
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Records a pointer going down (clear the routing first at the start of a gesture).
+     * @param pointerId The pointer's ID
+     * @param onControl true if it went down on a control (and is routed to it)
+     */
+    public void pointerDown(int pointerId, boolean onControl) {
+        int bit = bit(pointerId);
+        if(onControl) {
+            routedPointers |= bit;
+            defaultPointers &= ~bit;
+        } else {
+            defaultPointers |= bit;
+            routedPointers &= ~bit;
+        }
+    }
+
+    /**
+     * Records a pointer going up, once its action has been dispatched.
+     * @param pointerId The pointer's ID
+     */
+    public void pointerUp(int pointerId) {
+        int bit = bit(pointerId);
+        routedPointers &= ~bit;
+        defaultPointers &= ~bit;
+    }
+
+    /**
+     * Forgets every pointer (e.g. after a cancel, or at the start of a new gesture).
+     */
+    public void clear() {
+        routedPointers = 0;
+        defaultPointers = 0;
+    }
+
+    /**
+     * Works out the action the default dispatch should see for an event; call after
+     * {@link #pointerDown(int, boolean)} for down actions, and before {@link #pointerUp(int)} for
+     * up actions.
+     * @param action The event's (masked) action
+     * @param pointerId ID of the action's pointer (ignored for moves and cancels)
+     * @return the action, or {@link #ACTION_NONE} if the default dispatch isn't sent the event
+     */
+    public int getDefaultAction(int action, int pointerId) {
+        switch(action) {
+            case ACTION_DOWN:
+            case ACTION_POINTER_DOWN:
+                if(!isDefault(pointerId)) {
+                    return ACTION_NONE;
+                }
+                return defaultPointers == bit(pointerId) ? ACTION_DOWN : ACTION_POINTER_DOWN;
+            case ACTION_UP:
+            case ACTION_POINTER_UP:
+                if(!isDefault(pointerId)) {
+                    return ACTION_NONE;
+                }
+                return defaultPointers == bit(pointerId) ? ACTION_UP : ACTION_POINTER_UP;
+            case ACTION_MOVE:
+            case ACTION_CANCEL:
+                return defaultPointers != 0 ? action : ACTION_NONE;
+            default:
+                return ACTION_NONE;
+        }
+    }
+
+    private static int bit(int pointerId) {
+        if(pointerId < 0 || pointerId > MAX_POINTER_ID) {
+            throw new IllegalArgumentException("pointerId must be between 0 and " + MAX_POINTER_ID);
+        }
+        return 1 << pointerId;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public boolean isRouted(int pointerId) {
+        return (routedPointers & bit(pointerId)) != 0;
+    }
+
+    public boolean isDefault(int pointerId) {
+        return (defaultPointers & bit(pointerId)) != 0;
+    }
+
+    public boolean hasRoutedPointers() {
+        return routedPointers != 0;
+    }
+
+    /**
+     * Retrieves the pointers left to the default dispatch.
+     * @return a bit mask of their IDs (bit n set for pointer ID n)
+     */
+    public int getDefaultPointers() {
+        return defaultPointers;
+    }
+}
@@ -0,0 +1,130 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * A stick response curve, shaping how a stick axis's deflection maps to output: e.g. exponential
+ * ('expo', for finer control around the centre), a dead-band, an overall rate (maximum output), or
+ * an arbitrary piecewise-linear shape. See {@link ResponseCurveFilter}.
+ * <p>
+ * Curves are compiled into a fixed-size lookup table when created, so applying one costs a single
+ * interpolated table read, whatever its shape. Curves are symmetric (an input of -x gives the
+ * negated output of x), and immutable, so may be shared between threads and joysticks.
+ * @author Christopher Bull
+ */
+public class ResponseCurve {
+
+    /** Number of table intervals, over input magnitudes 0 to 1 */
+    public static final int TABLE_SIZE = 256;
+
+    /** The identity curve (output equals input) */
+    public static final ResponseCurve LINEAR = expo(0f, 0f, 1f);
+
+    // Outputs for input magnitudes 0, 1/TABLE_SIZE, ..., 1 (one extra entry, so reads can interpolate)
+    private final float[] table;
+
+    private ResponseCurve(float[] table) {
+        this.table = table;
+    }
+
+    //////////////
+    // Creation //
+    //////////////
+
+    /**
+     * Creates an exponential curve, with no dead-band, at full rate.
+     * @param expo Amount of expo, 0 (linear) to 1 (cubic)
+     * @return the curve
+     */
+    public static ResponseCurve expo(float expo) {
+        return expo(expo, 0f, 1f);
+    }
+
+    /**
+     * Creates an exponential curve: output = rate * ((1 - expo) * x + expo * x^3), where x is the
+     * input magnitude beyond the dead-band, rescaled to 0 to 1.
+     * @param expo Amount of expo, 0 (linear) to 1 (cubic)
+     * @param deadBand Input magnitude below which the output is 0 (e.g. 0.05), 0 (inclusive) to 1
+     * @param rate Output at full deflection (e.g. 0.5 to halve the maximum), 0 to 1
+     * @return the curve
+     */
+    public static ResponseCurve expo(float expo, float deadBand, float rate) {
+        if(expo < 0f || expo > 1f) {
+            throw new IllegalArgumentException("expo must be between 0 and 1");
+        }
+        if(deadBand < 0f || deadBand >= 1f) {
+            throw new IllegalArgumentException("deadBand must be between 0 (inclusive) and 1 (exclusive)");
+        }
+        if(rate < 0f || rate > 1f) {
+            throw new IllegalArgumentException("rate must be between 0 and 1");
+        }
+        float[] table = new float[TABLE_SIZE + 1];
+        for(int i = 0; i <= TABLE_SIZE; i++) {
+            float input = (float) i / TABLE_SIZE;
+            if(input > deadBand) {
+                double x = (input - deadBand) / (1.0 - deadBand);
+                table[i] = (float) (rate * ((1 - expo) * x + expo * x * x * x));
+            }
+        }
+        return new ResponseCurve(table);
+    }
+
+    /**
+     * Creates a piecewise-linear curve through a set of points (input magnitude to output), e.g. a
+     * gentle slope for small deflections and a steep one near the border. The curve starts from an
+     * output of 0 at input 0 (unless a point is given there), and holds the last point's output
+     * beyond it.
+     * @param inputs Input magnitudes, increasing, 0 to 1
+     * @param outputs Output for each input, 0 to 1
+     * @return the curve
+     */
+    public static ResponseCurve piecewise(float[] inputs, float[] outputs) {
+        if(inputs.length == 0 || inputs.length != outputs.length) {
+            throw new IllegalArgumentException("inputs and outputs must be the same (non-zero) length");
+        }
+        for(int p = 0; p < inputs.length; p++) {
+            if(inputs[p] < 0f || inputs[p] > 1f || (p > 0 && inputs[p] <= inputs[p - 1])) {
+                throw new IllegalArgumentException("inputs must be increasing, between 0 and 1");
+            }
+            if(outputs[p] < 0f || outputs[p] > 1f) {
+                throw new IllegalArgumentException("outputs must be between 0 and 1");
+            }
+        }
+        float[] table = new float[TABLE_SIZE + 1];
+        int p = 0; // Index of the first point at or beyond the input
+        for(int i = 0; i <= TABLE_SIZE; i++) {
+            float input = (float) i / TABLE_SIZE;
+            while(p < inputs.length && inputs[p] < input) {
+                p++;
+            }
+            if(p == inputs.length) {
+                table[i] = outputs[p - 1];
+            } else {
+                float x0 = p == 0 ? 0f : inputs[p - 1];
+                float y0 = p == 0 ? 0f : outputs[p - 1];
+                float x1 = inputs[p];
+                float y1 = outputs[p];
+                table[i] = x1 == x0 ? y1 : y0 + (y1 - y0) * (input - x0) / (x1 - x0);
+            }
+        }
+        return new ResponseCurve(table);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Applies the curve to an axis value.
+     * @param value Axis value, -1 to 1 (clamped)
+     * @return the shaped value, -1 to 1
+     */
+    public float apply(float value) {
+        float magnitude = Math.abs(value);
+        if(!(magnitude < 1f)) {
+            magnitude = 1f; // (Including NaN)
+        }
+        float position = magnitude * TABLE_SIZE;
+        int i = Math.min((int) position, TABLE_SIZE - 1);
+        float output = table[i] + (table[i + 1] - table[i]) * (position - i);
+        return value < 0f ? -output : output;
+    }
+}
@@ -0,0 +1,140 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Response curve filter: shapes the stick's feel by applying a {@link ResponseCurve} to each axis of
+ * the normalised stick offset (offset from the centre, divided by the radius), after the stick
+ * geometry, and optionally limits how fast each axis's output may change (a rate limit, in full
+ * deflections per second, by each event's {@link JoystickMoveEvent#getDeliveryTime()}).
+ * <p>
+ * The curves and rate limit may be switched from any thread, whilst events are being filtered: the
+ * configuration is replaced as a whole (a single volatile reference), so each event sees either the
+ * old or the new configuration, never a mix, and the input path never waits on a lock. Curves are
+ * compiled before they are switched in, so switching costs the input path nothing.
+ * <p>
+ * Requires events with a radius; other events are passed through unchanged. The shaped event's touch
+ * position, distance and angle are all updated, so add this filter before filters that adjust the
+ * distance only (e.g. {@link DeadZoneFilter}).
+ * @author Christopher Bull
+ */
+public class ResponseCurveFilter implements JoystickFilter {
+
+    private volatile Config config;
+
+    // Rate limiting state (filtering thread only): the last output, and when it was delivered
+    private boolean hasPrevious = false;
+    private float previous_x = 0f;
+    private float previous_y = 0f;
+    private long previousTime = 0;
+
+    /**
+     * Initialises the filter, with the same curve on both axes, and no rate limit.
+     * @param curve The response curve
+     */
+    public ResponseCurveFilter(ResponseCurve curve) {
+        this(curve, curve, 0f);
+    }
+
+    /**
+     * Initialises the filter.
+     * @param curve_x Response curve for the X axis
+     * @param curve_y Response curve for the Y axis
+     * @param rateLimit Maximum change in each axis's output, in full deflections per second (0 for
+     *                  no limit)
+     */
+    public ResponseCurveFilter(ResponseCurve curve_x, ResponseCurve curve_y, float rateLimit) {
+        setCurves(curve_x, curve_y, rateLimit);
+    }
+
+    /////////////
+    // Methods //
+    /////////////
+
+    /**
+     * Atomically switches the curves and rate limit. May be called from any thread.
+     * @param curve_x Response curve for the X axis
+     * @param curve_y Response curve for the Y axis
+     * @param rateLimit Maximum change in each axis's output, in full deflections per second (0 for
+     *                  no limit)
+     */
+    public void setCurves(ResponseCurve curve_x, ResponseCurve curve_y, float rateLimit) {
+        if(curve_x == null || curve_y == null) {
+            throw new IllegalArgumentException("curves must not be null");
+        }
+        if(rateLimit < 0f) {
+            throw new IllegalArgumentException("rateLimit must not be negative");
+        }
+        config = new Config(curve_x, curve_y, rateLimit);
+    }
+
+    @Override
+    public boolean filter(JoystickMoveEvent event) {
+        float radius = event.getRadius();
+        if(radius <= 0f) {
+            return true;
+        }
+        Config config = this.config; // One read, so the whole event uses one configuration
+        float x = config.curve_x.apply((event.getTouchX() - event.getCenterX()) / radius);
+        float y = config.curve_y.apply((event.getTouchY() - event.getCenterY()) / radius);
+
+        // Rate limit by the event's delivery time, not its touch time: polls re-deliver a held stick's
+        // event with its original touch time, and each delivery must move the output on no further
+        // than the time allows. Time comes from the event (not a clock), so replays filter the same.
+        long time = event.getDeliveryTime();
+        if(config.rateLimit > 0f && hasPrevious) {
+            float maxChange = time > previousTime ? config.rateLimit * (time - previousTime) / 1000f : 0f;
+            x = previous_x + Math.max(-maxChange, Math.min(maxChange, x - previous_x));
+            y = previous_y + Math.max(-maxChange, Math.min(maxChange, y - previous_y));
+        }
+        hasPrevious = true;
+        previous_x = x;
+        previous_y = y;
+        previousTime = time;
+
+        // Keep the stick within the border
+        float distance = (float) Math.sqrt(x * x + y * y);
+        if(distance > 1f) {
+            x /= distance;
+            y /= distance;
+        }
+
+        // Distance and angle are recalculated lazily, from the new position
+        event.setTouch(event.getCenterX() + x * radius, event.getCenterY() + y * radius);
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        hasPrevious = false;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public ResponseCurve getCurveX() {
+        return config.curve_x;
+    }
+
+    public ResponseCurve getCurveY() {
+        return config.curve_y;
+    }
+
+    public float getRateLimit() {
+        return config.rateLimit;
+    }
+
+    /**
+     * An immutable configuration, switched in as a whole.
+     */
+    private static class Config {
+        final ResponseCurve curve_x;
+        final ResponseCurve curve_y;
+        final float rateLimit;
+
+        Config(ResponseCurve curve_x, ResponseCurve curve_y, float rateLimit) {
+            this.curve_x = curve_x;
+            this.curve_y = curve_y;
+            this.rateLimit = rateLimit;
+        }
+    }
+}
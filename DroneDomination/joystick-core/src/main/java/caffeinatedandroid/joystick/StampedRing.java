@@ -0,0 +1,141 @@
+package caffeinatedandroid.joystick;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free storage for a ring of records, written by a single writer and readable from
+ * any thread: the storage behind {@link JoystickRing} (and the drone link's telemetry history).
+ * <p>
+ * Each slot holds a fixed number of int fields (floats are stored as raw int bits) and one long
+ * (e.g. a timestamp), in preallocated arrays, so writing or reading a record never allocates. Every
+ * access has the arrays' volatile semantics, and each slot is guarded by a sequence stamp, like
+ * {@link JoystickState}: a reader never sees a torn record, and a read of a record that has since
+ * been overwritten fails. Records are identified by index: 0 is the first ever written.
+ * <p>
+ * Writing: {@link #beginWrite()}, set the slot's fields, then {@link #endWrite()}. Reading:
+ * {@link #beginRead(long)}, get the slot's fields, then only use them if {@link #endRead(long)}
+ * succeeds.
+ * @author Christopher Bull
+ */
+public class StampedRing {
+
+    private final int mask;
+    private final int fields;
+    private final AtomicIntegerArray values;
+    private final AtomicLongArray longs;
+    // Per slot: 2 * index + 1 whilst writing that record, 2 * index + 2 once written
+    private final AtomicLongArray stamps;
+    // Number of records written
+    private volatile long count = 0;
+
+    /**
+     * Initialises an empty ring.
+     * @param capacity Number of records kept (a power of two)
+     * @param fields Number of int fields per record
+     */
+    public StampedRing(int capacity, int fields) {
+        if(capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        if(fields <= 0) {
+            throw new IllegalArgumentException("fields must be positive");
+        }
+        mask = capacity - 1;
+        this.fields = fields;
+        values = new AtomicIntegerArray(capacity * fields);
+        longs = new AtomicLongArray(capacity);
+        stamps = new AtomicLongArray(capacity);
+    }
+
+    /////////////
+    // Writing //
+    /////////////
+
+    /**
+     * Starts writing the next record, replacing the oldest once full. Must only be called by a single
+     * writer thread.
+     * @return the record's slot
+     */
+    public int beginWrite() {
+        long index = count;
+        int slot = (int) index & mask;
+        stamps.set(slot, 2 * index + 1); // Write in progress
+        return slot;
+    }
+
+    /**
+     * Completes the record being written, making it readable.
+     */
+    public void endWrite() {
+        long index = count;
+        stamps.set((int) index & mask, 2 * index + 2); // Written
+        count = index + 1;
+    }
+
+    public void setInt(int slot, int field, int value) {
+        values.set(slot * fields + field, value);
+    }
+
+    public void setFloat(int slot, int field, float value) {
+        values.set(slot * fields + field, Float.floatToRawIntBits(value));
+    }
+
+    public void setLong(int slot, long value) {
+        longs.set(slot, value);
+    }
+
+    /////////////
+    // Reading //
+    /////////////
+
+    /**
+     * Starts reading a record.
+     * @param index The record's index
+     * @return the record's slot, or -1 if it hasn't been written, or has been (or is being) overwritten
+     */
+    public int beginRead(long index) {
+        if(index < 0) {
+            return -1;
+        }
+        int slot = (int) index & mask;
+        return stamps.get(slot) == 2 * index + 2 ? slot : -1;
+    }
+
+    /**
+     * Completes reading a record.
+     * @param index The record's index
+     * @return true if the fields read are the record's, false if it was overwritten whilst reading
+     */
+    public boolean endRead(long index) {
+        return stamps.get((int) index & mask) == 2 * index + 2;
+    }
+
+    public int getInt(int slot, int field) {
+        return values.get(slot * fields + field);
+    }
+
+    public float getFloat(int slot, int field) {
+        return Float.intBitsToFloat(values.get(slot * fields + field));
+    }
+
+    public long getLong(int slot) {
+        return longs.get(slot);
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Retrieves the number of records written (including any since overwritten).
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,52 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Movement tolerance filter: drops events that haven't moved far enough (in distance or angle)
+ * from the last event passed on, to stop small repetitive events (e.g. touch jitter).
+ * @author Christopher Bull
+ */
+public class ToleranceFilter implements JoystickFilter {
+
+    private final float distanceTolerance;
+    private final float angleTolerance;
+
+    // Last event passed on
+    private boolean hasLast = false;
+    private float distance_last = 0f;
+    private float angle_last = 0f;
+
+    /**
+     * Initialises the filter.
+     * @param distanceTolerance Minimum change in distance (decimal fraction of the radius) to pass on
+     * @param angleTolerance Minimum change in angle (degrees) to pass on
+     */
+    public ToleranceFilter(float distanceTolerance, float angleTolerance) {
+        this.distanceTolerance = distanceTolerance;
+        this.angleTolerance = angleTolerance;
+    }
+
+    @Override
+    public boolean filter(JoystickMoveEvent event) {
+        float distance = event.getDistance();
+        float angle = event.getAngle();
+        if(hasLast) {
+            float angleDelta = Math.abs(angle - angle_last);
+            angleDelta = Math.min(angleDelta, 360f - angleDelta); // Shortest way around
+            boolean distanceChanged = Math.abs(distance - distance_last) >= distanceTolerance;
+            // Angle is meaningless when centred
+            boolean angleChanged = angleDelta >= angleTolerance && (distance > 0f || distance_last > 0f);
+            if(!distanceChanged && !angleChanged) {
+                return false;
+            }
+        }
+        hasLast = true;
+        distance_last = distance;
+        angle_last = angle;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        hasLast = false;
+    }
+}
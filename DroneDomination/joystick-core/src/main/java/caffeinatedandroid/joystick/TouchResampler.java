@@ -0,0 +1,83 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Resamples irregularly timed input samples to a fixed rate, by linear interpolation between
+ * consecutive samples. Sits between a Joystick and a downstream {@link JoystickSampleListener}.
+ * <p>
+ * Gaps between samples longer than the maximum gap (e.g. between separate touches) are not
+ * interpolated; resampling restarts from the next sample instead.
+ * <p>
+ * Not thread-safe; samples must be delivered from a single thread.
+ * @author Christopher Bull
+ */
+public class TouchResampler implements JoystickSampleListener {
+
+    /** Default maximum gap between samples to interpolate across: 100 milliseconds */
+    public static final long MAX_GAP_DEFAULT = 100;
+
+    private final JoystickSampleListener listener;
+    private final long period;
+    private final long maxGap;
+
+    // State
+    private boolean started = false;
+    private float previous_x = 0f;
+    private float previous_y = 0f;
+    private long previous_time = 0;
+    private long next_time = 0;
+
+    /**
+     * Initialises the resampler.
+     * @param period Output sample period, in milliseconds (e.g. 5 for 200Hz)
+     * @param listener Listener for the resampled samples
+     */
+    public TouchResampler(long period, JoystickSampleListener listener) {
+        this(period, MAX_GAP_DEFAULT, listener);
+    }
+
+    /**
+     * Initialises the resampler.
+     * @param period Output sample period, in milliseconds (e.g. 5 for 200Hz)
+     * @param maxGap Longest gap between samples to interpolate across, in milliseconds
+     * @param listener Listener for the resampled samples
+     */
+    public TouchResampler(long period, long maxGap, JoystickSampleListener listener) {
+        if(period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        this.period = period;
+        this.maxGap = maxGap;
+        this.listener = listener;
+    }
+
+    /**
+     * Restarts resampling from the next sample.
+     */
+    public void reset() {
+        started = false;
+    }
+
+    @Override
+    public void OnJoystickSample(float touchX, float touchY, long eventTime) {
+        if(!started || eventTime - previous_time > maxGap || eventTime < previous_time) {
+            // (Re)start on this sample
+            started = true;
+            listener.OnJoystickSample(touchX, touchY, eventTime);
+            next_time = eventTime + period;
+        } else {
+            // Emit every output time up to (and including) this sample's time
+            long elapsed = eventTime - previous_time;
+            while(next_time <= eventTime) {
+                float fraction = elapsed == 0 ? 1f : (float) (next_time - previous_time) / elapsed;
+                listener.OnJoystickSample(
+                        previous_x + (touchX - previous_x) * fraction,
+                        previous_y + (touchY - previous_y) * fraction,
+                        next_time);
+                next_time += period;
+            }
+        }
+        previous_x = touchX;
+        previous_y = touchY;
+        previous_time = eventTime;
+    }
+}
@@ -0,0 +1,211 @@
+package caffeinatedandroid.joystick;
+
+/**
+ * Table-driven trigonometry: sin, cos and atan2 from precomputed lookup tables (with linear
+ * interpolation between entries), for the per-event angle calculations and sprite movement. Tables
+ * are built once, at a configurable resolution, and are then read-only, so instances may be shared
+ * between threads. No method allocates.
+ * <p>
+ * Error bounds (absolute, in radians/units), for a table of N = 2^bits entries:
+ * <ul>
+ *     <li>sin/cos: (2&pi;/N)^2 / 8, plus float rounding (below 4e-7). {@link #BITS_DEFAULT} (4096
+ *     entries): below 7e-7 for arguments within +/-4&pi;. Float precision of the argument itself
+ *     limits accuracy for very large arguments, as with any float trig.</li>
+ *     <li>atan2: 0.65 * (1/N)^2 / 8 (0.65 being the maximum curvature of atan on [0, 1]), plus float
+ *     rounding (below 4e-7). {@link #BITS_DEFAULT}: below 5e-7 radians (3e-5 degrees).</li>
+ * </ul>
+ * See {@link #getMaxSinError()} and {@link #getMaxAtanError()}. {@link JoystickMath} remains the
+ * exact reference.
+ * @author Christopher Bull
+ */
+public final class TrigTable {
+
+    /** Default table resolution: 2^12 entries */
+    public static final int BITS_DEFAULT = 12;
+    /** Shared table at the default resolution (~32KB) */
+    public static final TrigTable DEFAULT = new TrigTable(BITS_DEFAULT);
+
+    private static final float PI = (float) Math.PI;
+    private static final float HALF_PI = (float) (Math.PI / 2);
+    // Float rounding of the interpolated results
+    private static final float ROUNDING_ERROR = 4e-7f;
+    // Maximum |atan''(t)| for t in [0, 1] (at t = 1/sqrt(3))
+    private static final double ATAN_MAX_CURVATURE = 0.6495;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int bits;
+    private final int mask;
+    // sin() over one full turn; one extra entry so interpolation never wraps
+    private final float[] sinTable;
+    private final double sinIndexScale;
+    // atan() over [0, 1]; one extra entry for t == 1
+    private final float[] atanTable;
+    private final int atanSize;
+
+    /**
+     * Builds the tables.
+     * @param bits Table resolution, as a power of two (4 to 16, i.e. 16 to 65536 entries per table)
+     */
+    public TrigTable(int bits) {
+        if(bits < 4 || bits > 16) {
+            throw new IllegalArgumentException("bits must be between 4 and 16");
+        }
+        this.bits = bits;
+        int size = 1 << bits;
+        mask = size - 1;
+        sinIndexScale = size / (Math.PI * 2);
+        sinTable = new float[size + 1];
+        for(int i = 0; i <= size; i++) {
+            sinTable[i] = (float) Math.sin(i * Math.PI * 2 / size);
+        }
+        atanSize = size;
+        atanTable = new float[size + 1];
+        for(int i = 0; i <= size; i++) {
+            atanTable[i] = (float) Math.atan((double) i / size);
+        }
+    }
+
+    /////////
+    // Sin //
+    /////////
+
+    /**
+     * Table-driven sine.
+     * @param rads Angle in radians
+     * @return sin(rads), within {@link #getMaxSinError()}
+     */
+    public float sin(float rads) {
+        // Index in double precision, so rounding doesn't grow with the angle
+        double index = rads * sinIndexScale;
+        int i = (int) index;
+        if(index < i) { // floor() for negative angles
+            i--;
+        }
+        float fraction = (float) (index - i);
+        i &= mask;
+        float a = sinTable[i];
+        return a + (sinTable[i + 1] - a) * fraction;
+    }
+
+    /**
+     * Table-driven cosine.
+     * @param rads Angle in radians
+     * @return cos(rads), within {@link #getMaxSinError()}
+     */
+    public float cos(float rads) {
+        return sin(rads + HALF_PI);
+    }
+
+    ///////////
+    // Atan2 //
+    ///////////
+
+    /**
+     * Table-driven atan2. Reduces the point to the first octant (one division), and looks up atan
+     * there.
+     * @param y Y coordinate
+     * @param x X coordinate
+     * @return the angle in radians, -&pi; to &pi;, within {@link #getMaxAtanError()} (0 for 0,0)
+     */
+    public float atan2(float y, float x) {
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        float angle;
+        if(ay <= ax) {
+            if(ax == 0f) {
+                return 0f;
+            }
+            angle = atan(ay / ax);
+        } else {
+            angle = HALF_PI - atan(ax / ay);
+        }
+        if(x < 0f) {
+            angle = PI - angle;
+        }
+        return y < 0f ? -angle : angle;
+    }
+
+    // atan(t), for t in [0, 1]
+    private float atan(float t) {
+        float index = t * atanSize;
+        int i = (int) index;
+        if(i >= atanSize) {
+            return atanTable[atanSize];
+        }
+        float a = atanTable[i];
+        return a + (atanTable[i + 1] - a) * (index - i);
+    }
+
+    /**
+     * Calculate angle of touch point to center of joystick, in radians. Table-driven equivalent of
+     * {@link JoystickMath#calculateAngle_InRads(float, float, float, float)}.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return angle in radians
+     */
+    public float calculateAngle_InRads(float touch_x, float touch_y, float center_x, float center_y) {
+        return atan2(touch_y - center_y, touch_x - center_x);
+    }
+
+    /**
+     * Calculate angle of touch point to center of joystick, in degrees (0 at top of circle).
+     * Table-driven equivalent of {@link JoystickMath#calculateAngle_InDegrees(float, float, float, float)}.
+     * @param touch_x Touch point X coordinate
+     * @param touch_y Touch point Y coordinate
+     * @param center_x Centre point X coordinate
+     * @param center_y Centre point Y coordinate
+     * @return angle in degrees (0 to 360)
+     */
+    public float calculateAngle_InDegrees(float touch_x, float touch_y, float center_x, float center_y) {
+        float angle = atan2(touch_x - center_x, center_y - touch_y) * (180f / PI);
+        if(angle < 0) {
+            angle += 360;
+        }
+        return angle;
+    }
+
+    ///////////////
+    // Direction //
+    ///////////////
+
+    /**
+     * Calculates a simplified enum value for the Joystick's direction based on an angle input, by
+     * integer octant (no comparison chain). Equivalent to
+     * {@link JoystickMath#calculateDirection(float)}, except that angles exactly on an octant boundary
+     * (22.5 + n*45 degrees) belong to the clockwise octant.
+     * @param angle The 360 degree angle of the joystick (0 at the top/front)
+     * @return A simplified enum description of the Joystick's angle.
+     */
+    public static Direction calculateDirection(float angle) {
+        return DIRECTIONS[((int) (angle * (8f / 360f) + 8.5f)) & 7];
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * Retrieves the maximum absolute error of {@link #sin(float)}/{@link #cos(float)}, for arguments
+     * within +/-4&pi;.
+     * @return the error bound
+     */
+    public float getMaxSinError() {
+        double step = Math.PI * 2 / (1 << bits);
+        return (float) (step * step / 8) + ROUNDING_ERROR;
+    }
+
+    /**
+     * Retrieves the maximum absolute error of {@link #atan2(float, float)}, in radians.
+     * @return the error bound
+     */
+    public float getMaxAtanError() {
+        double step = 1.0 / (1 << bits);
+        return (float) (ATAN_MAX_CURVATURE * step * step / 8) + ROUNDING_ERROR;
+    }
+}
@@ -0,0 +1,118 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the adaptive poll policy follows the stick's velocity, idles when held still at the
+ * centre (but not deflected), and wakes immediately on movement.
+ * @author Christopher Bull
+ */
+public class AdaptivePollPolicyTest {
+
+    private AdaptivePollPolicy policy;
+    private long time;
+
+    @Before
+    public void setUp() throws Exception {
+        policy = new AdaptivePollPolicy();
+        time = 1000;
+    }
+
+    /**
+     * Polls at the policy's current interval.
+     */
+    private long poll(float x, float y) {
+        time += policy.getInterval();
+        return policy.onPoll(x, y, time);
+    }
+
+    @Test
+    public void fastWhilstMoving() throws Exception {
+        assertEquals(AdaptivePollPolicy.INTERVAL_FAST_DEFAULT, policy.onPoll(0f, 0f, time));
+        float x = 0f;
+        for(int i = 0; i < 20; i++) {
+            x += 0.05f; // ~3 radii per second
+            assertEquals(AdaptivePollPolicy.INTERVAL_FAST_DEFAULT, poll(x, 0f));
+        }
+    }
+
+    @Test
+    public void slowsStepwise_thenKeepAlive() throws Exception {
+        policy.onPoll(0.05f, 0.05f, time);
+        assertEquals(AdaptivePollPolicy.INTERVAL_MEDIUM_DEFAULT, poll(0.05f, 0.05f));
+        assertEquals(AdaptivePollPolicy.INTERVAL_SLOW_DEFAULT, poll(0.05f, 0.05f));
+        // Still for 17 + 33 + 100ms so far; keep-alive once still for the idle delay
+        long interval = 0;
+        for(int i = 0; i < 5; i++) {
+            interval = poll(0.05f, 0.05f);
+        }
+        assertEquals(AdaptivePollPolicy.INTERVAL_KEEP_ALIVE_DEFAULT, interval);
+        // Noise within the tolerance stays idle
+        assertEquals(AdaptivePollPolicy.INTERVAL_KEEP_ALIVE_DEFAULT, poll(0.055f, 0.05f));
+    }
+
+    @Test
+    public void heldDeflected_staysFast() throws Exception {
+        policy.onPoll(0.5f, 0.5f, time);
+        for(int i = 0; i < 50; i++) {
+            assertEquals(AdaptivePollPolicy.INTERVAL_FAST_DEFAULT, poll(0.5f, 0.5f));
+        }
+        // Released to the centre: slows down
+        poll(0f, 0f);
+        for(int i = 0; i < 30; i++) {
+            poll(0f, 0f);
+        }
+        assertEquals(AdaptivePollPolicy.INTERVAL_KEEP_ALIVE_DEFAULT, policy.getInterval());
+
+        // Without an idle dead-zone, a deflected stick slows down too
+        policy.reset();
+        policy.setIdleDeadZone(1f);
+        policy.onPoll(0.5f, 0.5f, time);
+        for(int i = 0; i < 10; i++) {
+            poll(0.5f, 0.5f);
+        }
+        assertEquals(AdaptivePollPolicy.INTERVAL_KEEP_ALIVE_DEFAULT, policy.getInterval());
+    }
+
+    @Test
+    public void speedsUpImmediately() throws Exception {
+        policy.onPoll(0f, 0f, time);
+        for(int i = 0; i < 10; i++) {
+            poll(0f, 0f);
+        }
+        assertEquals(AdaptivePollPolicy.INTERVAL_KEEP_ALIVE_DEFAULT, policy.getInterval());
+        time += 17;
+        assertEquals(AdaptivePollPolicy.INTERVAL_FAST_DEFAULT, policy.onPoll(0.08f, 0f, time));
+    }
+
+    @Test
+    public void touchWakesIdlePolicy() throws Exception {
+        policy.onPoll(0f, 0f, time);
+        assertFalse(policy.onTouch(0.5f, 0f, time)); // Already fast
+        for(int i = 0; i < 10; i++) {
+            poll(0f, 0f);
+        }
+        assertFalse(policy.onTouch(0.005f, 0f, time)); // Within tolerance
+        assertTrue(policy.onTouch(0.2f, 0f, time));
+        assertEquals(AdaptivePollPolicy.INTERVAL_FAST_DEFAULT, policy.getInterval());
+    }
+
+    @Test
+    public void reset_restartsFast() throws Exception {
+        policy.onPoll(0f, 0f, time);
+        for(int i = 0; i < 10; i++) {
+            poll(0f, 0f);
+        }
+        policy.reset();
+        assertEquals(AdaptivePollPolicy.INTERVAL_FAST_DEFAULT, policy.getInterval());
+        assertFalse(policy.onTouch(0.5f, 0f, time)); // Not started
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intervalsOutOfOrder() throws Exception {
+        new AdaptivePollPolicy(33, 17, 100, 500);
+    }
+}
@@ -0,0 +1,114 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the latest-value-wins hand-off of move events to another thread.
+ * @author Christopher Bull
+ */
+public class AsyncMoveDispatcherTest {
+
+    /**
+     * Runs queued tasks only when asked to.
+     */
+    private static class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while(!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static JoystickMoveEvent event(float touchX) {
+        return new JoystickMoveEvent().set(touchX, 0f, 0f, 0f, 100f, 0, null);
+    }
+
+    @Test
+    public void latestValueWins() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        final List<Float> received = new ArrayList<>();
+        AsyncMoveDispatcher dispatcher = new AsyncMoveDispatcher(executor, new JoystickMoveListener() {
+            @Override
+            public void OnJoystickMove(JoystickMoveEvent event) {
+                received.add(event.getTouchX());
+            }
+        });
+
+        dispatcher.OnJoystickMove(event(1f));
+        dispatcher.OnJoystickMove(event(2f));
+        dispatcher.OnJoystickMove(event(3f));
+        assertEquals(1, executor.tasks.size()); // Bounded: one queued delivery
+        executor.runAll();
+        assertEquals(1, received.size());
+        assertEquals(3f, received.get(0), 0f);
+        assertEquals(2, dispatcher.getSupersededCount());
+        assertEquals(1, dispatcher.getDeliveredCount());
+
+        dispatcher.OnJoystickMove(event(4f));
+        executor.runAll();
+        executor.runAll();
+        assertEquals(2, received.size());
+        assertEquals(4f, received.get(1), 0f);
+        assertEquals(2, dispatcher.getSupersededCount());
+    }
+
+    @Test
+    public void eventsCopied() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        final List<Float> received = new ArrayList<>();
+        AsyncMoveDispatcher dispatcher = new AsyncMoveDispatcher(executor, new JoystickMoveListener() {
+            @Override
+            public void OnJoystickMove(JoystickMoveEvent event) {
+                received.add(event.getDistance());
+            }
+        });
+        JoystickMoveEvent recycled = event(50f);
+        dispatcher.OnJoystickMove(recycled);
+        recycled.set(100f, 0f, 0f, 0f, 100f, 0, null); // Recycled before delivery
+        executor.runAll();
+        assertEquals(0.5f, received.get(0), 0.0001f);
+    }
+
+    @Test
+    public void acrossThreads_inOrderAndLatestDelivered() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final float[] last = {-1f};
+        final boolean[] outOfOrder = {false};
+        AsyncMoveDispatcher dispatcher = new AsyncMoveDispatcher(executor, new JoystickMoveListener() {
+            @Override
+            public void OnJoystickMove(JoystickMoveEvent event) {
+                if(event.getTouchX() <= last[0]) {
+                    outOfOrder[0] = true;
+                }
+                last[0] = event.getTouchX();
+            }
+        });
+        JoystickMoveEvent event = new JoystickMoveEvent();
+        int count = 200000;
+        for(int i = 0; i < count; i++) {
+            dispatcher.OnJoystickMove(event.set(i, 0f, 0f, 0f, 100f, i, null));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(outOfOrder[0]);
+        assertEquals(count - 1, last[0], 0f);
+        assertEquals(count, dispatcher.getDeliveredCount() + dispatcher.getSupersededCount());
+    }
+}
@@ -0,0 +1,81 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the control grid's hit-testing against a linear scan of the controls' regions.
+ * @author Christopher Bull
+ */
+public class ControlGridTest {
+
+    @Test
+    public void find_topMostWins() throws Exception {
+        ControlGrid grid = new ControlGrid(50);
+        assertEquals(-1, grid.find(10f, 10f)); // Not built
+        int stick = grid.add(0f, 0f, 300f, 300f);
+        int button = grid.add(250f, 250f, 400f, 400f); // Overlaps the stick
+        grid.build(1000, 500);
+        assertEquals(stick, grid.find(100f, 100f));
+        assertEquals(button, grid.find(275f, 275f));
+        assertEquals(button, grid.find(399f, 399f));
+        assertEquals(-1, grid.find(400f, 400f)); // Exclusive edge
+        assertEquals(-1, grid.find(900f, 100f));
+        assertEquals(-1, grid.find(-1f, 10f));
+        assertEquals(-1, grid.find(10f, Float.NaN));
+    }
+
+    @Test
+    public void build_clipsRegionsToArea() throws Exception {
+        ControlGrid grid = new ControlGrid(50);
+        int control = grid.add(-100f, -100f, 60f, 60f);
+        grid.add(5000f, 5000f, 6000f, 6000f); // Entirely outside
+        grid.build(200, 200);
+        assertEquals(control, grid.find(0f, 0f));
+        assertEquals(control, grid.find(59f, 59f));
+        assertEquals(-1, grid.find(61f, 10f));
+    }
+
+    @Test
+    public void rebuild_reusesIndex() throws Exception {
+        ControlGrid grid = new ControlGrid(50);
+        grid.add(0f, 0f, 100f, 100f);
+        grid.build(500, 500);
+        grid.clear();
+        assertEquals(-1, grid.find(10f, 10f));
+        int moved = grid.add(200f, 200f, 300f, 300f);
+        grid.build(400, 400);
+        assertEquals(-1, grid.find(10f, 10f));
+        assertEquals(moved, grid.find(250f, 250f));
+        assertEquals(1, grid.getCount());
+    }
+
+    @Test
+    public void find_matchesLinearScan() throws Exception {
+        Random random = new Random(42);
+        ControlGrid grid = new ControlGrid(32);
+        float[][] regions = new float[40][];
+        for(int i = 0; i < regions.length; i++) {
+            float left = random.nextFloat() * 1000f - 50f;
+            float top = random.nextFloat() * 600f - 50f;
+            regions[i] = new float[] {left, top, left + 20f + random.nextFloat() * 200f, top + 20f + random.nextFloat() * 200f};
+            assertEquals(i, grid.add(regions[i][0], regions[i][1], regions[i][2], regions[i][3]));
+        }
+        grid.build(1000, 600);
+        for(int n = 0; n < 20000; n++) {
+            float x = random.nextFloat() * 1000f;
+            float y = random.nextFloat() * 600f;
+            int expected = -1;
+            for(int i = regions.length - 1; i >= 0; i--) {
+                if(x >= regions[i][0] && y >= regions[i][1] && x < regions[i][2] && y < regions[i][3]) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(x + "," + y, expected, grid.find(x, y));
+        }
+    }
+}
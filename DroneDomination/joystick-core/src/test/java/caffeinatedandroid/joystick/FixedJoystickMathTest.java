@@ -0,0 +1,63 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the fixed-point joystick calculations against the floating-point reference implementations.
+ * @author Christopher Bull
+ */
+public class FixedJoystickMathTest {
+
+    private static final float CENTER = 250f;
+
+    @Test
+    public void sqrt_isFloorOfSquareRoot() throws Exception {
+        assertEquals(0, FixedJoystickMath.sqrt(0));
+        assertEquals(1, FixedJoystickMath.sqrt(3));
+        assertEquals(2, FixedJoystickMath.sqrt(4));
+        assertEquals(65535, FixedJoystickMath.sqrt(65536L * 65536L - 1));
+        assertEquals(3037000499L, FixedJoystickMath.sqrt(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void angle_matchesFloatingPoint() throws Exception {
+        int center = FixedJoystickMath.toFixed(CENTER);
+        for(int deg = 0; deg < 3600; deg++) {
+            double rads = Math.toRadians(deg / 10.0);
+            float touch_x = (float) (CENTER + Math.sin(rads) * 160);
+            float touch_y = (float) (CENTER - Math.cos(rads) * 160);
+            float expected = JoystickMath.calculateAngle_InDegrees(touch_x, touch_y, CENTER, CENTER);
+            float actual = FixedJoystickMath.toDegrees(FixedJoystickMath.calculateAngle(
+                    FixedJoystickMath.toFixed(touch_x), FixedJoystickMath.toFixed(touch_y), center, center));
+            float error = Math.abs(expected - actual);
+            assertTrue("angle " + expected + " vs " + actual, Math.min(error, 360 - error) < 0.01f);
+        }
+    }
+
+    @Test
+    public void distance_matchesFloatingPoint() throws Exception {
+        int center = FixedJoystickMath.toFixed(CENTER);
+        int radius = FixedJoystickMath.toFixed(CENTER);
+        for(float touch_x = 0; touch_x <= 500; touch_x += 7.3f) {
+            for(float touch_y = 0; touch_y <= 500; touch_y += 11.1f) {
+                float expected = JoystickMath.calculateDistance_AsDecimalFraction(touch_x, touch_y, CENTER, CENTER, CENTER);
+                float actual = FixedJoystickMath.toFloat(FixedJoystickMath.calculateDistance_AsFraction(
+                        FixedJoystickMath.toFixed(touch_x), FixedJoystickMath.toFixed(touch_y), center, center, radius));
+                assertEquals(expected, actual, 0.0001f);
+            }
+        }
+    }
+
+    @Test
+    public void direction_matchesFloatingPointAwayFromBoundaries() throws Exception {
+        for(int deg = 0; deg < 360; deg++) {
+            if(deg % 45 == 22 || deg % 45 == 23) {
+                continue; // Boundaries (22.5 + n*45) are inclusive to different sides
+            }
+            int angle = Math.round(deg * FixedJoystickMath.FULL_TURN / 360f);
+            assertEquals(JoystickMath.calculateDirection(deg), FixedJoystickMath.calculateDirection(angle));
+        }
+    }
+}
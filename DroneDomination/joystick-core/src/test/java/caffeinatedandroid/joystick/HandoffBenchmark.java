@@ -0,0 +1,122 @@
+package caffeinatedandroid.joystick;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks handing joystick states from an input thread to a consumer thread: posting a Runnable
+ * per state to a queue-backed thread (as View.post does to the UI looper), against publishing to a
+ * {@link JoystickRing} (with the consumer draining the history, or taking only the latest state). Run
+ * on a desktop JVM with {@code gradlew :joystick-core:benchmark}.
+ * <p>
+ * Each run is repeated with a fast consumer, and with a slow one (a few microseconds per state),
+ * which shows how far behind the consumer can fall: the post queue grows without bound, whereas the
+ * ring stays at its capacity (and the latest-value consumer never falls behind).
+ * @author Christopher Bull
+ */
+public class HandoffBenchmark {
+
+    private static final int STATES = 2000000;
+    private static final int STATES_SLOW = 200000;
+    private static final int RUNS = 3;
+    private static final long SLOW_CONSUMER_NANOS = 2000;
+
+    // Consumer-side result (written by the consumer thread)
+    private static volatile float consumed;
+    private static volatile long consumedCount;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(String.format("%-16s %-6s %14s %14s %14s %14s",
+                "handoff", "load", "producer ns", "end-to-end ns", "consumed", "max backlog"));
+        for(int run = 0; run < RUNS; run++) {
+            for(long work : new long[] {0, SLOW_CONSUMER_NANOS}) {
+                int states = work == 0 ? STATES : STATES_SLOW;
+                post(states, work);
+                ring(states, work, false);
+                ring(states, work, true);
+            }
+        }
+    }
+
+    /**
+     * Posts a Runnable per state to a single consumer thread.
+     */
+    static void post(int states, final long work) throws Exception {
+        LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        ExecutorService consumer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue);
+        consumedCount = 0;
+        long maxBacklog = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < states; i++) {
+            final float x = i;
+            final long time = i;
+            consumer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    consume(x, time, work);
+                }
+            });
+            if((i & 1023) == 0) {
+                maxBacklog = Math.max(maxBacklog, queue.size());
+            }
+        }
+        long produced = System.nanoTime();
+        consumer.shutdown();
+        consumer.awaitTermination(5, TimeUnit.MINUTES);
+        print("post", states, work, start, produced, System.nanoTime(), maxBacklog);
+    }
+
+    /**
+     * Publishes every state to a ring, read by a consumer thread.
+     */
+    static void ring(final int states, final long work, final boolean latestOnly) throws Exception {
+        final JoystickRing ring = new JoystickRing(JoystickRing.CAPACITY_DEFAULT);
+        final JoystickRing.Cursor cursor = ring.newCursor();
+        final long[] maxBacklog = {0};
+        consumedCount = 0;
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+                while(true) {
+                    maxBacklog[0] = Math.max(maxBacklog[0], Math.min(cursor.getBacklog(ring), ring.getCapacity()));
+                    boolean got = latestOnly ? ring.readLatest(cursor, snapshot) : ring.readNext(cursor, snapshot);
+                    if(got) {
+                        consume(snapshot.getTouchX(), snapshot.getEventTime(), work);
+                        if(snapshot.getEventTime() == states - 1) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        consumer.start();
+        long start = System.nanoTime();
+        for(int i = 0; i < states; i++) {
+            ring.publish(i, i, 0f, 0f, 1f, 1f, true, i);
+        }
+        long produced = System.nanoTime();
+        consumer.join();
+        print(latestOnly ? "ring (latest)" : "ring (history)", states, work, start, produced, System.nanoTime(), maxBacklog[0]);
+    }
+
+    private static void consume(float x, long time, long work) {
+        if(work > 0) {
+            long until = System.nanoTime() + work;
+            while(System.nanoTime() < until) {
+                // Busy
+            }
+        }
+        consumed = x + time;
+        consumedCount++;
+    }
+
+    private static void print(String handoff, int states, long work, long start, long produced, long end, long maxBacklog) {
+        System.out.println(String.format("%-16s %-6s %14.1f %14.1f %14d %14d",
+                handoff, work == 0 ? "fast" : "slow",
+                (produced - start) / (double) states, (end - start) / (double) states,
+                consumedCount, maxBacklog));
+    }
+}
@@ -0,0 +1,96 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static caffeinatedandroid.joystick.HitRegionTable.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the DPad and WASD hit region tables against the geometry they were built from.
+ * @author Christopher Bull
+ */
+public class HitRegionTableTest {
+
+    private static final float CENTER = 250f;
+    private static final float RADIUS = 250f;
+
+    @Test
+    public void dpad_matchesAngleSectors() throws Exception {
+        HitRegionTable table = new HitRegionTable(1);
+        table.buildDPad(500, 500, CENTER, CENTER, RADIUS, DEAD_ZONE_DEFAULT, true);
+        assertEquals(KEY_UP, table.classify(CENTER, 20f));
+        assertEquals(KEY_UP | KEY_RIGHT, table.classify(400f, 100f));
+        assertEquals(KEY_RIGHT, table.classify(480f, CENTER));
+        assertEquals(KEY_DOWN | KEY_RIGHT, table.classify(400f, 400f));
+        assertEquals(KEY_DOWN, table.classify(CENTER, 480f));
+        assertEquals(KEY_DOWN | KEY_LEFT, table.classify(100f, 400f));
+        assertEquals(KEY_LEFT, table.classify(20f, CENTER));
+        assertEquals(KEY_UP | KEY_LEFT, table.classify(100f, 100f));
+        // Dead zone
+        assertEquals(0, table.classify(CENTER + 10f, CENTER - 10f));
+
+        // Every cell agrees with the directional octant (away from the sector boundaries)
+        for(float y = 0.5f; y < 500; y += 7f) {
+            for(float x = 0.5f; x < 500; x += 7f) {
+                float dx = x - CENTER;
+                float dy = y - CENTER;
+                if(Math.sqrt(dx * dx + dy * dy) < RADIUS * DEAD_ZONE_DEFAULT + 1) {
+                    continue;
+                }
+                float angle = JoystickMath.calculateAngle_InDegrees(x, y, CENTER, CENTER);
+                if(Math.abs(((angle + 22.5f) % 45f + 45f) % 45f) < 1f) {
+                    continue; // On a boundary
+                }
+                assertEquals(x + "," + y, JoystickMath.calculateDirection(angle), toDirection(table.classify(x, y)));
+            }
+        }
+    }
+
+    @Test
+    public void dpad_fourWay() throws Exception {
+        HitRegionTable table = new HitRegionTable();
+        table.buildDPad(500, 500, CENTER, CENTER, RADIUS, DEAD_ZONE_DEFAULT, false);
+        assertEquals(KEY_UP, table.classify(300f, 50f));
+        assertEquals(KEY_RIGHT, table.classify(450f, 100f));
+        assertEquals(KEY_LEFT, table.classify(50f, 300f));
+    }
+
+    @Test
+    public void wasd_keyboardLayout() throws Exception {
+        HitRegionTable table = new HitRegionTable();
+        table.buildWasd(300, 200);
+        assertEquals(KEY_UP, table.classify(150f, 50f));
+        assertEquals(0, table.classify(50f, 50f));
+        assertEquals(0, table.classify(250f, 50f));
+        assertEquals(KEY_LEFT, table.classify(50f, 150f));
+        assertEquals(KEY_DOWN, table.classify(150f, 150f));
+        assertEquals(KEY_RIGHT, table.classify(250f, 150f));
+    }
+
+    @Test
+    public void outsideArea_nearestEdge() throws Exception {
+        HitRegionTable table = new HitRegionTable();
+        assertEquals(0, table.classify(10f, 10f)); // Not built
+        table.buildWasd(300, 200);
+        assertEquals(KEY_UP, table.classify(150f, -80f));
+        assertEquals(KEY_RIGHT, table.classify(900f, 900f));
+        assertEquals(KEY_LEFT, table.classify(-5f, 150f));
+        assertEquals(KEY_UP, table.classify(150f, Float.NaN));
+    }
+
+    @Test
+    public void rebuild_smallerArea() throws Exception {
+        HitRegionTable table = new HitRegionTable();
+        table.buildDPad(500, 500, CENTER, CENTER, RADIUS, DEAD_ZONE_DEFAULT, true);
+        table.buildDPad(100, 100, 50f, 50f, 50f, DEAD_ZONE_DEFAULT, true);
+        assertEquals(KEY_RIGHT, table.classify(95f, 50f));
+        assertEquals(KEY_RIGHT, table.classify(400f, 50f));
+    }
+
+    @Test
+    public void toDirection_opposingKeys() throws Exception {
+        assertNull(toDirection(0));
+        assertNull(toDirection(KEY_UP | KEY_DOWN));
+        assertEquals(Direction.BackLeft, toDirection(KEY_DOWN | KEY_LEFT));
+    }
+}
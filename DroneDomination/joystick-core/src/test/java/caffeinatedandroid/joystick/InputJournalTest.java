@@ -0,0 +1,223 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trips input journals through {@link InputRecorder} and {@link InputReplayer}.
+ * @author Christopher Bull
+ */
+public class InputJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("journal", ".bin");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        InputRecorder recorder = new InputRecorder(file);
+        recorder.recordMeasurements(250f, 250f, 250f, 167f, 1000);
+        recorder.recordTouch(InputRecorder.ACTION_DOWN, 300f, 200f, 1010);
+        recorder.recordSample(305f, 195f, 1014);
+        recorder.recordTouch(InputRecorder.ACTION_MOVE, 310f, 190f, 1018);
+        recorder.recordMove(new JoystickMoveEvent().set(310f, 190f, 250f, 250f, 250f, 1018, new JoystickGeometry()));
+        recorder.recordTouch(InputRecorder.ACTION_UP, 310f, 190f, 1030);
+        assertEquals(6, recorder.getRecordCount());
+        recorder.close();
+        assertNull(recorder.getLastError());
+
+        InputReplayer replayer = new InputReplayer(file);
+        assertEquals(6, replayer.getRecordCount());
+        assertEquals(30, replayer.getDuration());
+        Collector collector = new Collector();
+        replayer.replay(collector, false);
+        replayer.close();
+        assertTrue(replayer.isFinished());
+        assertEquals(6, collector.records.size());
+        assertEquals("M 250.0 250.0 250.0 167.0 1000", collector.records.get(0));
+        assertEquals("T 0 300.0 200.0 1010", collector.records.get(1));
+        assertEquals("S 305.0 195.0 1014", collector.records.get(2));
+        assertEquals("T 2 310.0 190.0 1018", collector.records.get(3));
+        assertEquals("T 1 310.0 190.0 1030", collector.records.get(5));
+
+        JoystickMoveEvent expected = new JoystickMoveEvent().set(310f, 190f, 250f, 250f, 250f, 1018, new JoystickGeometry());
+        assertEquals("V " + describe(expected), collector.records.get(4));
+    }
+
+    @Test
+    public void replay_reproducesDeliveredEvents() throws Exception {
+        // A live session, recorded as a JoystickView records it: touches, then polls delivering the
+        // stick through a rate-limited pipeline (re-delivering it, with later delivery times, whilst
+        // it's held still)
+        JoystickFilterPipeline pipeline = new JoystickFilterPipeline()
+                .addFilter(new ResponseCurveFilter(ResponseCurve.expo(0.5f), ResponseCurve.LINEAR, 1f))
+                .addFilter(new DeadZoneFilter(0.1f))
+                .addFilter(new DuplicateFilter());
+        JoystickGeometry geometry = new JoystickGeometry();
+        geometry.setMeasurements(250f, 250f, 250f, 167f);
+        InputRecorder recorder = new InputRecorder(file);
+        recorder.recordMeasurements(250f, 250f, 250f, 167f, 1000);
+        List<String> live = new ArrayList<>();
+        JoystickMoveEvent polled = new JoystickMoveEvent();
+        for(int frame = 0; frame < 40; frame++) {
+            long time = 1000 + frame * 17;
+            if(frame < 10) {
+                float x = 250f + frame * 15f;
+                recorder.recordTouch(frame == 0 ? InputRecorder.ACTION_DOWN : InputRecorder.ACTION_MOVE, x, 200f, time - 5);
+                polled.set(x, 200f, 250f, 250f, 250f, time - 5, geometry);
+            }
+            JoystickMoveEvent delivered = pipeline.process(polled.setDeliveryTime(time));
+            if(delivered != null) {
+                recorder.recordMove(delivered);
+                live.add("V " + describe(delivered));
+            }
+        }
+        recorder.recordTouch(InputRecorder.ACTION_UP, 385f, 200f, 1700);
+        recorder.close();
+        assertTrue(live.size() > 10); // Including re-deliveries of the held stick
+
+        InputReplayer replayer = new InputReplayer(file);
+        // As fast as possible
+        Collector collector = new Collector();
+        replayer.replay(collector, false);
+        assertEquals(live, collector.moves());
+        // At the recorded pace, a frame at a time
+        replayer.rewind();
+        collector = new Collector();
+        for(long elapsed = 0; !replayer.isFinished(); elapsed += 16) {
+            replayer.replayUntil(elapsed, collector);
+        }
+        assertEquals(live, collector.moves());
+        replayer.close();
+    }
+
+    @Test
+    public void replayUntil_relativeToFirstRecord() throws Exception {
+        InputRecorder recorder = new InputRecorder(file);
+        for(int i = 0; i < 10; i++) {
+            recorder.recordTouch(InputRecorder.ACTION_MOVE, i, i, 5000 + i * 10);
+        }
+        recorder.close();
+
+        InputReplayer replayer = new InputReplayer(file);
+        Collector collector = new Collector();
+        assertEquals(1, replayer.replayUntil(0, collector));
+        assertEquals(0, replayer.replayUntil(9, collector));
+        assertEquals(4, replayer.replayUntil(45, collector));
+        assertEquals(5, replayer.replayUntil(1000, collector));
+        assertTrue(replayer.isFinished());
+        assertEquals(0, replayer.replayUntil(2000, collector));
+
+        replayer.rewind();
+        assertFalse(replayer.isFinished());
+        assertEquals(10, replayer.replayUntil(90, collector));
+        replayer.close();
+    }
+
+    @Test
+    public void unclosedJournal_replaysRecordsWritten() throws Exception {
+        // Small segments, so the mapping is grown several times
+        InputRecorder recorder = new InputRecorder(file, 256);
+        for(int i = 0; i < 50; i++) {
+            recorder.recordSample(i, -i, i);
+        }
+        // Not closed (e.g. the app was killed); the mapped pages still reach the file
+        InputReplayer replayer = new InputReplayer(file);
+        assertEquals(50, replayer.getRecordCount());
+        Collector collector = new Collector();
+        replayer.replay(collector, false);
+        assertEquals("S 49.0 -49.0 49", collector.records.get(49));
+        replayer.close();
+        recorder.close();
+    }
+
+    @Test
+    public void unclosedJournal_ignoresPartialLastRecord() throws Exception {
+        InputRecorder recorder = new InputRecorder(file, 1024);
+        for(int i = 0; i < 5; i++) {
+            recorder.recordTouch(InputRecorder.ACTION_MOVE, i, -i, i);
+        }
+        // As a crash whilst recording the sixth would leave it: time and values written, but the
+        // record not yet committed (no type)
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long partial = InputRecorder.HEADER_SIZE + 5 * InputRecorder.RECORD_SIZE;
+        raf.seek(partial + InputRecorder.OFFSET_TIME);
+        raf.writeLong(5);
+        raf.seek(partial + InputRecorder.OFFSET_VALUES);
+        raf.writeFloat(123f);
+        raf.close();
+
+        InputReplayer replayer = new InputReplayer(file);
+        assertEquals(5, replayer.getRecordCount());
+        Collector collector = new Collector();
+        replayer.replay(collector, false);
+        assertEquals(5, collector.records.size());
+        replayer.close();
+        recorder.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void notAJournal() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.writeLong(42);
+        raf.writeLong(42);
+        raf.close();
+        new InputReplayer(file);
+    }
+
+    private static class Collector implements InputReplayer.Target {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void OnReplayMeasurements(float center_x, float center_y, float radius, float radius_Clamp, long eventTime) {
+            records.add("M " + center_x + " " + center_y + " " + radius + " " + radius_Clamp + " " + eventTime);
+        }
+
+        @Override
+        public void OnReplayTouch(int action, float touch_x, float touch_y, long eventTime) {
+            records.add("T " + action + " " + touch_x + " " + touch_y + " " + eventTime);
+        }
+
+        @Override
+        public void OnReplaySample(float touch_x, float touch_y, long eventTime) {
+            records.add("S " + touch_x + " " + touch_y + " " + eventTime);
+        }
+
+        @Override
+        public void OnReplayMove(JoystickMoveEvent event) {
+            records.add("V " + describe(event));
+        }
+
+        List<String> moves() {
+            List<String> moves = new ArrayList<>();
+            for(String record : records) {
+                if(record.startsWith("V ")) {
+                    moves.add(record);
+                }
+            }
+            return moves;
+        }
+    }
+
+    private static String describe(JoystickMoveEvent event) {
+        return event.getTouchX() + " " + event.getTouchY() + " " + event.getDistance() + " " + event.getAngle()
+                + " " + event.getEventTime() + " " + event.getDeliveryTime();
+    }
+}
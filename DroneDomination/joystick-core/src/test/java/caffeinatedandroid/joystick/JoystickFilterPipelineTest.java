@@ -0,0 +1,79 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the move event filter pipeline and its filters.
+ * @author Christopher Bull
+ */
+public class JoystickFilterPipelineTest {
+
+    private JoystickFilterPipeline pipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        pipeline = new JoystickFilterPipeline()
+                .addFilter(new DeadZoneFilter(0.2f))
+                .addFilter(new ToleranceFilter(0.05f, 5f))
+                .addFilter(new DuplicateFilter());
+    }
+
+    @Test
+    public void deadZone_centresAndRemaps() throws Exception {
+        assertEquals(0f, pipeline.process(event(0.1f, 30f)).getDistance(), 0f);
+        assertEquals(0.5f, pipeline.process(event(0.6f, 30f)).getDistance(), 0.0001f);
+        assertEquals(1f, pipeline.process(event(1f, 30f)).getDistance(), 0.0001f);
+    }
+
+    @Test
+    public void deadZone_snapsToCentre() throws Exception {
+        JoystickMoveEvent event = new JoystickMoveEvent().set(262f, 241f, 250f, 250f, 100f, 0L, null);
+        assertTrue(new DeadZoneFilter(0.2f).filter(event));
+        assertEquals(250f, event.getTouchX(), 0f);
+        assertEquals(250f, event.getTouchY(), 0f);
+        assertEquals(0f, event.getDistance(), 0f);
+        assertEquals(0f, event.getAngle(), 0f);
+        assertEquals(Direction.Forward, event.getDirection());
+    }
+
+    @Test
+    public void process_doesNotModifyInput() throws Exception {
+        JoystickMoveEvent input = event(0.6f, 30f);
+        pipeline.process(input);
+        assertEquals(0.6f, input.getDistance(), 0f);
+        // Re-delivering the same input is filtered the same way (then dropped as a duplicate)
+        assertNull(pipeline.process(input));
+    }
+
+    @Test
+    public void tolerance_dropsSmallMovements() throws Exception {
+        assertNotNull(pipeline.process(event(0.6f, 30f)));
+        assertNull(pipeline.process(event(0.62f, 32f)));
+        assertNotNull(pipeline.process(event(0.62f, 36f)));
+        assertNotNull(pipeline.process(event(0.7f, 36f)));
+        assertEquals(1, pipeline.getDroppedCount(1));
+    }
+
+    @Test
+    public void counters_perStage() throws Exception {
+        pipeline.process(event(0.1f, 30f)); // Passes (centred)
+        pipeline.process(event(0.15f, 90f)); // Still centred: dropped by tolerance (angle is ignored when centred)
+        pipeline.process(event(0.5f, 90f)); // Passes
+        pipeline.process(event(0.51f, 91f)); // Dropped by tolerance
+        pipeline.reset();
+        pipeline.process(event(0.51f, 91f)); // Passes (first event after reset)
+
+        assertEquals(5, pipeline.getReceivedCount());
+        assertEquals(0, pipeline.getDroppedCount(0));
+        assertEquals(2, pipeline.getDroppedCount(1));
+        assertEquals(0, pipeline.getDroppedCount(2));
+        assertEquals(3, pipeline.getPassedCount());
+    }
+
+    private static JoystickMoveEvent event(float distance, float angle) {
+        return new JoystickMoveEvent(0f, 0f, 0f, 0f, distance, angle);
+    }
+}
@@ -0,0 +1,56 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the joystick geometry (clamping), in both floating-point and fixed-point modes.
+ * @author Christopher Bull
+ */
+public class JoystickGeometryTest {
+
+    private JoystickGeometry geometry;
+
+    @Before
+    public void setUp() throws Exception {
+        geometry = new JoystickGeometry();
+        geometry.setMeasurements(250f, 250f, 250f, 166f);
+    }
+
+    @Test
+    public void update_insideClampRadius_followsTouch() throws Exception {
+        assertEquals(100f, geometry.update(250f, 150f), 0.0001f);
+        assertEquals(250f, geometry.getStickX(), 0f);
+        assertEquals(150f, geometry.getStickY(), 0f);
+    }
+
+    @Test
+    public void update_outsideClampRadius_clampsToBorder() throws Exception {
+        assertEquals(300f, geometry.update(550f, 250f), 0.0001f);
+        assertEquals(416f, geometry.getStickX(), 0.0001f);
+        assertEquals(250f, geometry.getStickY(), 0.0001f);
+    }
+
+    @Test
+    public void fixedPoint_matchesFloatingPoint() throws Exception {
+        JoystickGeometry fixed = new JoystickGeometry();
+        fixed.setFixedPoint(true);
+        fixed.setMeasurements(250f, 250f, 250f, 166f);
+        for(float touch_x = -50; touch_x <= 550; touch_x += 13.7f) {
+            for(float touch_y = -50; touch_y <= 550; touch_y += 17.3f) {
+                assertEquals(geometry.update(touch_x, touch_y), fixed.update(touch_x, touch_y), 0.001f);
+                assertEquals(geometry.getStickX(), fixed.getStickX(), 0.001f);
+                assertEquals(geometry.getStickY(), fixed.getStickY(), 0.001f);
+                JoystickMoveEvent expected = geometry.createMoveEvent(0);
+                JoystickMoveEvent actual = fixed.createMoveEvent(0);
+                assertEquals(expected.getDistance(), actual.getDistance(), 0.0001f);
+                if(expected.getDistance() > 0.01f) {
+                    float error = Math.abs(expected.getAngle() - actual.getAngle());
+                    assertTrue(Math.min(error, 360 - error) < 0.01f);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for recycling (reset in place) and copying move events.
+ * @author Christopher Bull
+ */
+public class JoystickMoveEventTest {
+
+    @Test
+    public void set_clearsLazyValues() throws Exception {
+        JoystickMoveEvent event = new JoystickMoveEvent(250f, 100f, 250f, 250f, 0.6f, 0f);
+        assertEquals(Direction.Forward, event.getDirection());
+        assertEquals((float) -Math.PI / 2, event.getAngle_Radians(), 0.0001f);
+
+        assertSame(event, event.set(400f, 250f, 250f, 250f, 0.6f, 90f));
+        assertEquals(Direction.Right, event.getDirection());
+        assertEquals(0f, event.getAngle_Radians(), 0.0001f);
+    }
+
+    @Test
+    public void copy_isUnaffectedByRecycling() throws Exception {
+        JoystickMoveEvent event = new JoystickMoveEvent(250f, 100f, 250f, 250f, 0.6f, 0f);
+        JoystickMoveEvent copy = event.copy();
+        event.set(400f, 250f, 250f, 250f, 0.3f, 90f);
+
+        assertNotSame(event, copy);
+        assertEquals(100f, copy.getTouchY(), 0f);
+        assertEquals(0.6f, copy.getDistance(), 0f);
+        assertEquals(0f, copy.getAngle(), 0f);
+        assertEquals(Direction.Forward, copy.getDirection());
+    }
+
+    @Test
+    public void derivedValues_calculatedLazilyByGeometry() throws Exception {
+        JoystickGeometry geometry = new JoystickGeometry();
+        JoystickMoveEvent event = new JoystickMoveEvent().set(400f, 250f, 250f, 250f, 200f, 1234L, geometry);
+        assertEquals(1234L, event.getEventTime());
+        assertEquals(0.75f, event.getDistance(), 0.0001f);
+        assertEquals(90f, event.getAngle(), 0.001f);
+        assertEquals(Direction.Right, event.getDirection());
+        assertEquals(0f, event.getAngle_Radians(), 0.0001f);
+
+        geometry.setFixedPoint(true);
+        JoystickMoveEvent fixed = new JoystickMoveEvent().set(250f, 50f, 250f, 250f, 100f, 0L, geometry);
+        assertEquals(1f, fixed.getDistance(), 0f); // Clamped
+        assertEquals(0f, fixed.getAngle(), 0f);
+        assertEquals((float) -Math.PI / 2, fixed.getAngle_Radians(), 0.0001f);
+        fixed.set(150f, 250f, 250f, 250f, 100f, 0L, geometry);
+        assertEquals((float) Math.PI, fixed.getAngle_Radians(), 0.0001f);
+        fixed.set(150f, 350f, 250f, 250f, 100f, 0L, geometry);
+        assertEquals((float) Math.PI * 3 / 4, fixed.getAngle_Radians(), 0.0001f);
+
+        // No trig table: exact maths
+        geometry.setFixedPoint(false);
+        geometry.setTrigTable(null);
+        JoystickMoveEvent exact = new JoystickMoveEvent().set(260f, 230f, 250f, 250f, 100f, 0L, geometry);
+        assertEquals((float) Math.atan2(-20, 10), exact.getAngle_Radians(), 0f);
+    }
+
+    @Test
+    public void derivedValues_memoizedAndCopied() throws Exception {
+        JoystickMoveEvent event = new JoystickMoveEvent().set(400f, 250f, 250f, 250f, 200f, 0L, null);
+        event.setDistance(0.5f); // e.g. dead-zone remapping
+        assertEquals(0.5f, event.getDistance(), 0f);
+        assertEquals(0.5f, event.copy().getDistance(), 0f);
+
+        // Resetting clears the override
+        event.set(250f, 50f, 250f, 250f, 200f, 0L, null);
+        assertEquals(1f, event.getDistance(), 0.0001f);
+        assertEquals(Direction.Forward, event.getDirection());
+    }
+}
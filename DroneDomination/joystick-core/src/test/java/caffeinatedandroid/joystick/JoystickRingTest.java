@@ -0,0 +1,142 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the ring's per-consumer cursors, latest-value and in-order reads, lapping, and consistency
+ * across threads.
+ * @author Christopher Bull
+ */
+public class JoystickRingTest {
+
+    private static void publish(JoystickRing ring, int i) {
+        ring.publish(i, -i, 250f, 250f, 250f, 167f, (i & 1) == 0, i);
+    }
+
+    @Test
+    public void readNext_inOrder() throws Exception {
+        JoystickRing ring = new JoystickRing(8);
+        JoystickRing.Cursor cursor = ring.newCursor();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        assertFalse(ring.readNext(cursor, snapshot));
+        for(int i = 0; i < 5; i++) {
+            publish(ring, i);
+        }
+        assertEquals(5, cursor.getBacklog(ring));
+        for(int i = 0; i < 5; i++) {
+            assertTrue(ring.readNext(cursor, snapshot));
+            assertEquals(i, snapshot.getTouchX(), 0f);
+            assertEquals(167f, snapshot.getClampRadius(), 0f);
+            assertEquals(-i, snapshot.getTouchY(), 0f);
+            assertEquals(i, snapshot.getEventTime());
+            assertEquals((i & 1) == 0, snapshot.isTouching());
+        }
+        assertFalse(ring.readNext(cursor, snapshot));
+        assertEquals(0, cursor.getSkipped());
+    }
+
+    @Test
+    public void readLatest_skipsOlder() throws Exception {
+        JoystickRing ring = new JoystickRing(8);
+        JoystickRing.Cursor cursor = ring.newCursor();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        for(int i = 0; i < 5; i++) {
+            publish(ring, i);
+        }
+        assertTrue(ring.readLatest(cursor, snapshot));
+        assertEquals(4, snapshot.getTouchX(), 0f);
+        assertFalse(ring.readLatest(cursor, snapshot)); // Nothing newer
+        publish(ring, 5);
+        assertTrue(ring.readLatest(cursor, snapshot));
+        assertEquals(5, snapshot.getTouchX(), 0f);
+    }
+
+    @Test
+    public void consumersIndependent() throws Exception {
+        JoystickRing ring = new JoystickRing(8);
+        publish(ring, 0);
+        JoystickRing.Cursor history = ring.newCursor(); // Starts after state 0
+        JoystickRing.Cursor latest = ring.newCursor();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        publish(ring, 1);
+        publish(ring, 2);
+        assertTrue(ring.readLatest(latest, snapshot));
+        assertEquals(2, snapshot.getTouchX(), 0f);
+        assertTrue(ring.readNext(history, snapshot));
+        assertEquals(1, snapshot.getTouchX(), 0f);
+        assertTrue(ring.readNext(history, snapshot));
+        assertEquals(2, snapshot.getTouchX(), 0f);
+        assertFalse(ring.readNext(history, snapshot));
+    }
+
+    @Test
+    public void lapped_skipsOverwritten() throws Exception {
+        JoystickRing ring = new JoystickRing(8);
+        JoystickRing.Cursor cursor = ring.newCursor();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        for(int i = 0; i < 20; i++) {
+            publish(ring, i);
+        }
+        assertEquals(20, cursor.getBacklog(ring));
+        assertTrue(ring.readNext(cursor, snapshot));
+        assertEquals(12, snapshot.getTouchX(), 0f); // Oldest still in the ring
+        assertEquals(12, cursor.getSkipped());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityNotPowerOfTwo() throws Exception {
+        new JoystickRing(100);
+    }
+
+    @Test
+    public void acrossThreads_neverTorn() throws Exception {
+        final JoystickRing ring = new JoystickRing(16);
+        final int count = 500000;
+        final JoystickRing.Cursor history = ring.newCursor();
+        final JoystickRing.Cursor latest = ring.newCursor();
+        final String[] failure = {null};
+        final long[] read = {0, 0};
+        Thread[] consumers = new Thread[2];
+        for(int c = 0; c < consumers.length; c++) {
+            final int consumer = c;
+            consumers[c] = new Thread() {
+                @Override
+                public void run() {
+                    JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+                    JoystickRing.Cursor cursor = consumer == 0 ? history : latest;
+                    float last = -1f;
+                    while(last < count - 1) {
+                        boolean got = consumer == 0 ? ring.readNext(cursor, snapshot) : ring.readLatest(cursor, snapshot);
+                        if(!got) {
+                            continue;
+                        }
+                        float x = snapshot.getTouchX();
+                        if(snapshot.getTouchY() != -x || snapshot.getEventTime() != (long) x
+                                || snapshot.isTouching() != ((((long) x) & 1) == 0)) {
+                            failure[0] = "Torn read at " + x;
+                            return;
+                        }
+                        if(x <= last) {
+                            failure[0] = "Out of order at " + x;
+                            return;
+                        }
+                        last = x;
+                        read[consumer]++;
+                    }
+                }
+            };
+            consumers[c].start();
+        }
+        for(int i = 0; i < count; i++) {
+            publish(ring, i);
+        }
+        for(Thread consumer : consumers) {
+            consumer.join(10000);
+            assertFalse(consumer.isAlive());
+        }
+        assertNull(failure[0], failure[0]);
+        assertEquals(count, read[0] + history.getSkipped());
+    }
+}
@@ -0,0 +1,98 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the One Euro filter, and the smoothing/prediction filter built on it.
+ * @author Christopher Bull
+ */
+public class JoystickSmoothingFilterTest {
+
+    @Test
+    public void oneEuro_firstSamplePassesThrough() throws Exception {
+        OneEuroFilter filter = new OneEuroFilter();
+        assertEquals(5f, filter.filter(5f, 1000), 0f);
+        assertEquals(0f, filter.getDerivative(), 0f);
+    }
+
+    @Test
+    public void oneEuro_removesJitterAtRest() throws Exception {
+        OneEuroFilter filter = new OneEuroFilter();
+        float maxError = 0f;
+        for(int i = 0; i < 100; i++) {
+            float sample = (i & 1) == 0 ? 0.05f : -0.05f;
+            float value = filter.filter(sample, i * 8);
+            if(i >= 60) { // After settling from the (unfiltered) first sample
+                maxError = Math.max(maxError, Math.abs(value));
+            }
+        }
+        assertTrue("jitter should be attenuated: " + maxError, maxError < 0.01f);
+    }
+
+    @Test
+    public void oneEuro_ignoresRepeatedTimestamps() throws Exception {
+        OneEuroFilter filter = new OneEuroFilter();
+        filter.filter(0f, 100);
+        float value = filter.filter(1f, 108);
+        assertEquals(value, filter.filter(-1f, 108), 0f);
+    }
+
+    @Test
+    public void oneEuro_resetRestarts() throws Exception {
+        OneEuroFilter filter = new OneEuroFilter();
+        filter.filter(0f, 100);
+        filter.filter(1f, 108);
+        filter.reset();
+        assertEquals(-3f, filter.filter(-3f, 116), 0f);
+    }
+
+    @Test
+    public void smoothing_tracksSteadyMovementAndPredicts() throws Exception {
+        JoystickSmoothingFilter smooth = new JoystickSmoothingFilter(1f, 1f, 0);
+        JoystickSmoothingFilter predict = new JoystickSmoothingFilter(1f, 1f, 16);
+        JoystickMoveEvent smoothed = null;
+        JoystickMoveEvent predicted = null;
+        // Stick moving right at a constant rate (0.5 radius per second)
+        for(int i = 0; i <= 60; i++) {
+            long time = 1000 + i * 8;
+            float x = 250f + 100f * (i * 8) * 0.0005f;
+            smoothed = event(x, time);
+            predicted = event(x, time);
+            assertTrue(smooth.filter(smoothed));
+            assertTrue(predict.filter(predicted));
+        }
+        assertTrue(predicted.getTouchX() > smoothed.getTouchX());
+        assertEquals(250f, smoothed.getTouchY(), 0.0001f);
+        assertEquals(90f, smoothed.getAngle(), 0.01f);
+        assertEquals((smoothed.getTouchX() - 250f) / 100f, smoothed.getDistance(), 0.0001f);
+    }
+
+    @Test
+    public void smoothing_clampsToBorder() throws Exception {
+        JoystickSmoothingFilter predict = new JoystickSmoothingFilter(1f, 1f, 100);
+        JoystickMoveEvent event = null;
+        for(int i = 0; i <= 20; i++) {
+            event = event(250f + i * 5f, 1000 + i * 8);
+            predict.filter(event);
+        }
+        assertTrue(event.getDistance() <= 1f);
+        assertTrue(event.getTouchX() <= 350f + 0.001f);
+    }
+
+    @Test
+    public void smoothing_passesUntimedEventsThrough() throws Exception {
+        JoystickSmoothingFilter smooth = new JoystickSmoothingFilter();
+        JoystickMoveEvent event = new JoystickMoveEvent(300f, 250f, 250f, 250f, 0.5f, 90f);
+        assertTrue(smooth.filter(event));
+        assertEquals(300f, event.getTouchX(), 0f);
+        assertEquals(0.5f, event.getDistance(), 0f);
+    }
+
+    private static JoystickMoveEvent event(float touchX, long time) {
+        return new JoystickMoveEvent(touchX, 250f, 250f, 250f, 100f,
+                JoystickMath.calculateDistance_AsDecimalFraction(touchX, 250f, 250f, 250f, 100f),
+                JoystickMath.calculateAngle_InDegrees(touchX, 250f, 250f, 250f), time);
+    }
+}
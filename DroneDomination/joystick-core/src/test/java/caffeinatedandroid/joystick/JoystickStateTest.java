@@ -0,0 +1,54 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for publishing/reading JoystickState snapshots.
+ * @author Christopher Bull
+ */
+public class JoystickStateTest {
+
+    @Test
+    public void read_returnsLatestPublish() throws Exception {
+        JoystickState state = new JoystickState();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        assertEquals(0, state.read(snapshot).getVersion());
+
+        state.publish(10f, 20f, 250f, 250f, 250f, 167f, true, 0);
+        state.publish(30f, 40f, 250f, 250f, 250f, 167f, false, 0);
+        assertSame(snapshot, state.read(snapshot));
+        assertEquals(2, snapshot.getVersion());
+        assertEquals(2, state.getVersion());
+        assertEquals(30f, snapshot.getTouchX(), 0f);
+        assertEquals(40f, snapshot.getTouchY(), 0f);
+        assertEquals(167f, snapshot.getClampRadius(), 0f);
+        assertFalse(snapshot.isTouching());
+    }
+
+    @Test
+    public void read_neverTearsAcrossConcurrentPublishes() throws Exception {
+        final JoystickState state = new JoystickState();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for(int i = 1; i <= 2000000; i++) {
+                    state.publish(i, -i, i, -i, i, i, (i & 1) == 0, 0);
+                }
+            }
+        });
+        writer.start();
+        JoystickState.Snapshot snapshot = new JoystickState.Snapshot();
+        while(writer.isAlive()) {
+            state.read(snapshot);
+            float i = snapshot.getTouchX();
+            assertEquals(-i, snapshot.getTouchY(), 0f);
+            assertEquals(i, snapshot.getCenterX(), 0f);
+            assertEquals(-i, snapshot.getCenterY(), 0f);
+            assertEquals(i, snapshot.getRadius(), 0f);
+            assertEquals(i, snapshot.getClampRadius(), 0f);
+        }
+        writer.join();
+    }
+}
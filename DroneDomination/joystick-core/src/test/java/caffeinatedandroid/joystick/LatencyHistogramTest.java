@@ -0,0 +1,78 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the latency histogram's bucketing and percentiles, and the metrics built on it.
+ * @author Christopher Bull
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverValuesWithinPrecision() throws Exception {
+        int last = -1;
+        for(long v = 0; v < 1 << 20; v += 1 + v / 64) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            assertTrue("monotonic at " + v, bucket >= last);
+            last = bucket;
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertTrue("highest " + highest + " >= " + v, highest >= v);
+            assertTrue("precision at " + v, highest - v <= Math.max(0, v / LatencyHistogram.SUB_BUCKETS));
+        }
+        // Exact below the sub-bucket count
+        for(long v = 0; v < LatencyHistogram.SUB_BUCKETS * 2; v++) {
+            assertEquals(v, LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(v)));
+        }
+        // Largest value fits
+        LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(LatencyHistogram.MAX_TRACKABLE_NANOS));
+    }
+
+    @Test
+    public void percentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for(int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L); // 1us to 1ms
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500, histogram.getMean());
+        assertEquals(500000, histogram.getPercentile(50), 500000 / 16);
+        assertEquals(990000, histogram.getPercentile(99), 990000 / 16);
+        assertEquals(1000000, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void outOfRange_clamped() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void metrics_dump() throws Exception {
+        JoystickMetrics metrics = new JoystickMetrics();
+        metrics.recordLatency(JoystickMetrics.STAGE_DELIVERY, 2000000);
+        metrics.increment(JoystickMetrics.COUNT_DELIVERED);
+        metrics.increment(JoystickMetrics.COUNT_DELIVERED);
+        assertEquals(2, metrics.getCount(JoystickMetrics.COUNT_DELIVERED));
+        assertEquals(1, metrics.getLatency(JoystickMetrics.STAGE_DELIVERY).getCount());
+        String dump = metrics.toString();
+        assertTrue(dump, dump.contains("delivery: p50 2000us, p99 2000us, max 2000us (n=1)"));
+        assertTrue(dump, dump.contains("delivered: 2"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getCount(JoystickMetrics.COUNT_DELIVERED));
+        assertEquals(0, metrics.getLatency(JoystickMetrics.STAGE_DELIVERY).getCount());
+    }
+}
@@ -0,0 +1,104 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks which pointers are left to the default dispatch, and the actions it sees, as pointers go
+ * down on and off controls.
+ * @author Christopher Bull
+ */
+public class PointerRoutingTest {
+
+    private PointerRouting routing;
+
+    @Before
+    public void setUp() throws Exception {
+        routing = new PointerRouting();
+    }
+
+    @Test
+    public void allRouted_defaultSeesNothing() throws Exception {
+        routing.pointerDown(0, true);
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_DOWN, 0));
+        routing.pointerDown(1, true);
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_POINTER_DOWN, 1));
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_MOVE, 0));
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_POINTER_UP, 1));
+        routing.pointerUp(1);
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_UP, 0));
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_CANCEL, 0));
+    }
+
+    @Test
+    public void noneRouted_defaultSeesEverything() throws Exception {
+        routing.pointerDown(0, false);
+        assertEquals(PointerRouting.ACTION_DOWN, routing.getDefaultAction(PointerRouting.ACTION_DOWN, 0));
+        routing.pointerDown(1, false);
+        assertEquals(PointerRouting.ACTION_POINTER_DOWN, routing.getDefaultAction(PointerRouting.ACTION_POINTER_DOWN, 1));
+        assertEquals(PointerRouting.ACTION_MOVE, routing.getDefaultAction(PointerRouting.ACTION_MOVE, 0));
+        assertEquals(PointerRouting.ACTION_POINTER_UP, routing.getDefaultAction(PointerRouting.ACTION_POINTER_UP, 0));
+        routing.pointerUp(0);
+        assertEquals(PointerRouting.ACTION_UP, routing.getDefaultAction(PointerRouting.ACTION_UP, 1));
+        assertFalse(routing.hasRoutedPointers());
+    }
+
+    @Test
+    public void pointerDownOffControl_whilstRouting_fallsThrough() throws Exception {
+        // Joystick held, then a (non-control) button pressed with a second finger
+        routing.pointerDown(0, true);
+        routing.pointerDown(1, false);
+        assertTrue(routing.isRouted(0));
+        assertTrue(routing.isDefault(1));
+        assertEquals(1 << 1, routing.getDefaultPointers());
+        assertEquals(PointerRouting.ACTION_DOWN, routing.getDefaultAction(PointerRouting.ACTION_POINTER_DOWN, 1));
+        assertEquals(PointerRouting.ACTION_MOVE, routing.getDefaultAction(PointerRouting.ACTION_MOVE, 0));
+
+        // A third finger on another control isn't seen by the default dispatch
+        routing.pointerDown(2, true);
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_POINTER_DOWN, 2));
+        assertEquals(1 << 1, routing.getDefaultPointers());
+
+        // The button is released, as the only default pointer
+        assertEquals(PointerRouting.ACTION_UP, routing.getDefaultAction(PointerRouting.ACTION_POINTER_UP, 1));
+        routing.pointerUp(1);
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_MOVE, 0));
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_POINTER_UP, 2));
+        assertTrue(routing.hasRoutedPointers());
+    }
+
+    @Test
+    public void twoPointersOffControl_whilstRouting() throws Exception {
+        routing.pointerDown(0, true);
+        routing.pointerDown(3, false);
+        assertEquals(PointerRouting.ACTION_DOWN, routing.getDefaultAction(PointerRouting.ACTION_POINTER_DOWN, 3));
+        routing.pointerDown(5, false);
+        assertEquals(PointerRouting.ACTION_POINTER_DOWN, routing.getDefaultAction(PointerRouting.ACTION_POINTER_DOWN, 5));
+        assertEquals((1 << 3) | (1 << 5), routing.getDefaultPointers());
+
+        // The joystick is released first; the default pointers carry on
+        assertEquals(PointerRouting.ACTION_NONE, routing.getDefaultAction(PointerRouting.ACTION_POINTER_UP, 0));
+        routing.pointerUp(0);
+        assertFalse(routing.hasRoutedPointers());
+        assertEquals(PointerRouting.ACTION_POINTER_UP, routing.getDefaultAction(PointerRouting.ACTION_POINTER_UP, 3));
+        routing.pointerUp(3);
+        assertEquals(PointerRouting.ACTION_UP, routing.getDefaultAction(PointerRouting.ACTION_UP, 5));
+    }
+
+    @Test
+    public void cancel_sentToDefaultPointers() throws Exception {
+        routing.pointerDown(0, true);
+        routing.pointerDown(1, false);
+        assertEquals(PointerRouting.ACTION_CANCEL, routing.getDefaultAction(PointerRouting.ACTION_CANCEL, 0));
+        routing.clear();
+        assertEquals(0, routing.getDefaultPointers());
+        assertFalse(routing.hasRoutedPointers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pointerIdOutOfRange() throws Exception {
+        routing.pointerDown(PointerRouting.MAX_POINTER_ID + 1, true);
+    }
+}
@@ -0,0 +1,110 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the compiled response curves against their formulae, and the response curve filter's
+ * per-axis shaping, rate limit and curve switching.
+ * @author Christopher Bull
+ */
+public class ResponseCurveTest {
+
+    private static final float TOLERANCE = 0.0005f;
+
+    @Test
+    public void linear_identity() throws Exception {
+        for(float v = -1f; v <= 1f; v += 0.013f) {
+            assertEquals(v, ResponseCurve.LINEAR.apply(v), TOLERANCE);
+        }
+        assertEquals(1f, ResponseCurve.LINEAR.apply(3f), 0f);
+        assertEquals(-1f, ResponseCurve.LINEAR.apply(-3f), 0f);
+    }
+
+    @Test
+    public void expo_matchesFormula() throws Exception {
+        ResponseCurve curve = ResponseCurve.expo(0.6f, 0.1f, 0.8f);
+        assertEquals(0f, curve.apply(0.05f), 0f); // Dead-band
+        assertEquals(0.8f, curve.apply(1f), TOLERANCE); // Rate
+        for(float v = 0.1f; v <= 1f; v += 0.01f) {
+            float x = (v - 0.1f) / 0.9f;
+            float expected = 0.8f * (0.4f * x + 0.6f * x * x * x);
+            assertEquals(v + "", expected, curve.apply(v), TOLERANCE);
+            assertEquals(-expected, curve.apply(-v), TOLERANCE); // Symmetric
+        }
+    }
+
+    @Test
+    public void piecewise_throughPoints() throws Exception {
+        ResponseCurve curve = ResponseCurve.piecewise(new float[] {0.5f, 0.75f}, new float[] {0.25f, 1f});
+        assertEquals(0.125f, curve.apply(0.25f), TOLERANCE);
+        assertEquals(0.25f, curve.apply(0.5f), TOLERANCE);
+        assertEquals(0.625f, curve.apply(0.625f), TOLERANCE);
+        assertEquals(1f, curve.apply(0.9f), TOLERANCE); // Held beyond the last point
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewise_rejectsUnorderedInputs() throws Exception {
+        ResponseCurve.piecewise(new float[] {0.5f, 0.25f}, new float[] {0.5f, 1f});
+    }
+
+    @Test
+    public void filter_perAxis() throws Exception {
+        ResponseCurveFilter filter = new ResponseCurveFilter(ResponseCurve.expo(1f), ResponseCurve.LINEAR, 0f);
+        JoystickMoveEvent event = new JoystickMoveEvent().set(350f, 150f, 250f, 250f, 200f, 0, null);
+        assertTrue(filter.filter(event));
+        assertEquals(250f + 0.125f * 200f, event.getTouchX(), 0.1f); // Cubic
+        assertEquals(150f, event.getTouchY(), 0.1f); // Linear
+        assertEquals(Math.hypot(0.125, 0.5), event.getDistance(), 0.001f);
+    }
+
+    @Test
+    public void filter_rateLimit() throws Exception {
+        ResponseCurveFilter filter = new ResponseCurveFilter(ResponseCurve.LINEAR, ResponseCurve.LINEAR, 2f);
+        JoystickMoveEvent event = new JoystickMoveEvent();
+        filter.filter(event.set(250f, 250f, 250f, 250f, 100f, 1000, null));
+        // Full deflection 100ms later: limited to 0.2
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 1100, null));
+        assertEquals(270f, event.getTouchX(), 0.01f);
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 1200, null));
+        assertEquals(290f, event.getTouchX(), 0.01f);
+        // A new touch isn't limited by the last
+        filter.reset();
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 1300, null));
+        assertEquals(350f, event.getTouchX(), 0.01f);
+    }
+
+    @Test
+    public void filter_rateLimit_redeliveredEvent() throws Exception {
+        ResponseCurveFilter filter = new ResponseCurveFilter(ResponseCurve.LINEAR, ResponseCurve.LINEAR, 1f);
+        JoystickMoveEvent event = new JoystickMoveEvent();
+        filter.filter(event.set(250f, 250f, 250f, 250f, 100f, 0, null));
+        assertEquals(250f, event.getTouchX(), 0.01f);
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 100, null));
+        assertEquals(260f, event.getTouchX(), 0.01f);
+        assertEquals(100, event.getDeliveryTime());
+        // The same (held) touch re-delivered at once: no time has passed, so no further change
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 100, null));
+        assertEquals(260f, event.getTouchX(), 0.01f);
+        // ... and re-delivered by later polls: moves on as time passes, not jumping to the target
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 100, null).setDeliveryTime(200));
+        assertEquals(270f, event.getTouchX(), 0.01f);
+        assertEquals(100, event.getEventTime());
+        assertEquals(200, event.getDeliveryTime());
+        filter.filter(event.set(350f, 250f, 250f, 250f, 100f, 100, null).setDeliveryTime(2000));
+        assertEquals(350f, event.getTouchX(), 0.01f);
+    }
+
+    @Test
+    public void filter_switchCurves() throws Exception {
+        ResponseCurveFilter filter = new ResponseCurveFilter(ResponseCurve.LINEAR);
+        JoystickMoveEvent event = new JoystickMoveEvent();
+        filter.filter(event.set(300f, 250f, 250f, 250f, 100f, 0, null));
+        assertEquals(300f, event.getTouchX(), 0.01f);
+        filter.setCurves(ResponseCurve.expo(0f, 0f, 0.5f), ResponseCurve.LINEAR, 0f);
+        filter.filter(event.set(300f, 250f, 250f, 250f, 100f, 0, null));
+        assertEquals(275f, event.getTouchX(), 0.01f);
+        assertEquals(0f, filter.getRateLimit(), 0f);
+    }
+}
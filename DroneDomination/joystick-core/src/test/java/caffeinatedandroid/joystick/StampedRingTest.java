@@ -0,0 +1,63 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the stamped ring's record reads, and that overwritten or unwritten records can't be read.
+ * (Reads across threads are checked through {@link JoystickRingTest}.)
+ * @author Christopher Bull
+ */
+public class StampedRingTest {
+
+    private static void write(StampedRing ring, int i) {
+        int slot = ring.beginWrite();
+        ring.setInt(slot, 0, i);
+        ring.setFloat(slot, 1, i / 2f);
+        ring.setLong(slot, 1000L * i);
+        ring.endWrite();
+    }
+
+    @Test
+    public void read_keepsNewestRecords() throws Exception {
+        StampedRing ring = new StampedRing(4, 2);
+        assertEquals(-1, ring.beginRead(0)); // Not written
+        for(int i = 0; i < 10; i++) {
+            write(ring, i);
+        }
+        assertEquals(10, ring.getCount());
+        for(long i = 6; i < 10; i++) {
+            int slot = ring.beginRead(i);
+            assertTrue(slot >= 0);
+            assertEquals(i, ring.getInt(slot, 0));
+            assertEquals(i / 2f, ring.getFloat(slot, 1), 0f);
+            assertEquals(1000L * i, ring.getLong(slot));
+            assertTrue(ring.endRead(i));
+        }
+        assertEquals(-1, ring.beginRead(5)); // Overwritten
+        assertEquals(-1, ring.beginRead(10)); // Not written yet
+        assertEquals(-1, ring.beginRead(-1));
+    }
+
+    @Test
+    public void overwrittenWhilstReading_fails() throws Exception {
+        StampedRing ring = new StampedRing(2, 1);
+        write(ring, 0);
+        int slot = ring.beginRead(0);
+        assertTrue(slot >= 0);
+        ring.beginWrite(); // Record 1
+        ring.endWrite();
+        assertTrue(ring.endRead(0));
+        ring.beginWrite(); // Record 2, over record 0
+        assertFalse(ring.endRead(0));
+        assertEquals(-1, ring.beginRead(2)); // Still being written
+        ring.endWrite();
+        assertTrue(ring.beginRead(2) >= 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityNotPowerOfTwo() throws Exception {
+        new StampedRing(100, 1);
+    }
+}
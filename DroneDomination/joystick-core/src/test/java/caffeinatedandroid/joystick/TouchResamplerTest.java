@@ -0,0 +1,59 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for fixed-rate resampling of input samples.
+ * @author Christopher Bull
+ */
+public class TouchResamplerTest {
+
+    private final List<float[]> samples = new ArrayList<>();
+    private TouchResampler resampler;
+
+    @Before
+    public void setUp() throws Exception {
+        resampler = new TouchResampler(5, 50, new JoystickSampleListener() {
+            @Override
+            public void OnJoystickSample(float touchX, float touchY, long eventTime) {
+                samples.add(new float[] {touchX, touchY, eventTime});
+            }
+        });
+    }
+
+    @Test
+    public void interpolatesAtFixedRate() throws Exception {
+        resampler.OnJoystickSample(0f, 0f, 100);
+        resampler.OnJoystickSample(8f, 16f, 108);
+        resampler.OnJoystickSample(12f, 24f, 112);
+
+        assertEquals(3, samples.size());
+        assertSample(0f, 0f, 100, samples.get(0));
+        assertSample(5f, 10f, 105, samples.get(1));
+        assertSample(10f, 20f, 110, samples.get(2));
+    }
+
+    @Test
+    public void restartsAfterGap() throws Exception {
+        resampler.OnJoystickSample(0f, 0f, 100);
+        resampler.OnJoystickSample(50f, 50f, 300);
+        resampler.OnJoystickSample(60f, 50f, 305);
+
+        assertEquals(3, samples.size());
+        assertSample(0f, 0f, 100, samples.get(0));
+        assertSample(50f, 50f, 300, samples.get(1));
+        assertSample(60f, 50f, 305, samples.get(2));
+    }
+
+    private static void assertSample(float x, float y, long time, float[] sample) {
+        assertEquals(x, sample[0], 0.0001f);
+        assertEquals(y, sample[1], 0.0001f);
+        assertEquals(time, (long) sample[2]);
+    }
+}
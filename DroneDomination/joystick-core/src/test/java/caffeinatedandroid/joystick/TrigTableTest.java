@@ -0,0 +1,76 @@
+package caffeinatedandroid.joystick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the table-driven trigonometry against the exact Math versions, within the documented error
+ * bounds.
+ * @author Christopher Bull
+ */
+public class TrigTableTest {
+
+    private static final float CENTER = 250f;
+
+    @Test
+    public void sinCos_withinErrorBound() throws Exception {
+        for(int bits = 8; bits <= 16; bits += 4) {
+            TrigTable table = new TrigTable(bits);
+            float bound = table.getMaxSinError();
+            for(int i = -20000; i <= 20000; i++) {
+                float rads = (float) (i * Math.PI * 2 / 10000.0); // -4pi to 4pi
+                assertEquals("sin " + rads, Math.sin(rads), table.sin(rads), bound);
+                assertEquals("cos " + rads, Math.cos(rads), table.cos(rads), bound);
+            }
+        }
+    }
+
+    @Test
+    public void atan2_withinErrorBound() throws Exception {
+        for(int bits = 8; bits <= 16; bits += 4) {
+            TrigTable table = new TrigTable(bits);
+            float bound = table.getMaxAtanError();
+            for(float y = -300; y <= 300; y += 3.7f) {
+                for(float x = -300; x <= 300; x += 4.1f) {
+                    assertEquals("atan2 " + y + "," + x, Math.atan2(y, x), table.atan2(y, x), bound);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void atan2_axesAndOrigin() throws Exception {
+        TrigTable table = TrigTable.DEFAULT;
+        assertEquals(0f, table.atan2(0f, 0f), 0f);
+        assertEquals(0f, table.atan2(0f, 5f), 0f);
+        assertEquals(Math.PI / 2, table.atan2(5f, 0f), 1e-6);
+        assertEquals(Math.PI, table.atan2(0f, -5f), 1e-6);
+        assertEquals(-Math.PI / 2, table.atan2(-5f, 0f), 1e-6);
+    }
+
+    @Test
+    public void angleInDegrees_matchesJoystickMath() throws Exception {
+        for(int deg = 0; deg < 3600; deg++) {
+            double rads = Math.toRadians(deg / 10.0);
+            float touch_x = (float) (CENTER + Math.sin(rads) * 160);
+            float touch_y = (float) (CENTER - Math.cos(rads) * 160);
+            float expected = JoystickMath.calculateAngle_InDegrees(touch_x, touch_y, CENTER, CENTER);
+            float actual = TrigTable.DEFAULT.calculateAngle_InDegrees(touch_x, touch_y, CENTER, CENTER);
+            float error = Math.abs(expected - actual);
+            assertTrue("angle " + expected + " vs " + actual, Math.min(error, 360 - error) < 0.0001f);
+        }
+    }
+
+    @Test
+    public void direction_matchesJoystickMathAwayFromBoundaries() throws Exception {
+        for(float angle = 0f; angle <= 360f; angle += 0.25f) {
+            if(Math.abs((angle - 22.5f) % 45f) < 0.01f) {
+                continue; // Boundaries are inclusive to different sides
+            }
+            assertEquals("angle " + angle, JoystickMath.calculateDirection(angle), TrigTable.calculateDirection(angle));
+        }
+        assertEquals(Direction.ForwardRight, TrigTable.calculateDirection(22.5f));
+        assertEquals(Direction.Forward, TrigTable.calculateDirection(360f));
+    }
+}